@@ -0,0 +1,47 @@
+package com.example.rest_service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call request construction: Supabase header set and PostgREST URL building.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SupabaseRequestBenchmark {
+
+    private SupabaseConfig config;
+    private long pollId = 12345;
+
+    @Setup
+    public void setUp() throws Exception {
+        config = new SupabaseConfig();
+        set("supabaseUrl", "https://example.supabase.co");
+        set("supabaseAnonKey", "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9." + "a".repeat(120) + ".signature");
+    }
+
+    private void set(String field, String value) throws Exception {
+        Field f = SupabaseConfig.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(config, value);
+    }
+
+    @Benchmark
+    public HttpHeaders createSupabaseHeaders() {
+        return config.createSupabaseHeaders();
+    }
+
+    @Benchmark
+    public HttpHeaders createSupabaseHeadersForUpdate() {
+        return config.createSupabaseHeadersForUpdate();
+    }
+
+    @Benchmark
+    public String pollOptionsUrl() {
+        return config.getSupabaseUrl() + "/rest/v1/" + "poll_options" + "?poll_id=eq." + pollId + "&select=option_text";
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.rest_service.controller;
+
+import com.example.rest_service.service.BettingPools;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-option aggregation behind GET /api/betting/stats/{pollId}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BettingStatsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int bets;
+
+    @Param({"2", "8"})
+    public int options;
+
+    private List<Map<String, Object>> rows;
+    private BettingPools.Pool pool;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rows = new ArrayList<>(bets);
+        for (int i = 0; i < bets; i++) {
+            // Shaped like the deserialized PostgREST rows: String and Integer values
+            Map<String, Object> row = new HashMap<>();
+            row.put("option_text", "Option " + random.nextInt(options));
+            row.put("amount", 1 + random.nextInt(100));
+            rows.add(row);
+        }
+        pool = new BettingPools.Pool();
+        for (Map<String, Object> row : rows) {
+            pool.add((String) row.get("option_text"), ((Number) row.get("amount")).longValue());
+        }
+    }
+
+    @Benchmark
+    public void summarizeBets(Blackhole bh) {
+        bh.consume(BettingController.summarizeBets(1L, rows, 0.05));
+    }
+
+    @Benchmark
+    public void summarizePool(Blackhole bh) {
+        bh.consume(BettingController.summarize(1L, pool.totals(), pool.betCount(), 0.05));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.rest_service.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reel evaluation behind POST /api/gambling/slot-machine, over a fixed pool of random spins.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SlotMachineBenchmark {
+
+    private static final int SPINS = 1024;
+
+    private final String[][] spins = new String[SPINS][];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] symbols = GamblingController.SLOT_SYMBOLS;
+        for (int i = 0; i < SPINS; i++) {
+            spins[i] = new String[]{
+                symbols[random.nextInt(symbols.length)],
+                symbols[random.nextInt(symbols.length)],
+                symbols[random.nextInt(symbols.length)]
+            };
+        }
+    }
+
+    @Benchmark
+    public GamblingController.SlotOutcome evaluateReels() {
+        String[] spin = spins[next++ & (SPINS - 1)];
+        return GamblingController.evaluateReels(spin[0], spin[1], spin[2]);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson mapping of PostgREST array payloads into the model arrays the services request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PayloadMappingBenchmark {
+
+    @Param({"1", "100", "5000"})
+    public int rows;
+
+    private ObjectMapper mapper;
+    private byte[] polls;
+    private byte[] bets;
+    private byte[] users;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same configuration as the services' RestTemplate/WebClient message converters
+        mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        OffsetDateTime t = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        List<Map<String, Object>> pollRows = new ArrayList<>();
+        List<Map<String, Object>> betRows = new ArrayList<>();
+        List<Map<String, Object>> userRows = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            String ts = t.plusMinutes(i).toString();
+            UUID user = new UUID(i, i);
+            pollRows.add(Map.of("id", i, "question", "Poll question number " + i + "?", "status", "APPROVED",
+                "category", "sports", "total_bets", i * 10, "created_at", ts, "ends_at", ts,
+                "created_by", user.toString()));
+            betRows.add(Map.of("id", i, "poll_id", i % 50, "user_id", user.toString(), "option_text", "Yes",
+                "amount", 25, "potential_payout", 50, "created_at", ts));
+            userRows.add(Map.ofEntries(Map.entry("id", user.toString()), Map.entry("email", "user" + i + "@example.test"),
+                Map.entry("github_id", String.valueOf(1000 + i)), Map.entry("name", "User " + i),
+                Map.entry("username", "user" + i), Map.entry("bio", "Bio of user " + i), Map.entry("obrobucks", 1000),
+                Map.entry("access_token", "gho_" + "x".repeat(36)), Map.entry("last_login", ts),
+                Map.entry("created_at", ts), Map.entry("updated_at", ts)));
+        }
+        polls = mapper.writeValueAsBytes(pollRows);
+        bets = mapper.writeValueAsBytes(betRows);
+        users = mapper.writeValueAsBytes(userRows);
+    }
+
+    @Benchmark
+    public Poll[] readPolls() throws Exception {
+        return mapper.readValue(polls, Poll[].class);
+    }
+
+    @Benchmark
+    public Bet[] readBets() throws Exception {
+        return mapper.readValue(bets, Bet[].class);
+    }
+
+    @Benchmark
+    public UserProfile[] readUserProfiles() throws Exception {
+        return mapper.readValue(users, UserProfile[].class);
+    }
+
+    @Benchmark
+    public UserBalance[] readUserBalances() throws Exception {
+        // Same payload through the balance projection, for comparison with readUserProfiles
+        return mapper.readValue(users, UserBalance[].class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.rest_service.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint latency samples (microseconds) and error counts, summarized as percentiles.
+ */
+final class LatencyRecorder {
+
+    record Summary(String endpoint, int count, int errors, double throughput,
+                   long p50, long p95, long p99, long p999, long max) {}
+
+    private final Map<String, Samples> byEndpoint = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long micros, boolean error) {
+        byEndpoint.computeIfAbsent(endpoint, k -> new Samples()).add(micros, error);
+    }
+
+    /**
+     * Summaries per endpoint plus an "ALL" row, for a run that lasted elapsedSeconds
+     */
+    Map<String, Summary> summarize(double elapsedSeconds) {
+        Map<String, Summary> out = new TreeMap<>();
+        Samples all = new Samples();
+        for (Map.Entry<String, Samples> e : byEndpoint.entrySet()) {
+            out.put(e.getKey(), e.getValue().summary(e.getKey(), elapsedSeconds));
+            all.addAll(e.getValue());
+        }
+        out.put("ALL", all.summary("ALL", elapsedSeconds));
+        return out;
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+        private int errors;
+
+        synchronized void add(long micros, boolean error) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = micros;
+            if (error) errors++;
+        }
+
+        synchronized void addAll(Samples other) {
+            synchronized (other) {
+                for (int i = 0; i < other.size; i++) add(other.values[i], false);
+                errors += other.errors;
+            }
+        }
+
+        synchronized Summary summary(String endpoint, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return new Summary(endpoint, size, errors, elapsedSeconds > 0 ? size / elapsedSeconds : 0,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 99.9),
+                size > 0 ? sorted[size - 1] : 0);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+        }
+    }
+}
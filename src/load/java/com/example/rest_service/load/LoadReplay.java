@@ -0,0 +1,268 @@
+package com.example.rest_service.load;
+
+import com.example.rest_service.RestServiceApplication;
+import com.example.rest_service.sim.PostgrestSimulator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a JSONL request log against the app and reports throughput and latency percentiles
+ * per endpoint.
+ *
+ * By default it boots a PostgREST simulator and the app in this JVM; pass --target=http://host:port
+ * to drive an already running instance instead. With --rate=N requests are issued open-loop at N/s and
+ * latency is measured from each request's scheduled start, so a stalled server cannot hide queueing
+ * delay. With --rate=0 (the default) --concurrency workers send back to back.
+ *
+ * gradle loadReplay -PloadArgs="--duration=60 --rate=500 --concurrency=128"
+ *
+ * Flags: --target --log --rate --concurrency --duration --warmup --report
+ *        --sim-latency-ms --sim-jitter-ms --users --polls --bets-per-poll --seed
+ *        --app.&lt;property&gt;=&lt;value&gt; (passed to the in-process app)
+ */
+public final class LoadReplay {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, String> opts;
+    private final HttpClient http;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private String baseUrl;
+    private ReplayLog log;
+    private List<String> userIds;
+    private List<ReplayLog.Poll> polls;
+
+    private LoadReplay(Map<String, String> opts) {
+        this.opts = opts;
+        this.http = HttpClient.newBuilder()
+            .executor(workers)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadReplay replay = new LoadReplay(opts);
+        PostgrestSimulator sim = null;
+        ConfigurableApplicationContext app = null;
+        try {
+            if (opts.containsKey("target")) {
+                replay.baseUrl = opts.get("target").replaceAll("/$", "");
+            } else {
+                sim = replay.startSimulator();
+                app = replay.startApp(sim.url());
+                replay.baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            }
+            replay.run();
+        } finally {
+            if (app != null) app.close();
+            if (sim != null) sim.close();
+            replay.workers.shutdownNow();
+        }
+        System.exit(0);
+    }
+
+    private PostgrestSimulator startSimulator() throws IOException {
+        PostgrestSimulator sim = PostgrestSimulator.start(0);
+        sim.latency(Duration.ofMillis(intOpt("sim-latency-ms", 5)), Duration.ofMillis(intOpt("sim-jitter-ms", 5)));
+        sim.seed(intOpt("users", 200), intOpt("polls", 20), intOpt("bets-per-poll", 50), intOpt("seed", 42));
+        System.out.println("Simulator on " + sim.url() + " (" + sim.count("user_profiles") + " users, "
+            + sim.count("polls") + " polls, " + sim.count("bets") + " bets)");
+        return sim;
+    }
+
+    private ConfigurableApplicationContext startApp(String supabaseUrl) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--supabase.url=" + supabaseUrl,
+            "--supabase.key=load",
+            "--logging.level.root=WARN"));
+        opts.forEach((k, v) -> {
+            if (k.startsWith("app.")) args.add("--" + k.substring(4) + "=" + v);
+        });
+
+        return new SpringApplicationBuilder(RestServiceApplication.class)
+            .properties(
+                "SUPABASE_ANON_KEY=load",
+                "SUPABASE_SERVICE_ROLE_KEY=load",
+                "GITHUB_CLIENT_ID=load",
+                "GITHUB_CLIENT_SECRET=load")
+            .run(args.toArray(String[]::new));
+    }
+
+    private void run() throws Exception {
+        log = ReplayLog.load(opts.getOrDefault("log", "classpath:replay.jsonl"));
+        discoverFixtures();
+
+        int rate = intOpt("rate", 0);
+        int concurrency = intOpt("concurrency", 64);
+        int warmup = intOpt("warmup", 5);
+        int duration = intOpt("duration", 30);
+
+        System.out.println("Replaying " + log.entries.size() + " logged requests against " + baseUrl
+            + (rate > 0 ? " at " + rate + " req/s" : " closed-loop") + ", concurrency " + concurrency
+            + ", warmup " + warmup + "s, duration " + duration + "s");
+
+        if (warmup > 0) drive(new LatencyRecorder(), rate, concurrency, warmup);
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        long start = System.nanoTime();
+        drive(recorder, rate, concurrency, duration);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Map<String, LatencyRecorder.Summary> summary = recorder.summarize(elapsed);
+        print(summary);
+
+        if (opts.containsKey("report")) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("target", baseUrl);
+            report.put("options", opts);
+            report.put("elapsedSeconds", elapsed);
+            report.put("endpoints", summary.values());
+            JSON.writeValue(Path.of(opts.get("report")).toFile(), report);
+            System.out.println("Report written to " + opts.get("report"));
+        }
+    }
+
+    /**
+     * Pick real user and poll ids to fill the log's placeholders
+     */
+    private void discoverFixtures() throws Exception {
+        List<Map<String, Object>> users = getJson("/api/users?limit=500");
+        List<Map<String, Object>> pollRows = getJson("/api/polls?limit=200");
+        userIds = users.stream().map(u -> String.valueOf(u.get("id"))).toList();
+        polls = ReplayLog.polls(pollRows);
+        if (userIds.isEmpty() || polls.isEmpty()) {
+            throw new IllegalStateException("Target has no users or polls to replay against");
+        }
+    }
+
+    private List<Map<String, Object>> getJson(String path) throws Exception {
+        HttpResponse<String> resp = http.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " returned " + resp.statusCode());
+        }
+        return JSON.readValue(resp.body(), new TypeReference<>() {});
+    }
+
+    private void drive(LatencyRecorder recorder, int rate, int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong sequence = new AtomicLong();
+        Semaphore permits = new Semaphore(concurrency);
+
+        if (rate <= 0) {
+            // Closed loop: each worker sends its next request as soon as the previous one returns
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(next(sequence), System.nanoTime(), recorder);
+                    }
+                }));
+            }
+            for (Thread t : threads) t.join();
+            return;
+        }
+
+        // Open loop: request i is due at start + i/rate whether or not earlier ones have finished
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= deadline) break;
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            ReplayLog.Entry entry = next(sequence);
+            permits.acquire();
+            workers.submit(() -> {
+                try {
+                    send(entry, due, recorder);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+        permits.acquire(concurrency);
+    }
+
+    private ReplayLog.Entry next(AtomicLong sequence) {
+        List<ReplayLog.Entry> entries = log.entries;
+        return entries.get((int) (sequence.getAndIncrement() % entries.size()));
+    }
+
+    private void send(ReplayLog.Entry entry, long intendedStart, LatencyRecorder recorder) {
+        Random random = ThreadLocalRandom.current();
+        String path = ReplayLog.fill(entry.path(), userIds, polls, random);
+        String body = ReplayLog.fill(entry.body(), userIds, polls, random);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30));
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                .method(entry.method(), HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.method(entry.method(), HttpRequest.BodyPublishers.noBody());
+        }
+
+        boolean error;
+        try {
+            HttpResponse<Void> resp = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            // 4xx such as "insufficient funds" are valid answers; only server failures count as errors
+            error = resp.statusCode() >= 500;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(entry.name(), (System.nanoTime() - intendedStart) / 1_000, error);
+    }
+
+    private static void print(Map<String, LatencyRecorder.Summary> summary) {
+        System.out.println();
+        System.out.printf("%-36s %8s %6s %9s %9s %9s %9s %9s %9s%n",
+            "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        for (LatencyRecorder.Summary s : summary.values()) {
+            System.out.printf("%-36s %8d %6d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                s.endpoint(), s.count(), s.errors(), s.throughput(),
+                s.p50() / 1000.0, s.p95() / 1000.0, s.p99() / 1000.0, s.p999() / 1000.0, s.max() / 1000.0);
+        }
+    }
+
+    private int intOpt(String name, int fallback) {
+        return Integer.parseInt(opts.getOrDefault(name, String.valueOf(fallback)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.rest_service.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A JSONL request log: one {"name", "method", "path", "body"} object per line.
+ * Paths and bodies may contain {userId}, {pollId} and {option} placeholders, which are
+ * filled from the target's real users and polls so the replayed traffic hits live rows.
+ */
+final class ReplayLog {
+
+    record Entry(String name, String method, String path, String body) {}
+
+    record Poll(long id, List<String> options) {}
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    final List<Entry> entries;
+
+    private ReplayLog(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Load from a file path, or from the classpath when the location starts with classpath:
+     */
+    static ReplayLog load(String location) throws IOException {
+        InputStream in;
+        if (location.startsWith("classpath:")) {
+            in = ReplayLog.class.getResourceAsStream("/" + location.substring("classpath:".length()));
+            if (in == null) throw new IOException("Not on classpath: " + location);
+        } else {
+            in = Files.newInputStream(Path.of(location));
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                JsonNode node = JSON.readTree(line);
+                if (!node.hasNonNull("path")) throw new IOException("Line " + lineNo + ": missing path");
+                String method = node.path("method").asText("GET").toUpperCase();
+                String path = node.get("path").asText();
+                String name = node.path("name").asText(method + " " + path.replaceAll("\\?.*", ""));
+                String body = node.hasNonNull("body") ? JSON.writeValueAsString(node.get("body")) : null;
+                entries.add(new Entry(name, method, path, body));
+            }
+        }
+        if (entries.isEmpty()) throw new IOException("No requests in " + location);
+        return new ReplayLog(entries);
+    }
+
+    /**
+     * Substitute placeholders with a random user and poll (and one of that poll's options)
+     */
+    static String fill(String template, List<String> userIds, List<Poll> polls, Random random) {
+        if (template == null || template.indexOf('{') < 0) return template;
+        String out = template;
+        if (out.contains("{userId}")) {
+            out = out.replace("{userId}", userIds.get(random.nextInt(userIds.size())));
+        }
+        if (out.contains("{pollId}") || out.contains("{option}")) {
+            Poll poll = polls.get(random.nextInt(polls.size()));
+            // A quoted "{pollId}" in a JSON body becomes a number, as the controllers expect
+            out = out.replace("\"{pollId}\"", String.valueOf(poll.id()))
+                .replace("{pollId}", String.valueOf(poll.id()));
+            if (!poll.options().isEmpty()) {
+                out = out.replace("{option}", poll.options().get(random.nextInt(poll.options().size())));
+            }
+        }
+        return out;
+    }
+
+    static List<Poll> polls(List<Map<String, Object>> rows) {
+        List<Poll> polls = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            @SuppressWarnings("unchecked")
+            List<String> options = (List<String>) row.getOrDefault("options", List.of());
+            polls.add(new Poll(((Number) row.get("id")).longValue(), options));
+        }
+        return polls;
+    }
+}
@@ -36,7 +36,7 @@ public class HelloController {
     @GetMapping("/test/users")
     public String testUserService() {
         try {
-            int userCount = userProfileService.getAllUsers().size();
+            int userCount = userProfileService.getAllIdentities().size();
             return "User Profile Service is working! Found " + userCount + " users in the database.";
         } catch (Exception e) {
             return "User Profile Service error: " + e.getMessage();
@@ -0,0 +1,59 @@
+package com.example.rest_service;
+
+import com.example.rest_service.dto.CreatePollRequest;
+import com.example.rest_service.dto.CreateUserRequest;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.Poll;
+import com.example.rest_service.model.PollStatus;
+import com.example.rest_service.model.UserBalance;
+import com.example.rest_service.model.UserIdentity;
+import com.example.rest_service.model.UserProfile;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for a GraalVM native image (gradle -Pnative nativeCompile).
+ *
+ * Spring AOT already covers controller request/response types; these cover what it cannot see:
+ * the model arrays RestTemplate and WebClient deserialize PostgREST responses into, and JJWT,
+ * which creates its implementation and Jackson serializer classes by name.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> JSON_TYPES = List.of(
+        Poll.class, PollStatus.class, Bet.class, UserProfile.class, UserBalance.class,
+        UserIdentity.class, CreatePollRequest.class, CreateUserRequest.class);
+
+    private static final List<String> JJWT_TYPES = List.of(
+        "io.jsonwebtoken.impl.DefaultJwtBuilder",
+        "io.jsonwebtoken.impl.DefaultJwtParser",
+        "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+        "io.jsonwebtoken.impl.DefaultClaims",
+        "io.jsonwebtoken.impl.DefaultHeader",
+        "io.jsonwebtoken.impl.DefaultJwsHeader",
+        "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+        "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+        "io.jsonwebtoken.jackson.io.JacksonSerializer",
+        "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (Class<?> type : JSON_TYPES) {
+            bindings.registerReflectionHints(hints.reflection(), type);
+            hints.reflection().registerType(type.arrayType());
+        }
+
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        // Serializer/Deserializer/CompressionCodec implementations are found through ServiceLoader
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+    }
+}
@@ -2,10 +2,12 @@ package com.example.rest_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 import org.springframework.web.bind.annotation.RestController;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 @RestController  // Make this class handle HTTP requests
 public class RestServiceApplication {
 
@@ -1,5 +1,6 @@
 package com.example.rest_service;
 
+import com.example.rest_service.dto.PageCursor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -20,6 +21,7 @@ public class SecurityConfig {
                 config.setAllowedOrigins(List.of("*")); // adjust in production
                 config.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS"));
                 config.setAllowedHeaders(List.of("*"));
+                config.setExposedHeaders(List.of(PageCursor.HEADER, "ETag")); // keyset pagination, conditional GETs
                 return config;
             }))
             .csrf(csrf -> csrf.disable())
@@ -0,0 +1,170 @@
+package com.example.rest_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces identical concurrent GETs on the Supabase RestTemplate: the first caller
+ * performs the request and every caller that arrives while it is in flight shares its
+ * buffered response. Nothing is kept once the leader's response has been read.
+ *
+ * A GET carrying the NO_COALESCE header always goes upstream on its own: a read that feeds a
+ * write (a balance about to be changed) must not join a request that started before the last
+ * write committed.
+ */
+public class SingleFlightInterceptor implements ClientHttpRequestInterceptor {
+
+    /**
+     * Request header marking a GET that must not be coalesced; removed before the request is sent
+     */
+    public static final String NO_COALESCE = "X-No-Coalesce";
+
+    // Headers that change what PostgREST returns for the same URL
+    private static final List<String> KEY_HEADERS =
+        List.of(HttpHeaders.ACCEPT, HttpHeaders.RANGE, "Prefer", "apikey", HttpHeaders.AUTHORIZATION, "Accept-Profile");
+
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public SingleFlightInterceptor(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("supabase.http.coalesce.hits")
+            .description("Supabase GETs answered by joining an identical in-flight request")
+            .register(meterRegistry);
+        this.misses = Counter.builder("supabase.http.coalesce.misses")
+            .description("Supabase GETs that went upstream")
+            .register(meterRegistry);
+        this.bypassed = Counter.builder("supabase.http.coalesce.bypassed")
+            .description("Supabase GETs sent upstream alone because they feed a write")
+            .register(meterRegistry);
+        Gauge.builder("supabase.http.coalesce.in_flight", inFlight, ConcurrentHashMap::size)
+            .description("Distinct Supabase GETs currently in flight")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET) {
+            return execution.execute(request, body);
+        }
+        if (request.getHeaders().remove(NO_COALESCE) != null) {
+            bypassed.increment();
+            return execution.execute(request, body);
+        }
+
+        String key = key(request);
+        CompletableFuture<BufferedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            hits.increment();
+            return await(leader);
+        }
+
+        misses.increment();
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            BufferedResponse buffered = BufferedResponse.of(response);
+            mine.complete(buffered);
+            return buffered;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    static String key(HttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getURI().toString());
+        HttpHeaders headers = request.getHeaders();
+        for (String name : KEY_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append('\n').append(name).append(':').append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    private static ClientHttpResponse await(CompletableFuture<BufferedResponse> leader) throws IOException {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for coalesced Supabase request");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Fully read response that each waiting caller can consume independently.
+     */
+    static final class BufferedResponse implements ClientHttpResponse {
+
+        private final HttpStatusCode status;
+        private final String statusText;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private BufferedResponse(HttpStatusCode status, String statusText, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.statusText = statusText;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        static BufferedResponse of(ClientHttpResponse response) throws IOException {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            try (InputStream in = response.getBody()) {
+                return new BufferedResponse(response.getStatusCode(), response.getStatusText(),
+                    HttpHeaders.readOnlyHttpHeaders(headers), in.readAllBytes());
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return statusText;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
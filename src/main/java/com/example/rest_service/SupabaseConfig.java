@@ -1,6 +1,8 @@
 package com.example.rest_service;
 
 import jakarta.annotation.PostConstruct;               // 👈 add this import
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,6 +22,9 @@ public class SupabaseConfig {
     @Value("${supabase.service-role-key:}")
     private String supabaseServiceRoleKey;
 
+    @Value("${supabase.http.coalesce.enabled:true}")
+    private boolean coalesceReads;
+
     @PostConstruct
     public void init() {
         // 👇 Hard fallback if property is blank or not set
@@ -40,9 +45,13 @@ public class SupabaseConfig {
     }
 
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(CloseableHttpClient supabaseHttpClient, MeterRegistry meterRegistry) {
         RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
+        restTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(supabaseHttpClient));
+        if (coalesceReads) {
+            // Identical concurrent GETs share one upstream call
+            restTemplate.getInterceptors().add(new SingleFlightInterceptor(meterRegistry));
+        }
         return restTemplate;
     }
 
@@ -67,6 +76,16 @@ public class SupabaseConfig {
         return headers;
     }
 
+    /**
+     * Headers for a read whose result is about to be written back, which must not share another
+     * caller's in-flight response
+     */
+    public HttpHeaders createSupabaseHeadersForFreshRead() {
+        HttpHeaders headers = createSupabaseHeaders();
+        headers.set(SingleFlightInterceptor.NO_COALESCE, "true");
+        return headers;
+    }
+
     public HttpHeaders createSupabaseHeadersForUpdate() {
         HttpHeaders headers = new HttpHeaders();
         headers.set("apikey", supabaseAnonKey);
@@ -0,0 +1,171 @@
+package com.example.rest_service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.net.ssl.SSLContext;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pooled keep-alive HTTP client used by the Supabase RestTemplate.
+ * All knobs live under supabase.http.* so the pool can be sized per environment.
+ */
+@Configuration
+public class SupabaseHttpClientConfig {
+
+    @Value("${supabase.http.max-total:100}")
+    private int maxTotal;
+
+    @Value("${supabase.http.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${supabase.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${supabase.http.response-timeout:10s}")
+    private Duration responseTimeout;
+
+    @Value("${supabase.http.pool-acquire-timeout:2s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${supabase.http.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${supabase.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${supabase.http.time-to-live:5m}")
+    private Duration timeToLive;
+
+    @Value("${supabase.http.validate-after-inactivity:2s}")
+    private Duration validateAfterInactivity;
+
+    @Value("${supabase.http.tls-session-cache-size:256}")
+    private int tlsSessionCacheSize;
+
+    @Value("${supabase.http.tls-session-timeout:1h}")
+    private Duration tlsSessionTimeout;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager supabaseConnectionManager(MeterRegistry meterRegistry) {
+        // One SSLContext for the whole pool so JSSE can resume TLS sessions on reconnect
+        SSLContext sslContext = SSLContexts.createDefault();
+        sslContext.getClientSessionContext().setSessionCacheSize(tlsSessionCacheSize);
+        sslContext.getClientSessionContext().setSessionTimeout((int) tlsSessionTimeout.toSeconds());
+
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new SSLConnectionSocketFactory(sslContext))
+            .build();
+
+        Timer waitTimer = Timer.builder("supabase.http.pool.wait")
+            .description("Time spent waiting to lease a pooled Supabase connection")
+            .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager manager = new TimedConnectionManager(registry, waitTimer);
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(maxPerRoute);
+        manager.setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(connectTimeout))
+            .setSocketTimeout(Timeout.of(responseTimeout))
+            .setTimeToLive(TimeValue.of(timeToLive))
+            .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+            .build());
+
+        registerPoolGauge(meterRegistry, manager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, manager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, manager, "pending", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, manager, "max", PoolStats::getMax);
+
+        System.out.println(">>> Supabase HTTP pool: maxTotal=" + maxTotal + ", maxPerRoute=" + maxPerRoute
+            + ", connectTimeout=" + connectTimeout + ", responseTimeout=" + responseTimeout);
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient supabaseHttpClient(PoolingHttpClientConnectionManager supabaseConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+            .setResponseTimeout(Timeout.of(responseTimeout))
+            // Used by the default keep-alive strategy when the server sends no Keep-Alive header
+            .setConnectionKeepAlive(TimeValue.of(keepAlive))
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(supabaseConnectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.of(idleEviction))
+            .build();
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry,
+                                          PoolingHttpClientConnectionManager manager,
+                                          String name,
+                                          ToIntFunction<PoolStats> stat) {
+        Gauge.builder("supabase.http.pool." + name, manager, m -> stat.applyAsInt(m.getTotalStats()))
+            .description("Supabase HTTP connection pool " + name + " connections")
+            .register(registry);
+    }
+
+    /**
+     * Connection manager that records how long callers wait for a pooled connection.
+     */
+    static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer waitTimer;
+
+        TimedConnectionManager(Registry<ConnectionSocketFactory> registry, Timer waitTimer) {
+            super(registry, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND);
+            this.waitTimer = waitTimer;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return delegate.get(timeout);
+                    } finally {
+                        waitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return delegate.cancel();
+                }
+            };
+        }
+    }
+}
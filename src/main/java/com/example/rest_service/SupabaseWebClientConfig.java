@@ -0,0 +1,74 @@
+package com.example.rest_service;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking Supabase client used when supabase.client.mode=reactive.
+ * Shares the supabase.http.* pool settings with the blocking RestTemplate so the two modes can be A/B tested.
+ */
+@Configuration
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class SupabaseWebClientConfig {
+
+    @Value("${supabase.http.max-total:100}")
+    private int maxConnections;
+
+    @Value("${supabase.http.connect-timeout:3s}")
+    private Duration connectTimeout;
+
+    @Value("${supabase.http.response-timeout:10s}")
+    private Duration responseTimeout;
+
+    @Value("${supabase.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${supabase.http.time-to-live:5m}")
+    private Duration timeToLive;
+
+    // In-flight calls beyond maxConnections queue here instead of holding a thread each
+    @Value("${supabase.http.reactive.pending-acquire-max:10000}")
+    private int pendingAcquireMax;
+
+    @Value("${supabase.http.reactive.pending-acquire-timeout:30s}")
+    private Duration pendingAcquireTimeout;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider() {
+        return ConnectionProvider.builder("supabase")
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMax)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .maxIdleTime(idleEviction)
+            .maxLifeTime(timeToLive)
+            .evictInBackground(idleEviction)
+            .metrics(true)
+            .build();
+    }
+
+    @Bean
+    public WebClient supabaseWebClient(WebClient.Builder builder,
+                                       ConnectionProvider supabaseConnectionProvider,
+                                       SupabaseConfig supabase) {
+        HttpClient httpClient = HttpClient.create(supabaseConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(responseTimeout)
+            .keepAlive(true);
+
+        System.out.println(">>> Supabase client mode: reactive (WebClient, maxConnections=" + maxConnections + ")");
+
+        return builder
+            .baseUrl(supabase.getSupabaseUrl() + "/rest/v1")
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+}
@@ -1,57 +1,61 @@
 package com.example.rest_service.controller;
 
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.BalanceEvent;
 import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.BetPlacement;
 import com.example.rest_service.model.Poll;
-import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.model.PollStatus;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.service.BalanceService;
+import com.example.rest_service.service.BetSupabaseService;
+import com.example.rest_service.service.BettingPools;
+import com.example.rest_service.service.PariMutuelOdds;
 import com.example.rest_service.service.PollSupabaseService;
 import com.example.rest_service.service.UserProfileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import com.example.rest_service.SupabaseConfig;
 
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin
 @RestController
 @RequestMapping("/api/betting")
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "blocking", matchIfMissing = true)
 public class BettingController {
 
     private final PollSupabaseService pollService;
     private final UserProfileService userProfileService;
-    private final RestTemplate restTemplate;
-    private final SupabaseConfig supabase;
+    private final BalanceService balances;
+    private final BetSupabaseService betService;
+    private final PariMutuelOdds odds;
+    private final boolean rpcPlacement;
 
     @Autowired
     public BettingController(
         PollSupabaseService pollService,
         UserProfileService userProfileService,
-        RestTemplate restTemplate,
-        SupabaseConfig supabase
+        BalanceService balances,
+        BetSupabaseService betService,
+        PariMutuelOdds odds,
+        @Value("${betting.placement.mode:legacy}") String placementMode
     ) {
         this.pollService = pollService;
         this.userProfileService = userProfileService;
-        this.restTemplate = restTemplate;
-        this.supabase = supabase;
-    }
-
-    private String base(String table) {
-        return supabase.getSupabaseUrl() + "/rest/v1/" + table;
-    }
-
-    private HttpHeaders writeHeaders() {
-        HttpHeaders h = supabase.createSupabaseHeaders();
-        h.set("Prefer", "return=representation");
-        return h;
-    }
-
-    private HttpHeaders readHeaders() {
-        return supabase.createSupabaseHeaders();
+        this.balances = balances;
+        this.betService = betService;
+        this.odds = odds;
+        // place_bet debits user_profiles.obrobucks itself, which the ledger no longer reads
+        this.rpcPlacement = "rpc".equalsIgnoreCase(placementMode) && !balances.ledgerEnabled();
+        if ("rpc".equalsIgnoreCase(placementMode) && !rpcPlacement) {
+            System.out.println(">>> betting.placement.mode=rpc ignored: bets are debited through the balance ledger");
+        }
     }
 
     /**
@@ -61,51 +65,10 @@ public class BettingController {
     @GetMapping("/stats/{pollId}")
     public ResponseEntity<Map<String, Object>> getPollStats(@PathVariable Long pollId) {
         try {
-            // Get all bets for this poll
-            String url = base("bets") + "?poll_id=eq." + pollId + "&select=option_text,amount";
-            ResponseEntity<List> resp = restTemplate.exchange(
-                url, 
-                HttpMethod.GET, 
-                new HttpEntity<>(readHeaders()), 
-                List.class
-            );
-
-            List<Map<String, Object>> bets = resp.getBody();
-            if (bets == null) bets = new ArrayList<>();
-
-            // Calculate stats per option
-            Map<String, Integer> totalPerOption = new HashMap<>();
-            int grandTotal = 0;
-
-            for (Map<String, Object> bet : bets) {
-                String option = (String) bet.get("option_text");
-                Integer amount = ((Number) bet.get("amount")).intValue();
-                totalPerOption.put(option, totalPerOption.getOrDefault(option, 0) + amount);
-                grandTotal += amount;
-            }
-
-            // Calculate percentages and odds
-            Map<String, Map<String, Object>> optionStats = new HashMap<>();
-            for (Map.Entry<String, Integer> entry : totalPerOption.entrySet()) {
-                String option = entry.getKey();
-                int optionTotal = entry.getValue();
-                
-                double percentage = grandTotal > 0 ? (optionTotal * 100.0 / grandTotal) : 0;
-                double odds = optionTotal > 0 ? (double) grandTotal / optionTotal : 2.0;
-                
-                Map<String, Object> stats = new HashMap<>();
-                stats.put("total", optionTotal);
-                stats.put("percentage", Math.round(percentage * 10) / 10.0);
-                stats.put("odds", Math.round(odds * 100) / 100.0);
-                
-                optionStats.put(option, stats);
-            }
+            // Running totals, seeded from the bets table once per poll
+            BettingPools.Pool pool = betService.pool(pollId);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("pollId", pollId);
-            response.put("grandTotal", grandTotal);
-            response.put("optionStats", optionStats);
-            response.put("betCount", bets.size());
+            Map<String, Object> response = summarize(pollId, pool.totals(), pool.betCount(), odds.houseTake());
 
             return ResponseEntity.ok(response);
 
@@ -116,6 +79,61 @@ public class BettingController {
         }
     }
 
+    /**
+     * Aggregate raw bet rows (option_text, amount) into per-option totals, percentages and odds
+     */
+    static Map<String, Object> summarizeBets(Long pollId, List<Map<String, Object>> bets, double houseTake) {
+        return summarize(pollId, totals(bets), bets.size(), houseTake);
+    }
+
+    /**
+     * Total staked per option from raw bet rows (option_text, amount)
+     */
+    static Map<String, Long> totals(List<Map<String, Object>> bets) {
+        Map<String, Long> totalPerOption = new HashMap<>();
+
+        for (Map<String, Object> bet : bets) {
+            String option = (String) bet.get("option_text");
+            long amount = ((Number) bet.get("amount")).longValue();
+            totalPerOption.merge(option, amount, Long::sum);
+        }
+        return totalPerOption;
+    }
+
+    /**
+     * Percentages and pari-mutuel odds (net of the house take) from per-option totals
+     */
+    static Map<String, Object> summarize(Long pollId, Map<String, Long> totalPerOption, long betCount, double houseTake) {
+        long grandTotal = 0;
+        for (long optionTotal : totalPerOption.values()) {
+            grandTotal += optionTotal;
+        }
+
+        // Calculate percentages and odds
+        Map<String, Map<String, Object>> optionStats = new HashMap<>();
+        for (Map.Entry<String, Long> entry : totalPerOption.entrySet()) {
+            String option = entry.getKey();
+            long optionTotal = entry.getValue();
+            
+            double percentage = grandTotal > 0 ? (optionTotal * 100.0 / grandTotal) : 0;
+            double odds = PariMutuelOdds.odds(optionTotal, grandTotal, houseTake);
+            
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("total", optionTotal);
+            stats.put("percentage", Math.round(percentage * 10) / 10.0);
+            stats.put("odds", Math.round(odds * 100) / 100.0);
+            
+            optionStats.put(option, stats);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("pollId", pollId);
+        response.put("grandTotal", grandTotal);
+        response.put("optionStats", optionStats);
+        response.put("betCount", betCount);
+        return response;
+    }
+
     /**
      * Place a bet on a poll option
      * POST /api/betting/place
@@ -133,6 +151,10 @@ public class BettingController {
             System.out.println("Place bet: user=" + userId + ", poll=" + pollId + 
                              ", option=" + optionText + ", amount=" + betAmount);
 
+            if (rpcPlacement) {
+                return placeAtomically(userId, pollId, optionText, betAmount);
+            }
+
             // Validate poll exists
             Optional<Poll> pollOpt = pollService.get(pollId);
             if (!pollOpt.isPresent()) {
@@ -146,43 +168,37 @@ public class BettingController {
                 return ResponseEntity.status(400).body(Map.of("error", "Invalid option"));
             }
 
-            // Get user
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userId);
-            if (!userOpt.isPresent()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            if (betAmount <= 0) {
+                return ResponseEntity.status(400).body(Map.of("error", "Invalid amount"));
             }
 
-            UserProfile user = userOpt.get();
-            int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
+            // The catalog copy may predate a resolution; nothing is debited on a closed poll
+            if (pollService.currentStatus(pollId).orElse(null) == PollStatus.CLOSED) {
+                return ResponseEntity.status(400).body(Map.of("error", "Poll already closed"));
+            }
+
+            // Quote odds from the live pool with this bet added; the final payout is fixed at resolution
+            Map<String, Long> totals = betService.pool(pollId).totals();
+            int currentTotal = 0;
+            for (long optionTotal : totals.values()) {
+                currentTotal += (int) optionTotal;
+            }
+            PariMutuelOdds.Quote quote = odds.quote(totals, optionText, betAmount);
+            int potentialPayout = quote.potentialPayout();
 
-            // Check if user has enough funds
-            if (currentBalance < betAmount) {
+            // Deduct bet amount from user balance, if it covers the bet
+            BalanceChange change = balances.apply(userId, betAmount, -betAmount, BalanceEvent.BET, "poll:" + pollId);
+            if (change.status().equals(BalanceChange.USER_NOT_FOUND)) {
+                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            }
+            if (!change.ok()) {
                 return ResponseEntity.status(400).body(Map.of(
                     "error", "Insufficient funds",
-                    "currentBalance", currentBalance,
+                    "currentBalance", change.balance(),
                     "required", betAmount
                 ));
             }
-
-            // Get current stats to calculate odds
-            ResponseEntity<Map<String, Object>> statsResp = getPollStats(pollId);
-            Map<String, Object> stats = statsResp.getBody();
-            int currentTotal = (int) stats.get("grandTotal");
-            
-            // Calculate potential payout (simplified odds: total pool / option pool)
-            // After this bet, the total will be currentTotal + betAmount
-            int newTotal = currentTotal + betAmount;
-            
-            // Assume this option gets betAmount, calculate payout
-            // Odds = newTotal / (amount bet on this option)
-            // For simplicity, we'll use 2x odds (can be refined)
-            int potentialPayout = betAmount * 2;
-
-            // Deduct bet amount from user balance
-            int newBalance = currentBalance - betAmount;
-            UserProfile updatedUser = new UserProfile();
-            updatedUser.setObrobucks(newBalance);
-            userProfileService.updateUser(userId, updatedUser);
+            int newBalance = change.balance();
 
             // Create bet record
             Map<String, Object> betData = new HashMap<>();
@@ -194,32 +210,24 @@ public class BettingController {
             betData.put("created_at", OffsetDateTime.now().toString());
             betData.put("is_winner", null);
 
-            HttpEntity<Object> entity = new HttpEntity<>(betData, writeHeaders());
-            ResponseEntity<Bet[]> insertResp = restTemplate.exchange(
-                base("bets"),
-                HttpMethod.POST,
-                entity,
-                Bet[].class
-            );
+            try {
+                betService.insert(betData);
+            } catch (RuntimeException e) {
+                // The stake is already debited; give it back before reporting the failure
+                balances.apply(userId, 0, betAmount, BalanceEvent.REFUND, "poll:" + pollId);
+                throw e;
+            }
 
             // Update poll total_bets
             int newPollTotal = currentTotal + betAmount;
-            Map<String, Object> pollUpdate = new HashMap<>();
-            pollUpdate.put("total_bets", newPollTotal);
-            
-            HttpEntity<Object> pollEntity = new HttpEntity<>(pollUpdate, writeHeaders());
-            restTemplate.exchange(
-                base("polls") + "?id=eq." + pollId,
-                HttpMethod.PATCH,
-                pollEntity,
-                String.class
-            );
+            pollService.updateTotalBets(pollId, newPollTotal);
 
             // Return success response
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("betAmount", betAmount);
             response.put("potentialPayout", potentialPayout);
+            response.put("odds", quote.odds());
             response.put("newBalance", newBalance);
             response.put("option", optionText);
 
@@ -227,6 +235,9 @@ public class BettingController {
 
             return ResponseEntity.ok(response);
 
+        } catch (RejectedExecutionException e) {
+            System.err.println("Bet refused, queue full: " + e.getMessage());
+            return ResponseEntity.status(503).body(Map.of("error", "Too many bets in flight, try again shortly"));
         } catch (Exception e) {
             System.err.println("Error placing bet: " + e.getMessage());
             e.printStackTrace();
@@ -234,6 +245,55 @@ public class BettingController {
         }
     }
 
+    /**
+     * betting.placement.mode=rpc: validation, debit, bet insert and pool bump in one place_bet call
+     */
+    private ResponseEntity<Map<String, Object>> placeAtomically(UUID userId, Long pollId, String optionText, int betAmount) {
+        BetPlacement placement = balances.serialized(userId,
+            () -> betService.place(userId, pollId, optionText, betAmount, odds.houseTake()));
+
+        ResponseEntity<Map<String, Object>> rejected = rejection(placement, betAmount);
+        if (rejected != null) {
+            return rejected;
+        }
+
+        // The function wrote the balance and total_bets; bring the caches and ETags up to date
+        userProfileService.balanceChanged(userId, placement.newBalance());
+        pollService.totalBetsChanged(pollId, placement.poolTotal().intValue());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("betAmount", betAmount);
+        response.put("potentialPayout", placement.potentialPayout());
+        response.put("odds", placement.odds());
+        response.put("newBalance", placement.newBalance());
+        response.put("option", optionText);
+
+        System.out.println("Bet placed successfully: " + response);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The error response for a place_bet status other than ok, or null when the bet was placed
+     */
+    static ResponseEntity<Map<String, Object>> rejection(BetPlacement placement, int betAmount) {
+        return switch (placement.status()) {
+            case BetPlacement.OK -> null;
+            case BetPlacement.POLL_NOT_FOUND -> ResponseEntity.status(404).body(Map.of("error", "Poll not found"));
+            case BetPlacement.USER_NOT_FOUND -> ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            case BetPlacement.INVALID_OPTION -> ResponseEntity.status(400).body(Map.of("error", "Invalid option"));
+            case BetPlacement.POLL_CLOSED -> ResponseEntity.status(400).body(Map.of("error", "Poll already closed"));
+            case BetPlacement.INVALID_AMOUNT -> ResponseEntity.status(400).body(Map.of("error", "Invalid amount"));
+            case BetPlacement.INSUFFICIENT_FUNDS -> ResponseEntity.status(400).body(Map.of(
+                "error", "Insufficient funds",
+                "currentBalance", placement.newBalance(),
+                "required", betAmount
+            ));
+            default -> ResponseEntity.status(500).body(Map.of("error", "Failed to place bet: " + placement.status()));
+        };
+    }
+
     /**
      * Get user's bets for a specific poll
      * GET /api/betting/user/{userId}/poll/{pollId}
@@ -244,21 +304,7 @@ public class BettingController {
         @PathVariable Long pollId
     ) {
         try {
-            String url = base("bets") + 
-                        "?user_id=eq." + userId + 
-                        "&poll_id=eq." + pollId +
-                        "&select=*";
-            
-            ResponseEntity<Bet[]> resp = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                new HttpEntity<>(readHeaders()),
-                Bet[].class
-            );
-
-            List<Bet> bets = Arrays.asList(
-                Optional.ofNullable(resp.getBody()).orElse(new Bet[0])
-            );
+            List<Bet> bets = betService.findByUserAndPoll(userId, pollId);
 
             return ResponseEntity.ok(bets);
 
@@ -269,31 +315,40 @@ public class BettingController {
     }
 
     /**
-     * Get all bets for a user (for bet history)
-     * GET /api/betting/user/{userId}
+     * Get all bets for a user (for bet history), or one keyset page when limit or cursor is given
+     * GET /api/betting/user/{userId}?limit=20&cursor=...
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Map<String, Object>>> getUserBets(@PathVariable String userId) {
+    public ResponseEntity<List<Map<String, Object>>> getUserBets(
+        @PathVariable String userId,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor
+    ) {
+        boolean paged = limit != null || cursor != null;
+        PageCursor after = null;
+        int pageSize = 0;
+        if (paged) {
+            try {
+                after = PageCursor.decode(cursor, PageCursor.IdFormat.NUMERIC);
+                pageSize = PageCursor.limit(limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(new ArrayList<>());
+            }
+        }
+
         try {
-            // Get all bets for this user with poll details
-            String url = base("bets") + "?user_id=eq." + userId + "&select=*&order=created_at.desc";
-            
-            ResponseEntity<Bet[]> resp = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                new HttpEntity<>(readHeaders()),
-                Bet[].class
-            );
-
-            List<Bet> bets = Arrays.asList(
-                Optional.ofNullable(resp.getBody()).orElse(new Bet[0])
-            );
-
-            // Enrich with poll information
+            // Get this user's bets (all, or one page) with poll details
+            CursorPage<Bet> page = paged
+                ? betService.findByUserPage(userId, after, pageSize)
+                : new CursorPage<>(betService.findByUser(userId), null);
+            List<Bet> bets = page.items();
+
+            // Enrich with poll information, read for all distinct polls at once
+            Map<Long, Poll> polls = pollService.summaries(bets.stream().map(Bet::getPollId).toList());
             List<Map<String, Object>> enrichedBets = new ArrayList<>();
             
             for (Bet bet : bets) {
-                Optional<Poll> pollOpt = pollService.get(bet.getPollId());
+                Poll poll = polls.get(bet.getPollId());
                 
                 Map<String, Object> betInfo = new HashMap<>();
                 betInfo.put("id", bet.getId());
@@ -304,8 +359,7 @@ public class BettingController {
                 betInfo.put("createdAt", bet.getCreatedAt());
                 betInfo.put("isWinner", bet.getIsWinner());
                 
-                if (pollOpt.isPresent()) {
-                    Poll poll = pollOpt.get();
+                if (poll != null) {
                     betInfo.put("pollQuestion", poll.getQuestion());
                     betInfo.put("pollStatus", poll.getStatus());
                     betInfo.put("pollEndsAt", poll.getEnds_at());
@@ -314,7 +368,7 @@ public class BettingController {
                 enrichedBets.add(betInfo);
             }
 
-            return ResponseEntity.ok(enrichedBets);
+            return page.toResponse(enrichedBets);
 
         } catch (Exception e) {
             System.err.println("Error getting user bets: " + e.getMessage());
@@ -1,8 +1,13 @@
 package com.example.rest_service.controller;
 
-import com.example.rest_service.service.UserProfileService;
-import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.service.BalanceService;
+import com.example.rest_service.service.EntityVersions;
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.UserBalance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,12 +21,17 @@ import java.util.Random;
 @RequestMapping("/api/gambling")
 public class GamblingController {
 
-    private final UserProfileService userProfileService;
+    // Slot symbols: 🍒 🍋 🍊 💎 7️⃣
+    static final String[] SLOT_SYMBOLS = {"cherry", "lemon", "orange", "diamond", "seven"};
+
+    private final BalanceService balances;
+    private final EntityVersions versions;
     private final Random random = new Random();
 
     @Autowired
-    public GamblingController(UserProfileService userProfileService) {
-        this.userProfileService = userProfileService;
+    public GamblingController(BalanceService balances, EntityVersions versions) {
+        this.balances = balances;
+        this.versions = versions;
     }
 
     /**
@@ -39,38 +49,15 @@ public class GamblingController {
             
             System.out.println("Opening loot box for user: " + userId + ", cost: " + cost + ", winAmount: " + winAmount);
             
-            // Get current user
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userId);
-            if (!userOpt.isPresent()) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "User not found");
-                return ResponseEntity.status(404).body(errorResponse);
-            }
-            
-            UserProfile user = userOpt.get();
-            int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
-            
-            System.out.println("Current balance: " + currentBalance);
-            
-            // Check if user has enough funds
-            if (currentBalance < cost) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "Insufficient funds");
-                errorResponse.put("currentBalance", currentBalance);
-                errorResponse.put("required", cost);
-                return ResponseEntity.status(400).body(errorResponse);
-            }
-            
-            // Calculate new balance
-            int newBalance = currentBalance - cost + winAmount;
             int profit = winAmount - cost;
-            
-            System.out.println("New balance will be: " + newBalance + ", profit: " + profit);
-            
-            // Update user balance
-            UserProfile updatedUser = new UserProfile();
-            updatedUser.setObrobucks(newBalance);
-            userProfileService.updateUser(userId, updatedUser);
+
+            // Debit the cost and credit the winnings as one change, if the balance covers the cost
+            BalanceChange change = balances.apply(userId, cost, profit, BalanceEvent.GAME, "lootbox");
+            ResponseEntity<Map<String, Object>> rejected = rejection(change, cost);
+            if (rejected != null) {
+                return rejected;
+            }
+            int newBalance = change.balance();
             
             // Return success response
             Map<String, Object> response = new HashMap<>();
@@ -112,37 +99,21 @@ public class GamblingController {
             
             System.out.println("Coin flip for user: " + userId + ", bet: " + betAmount + ", choice: " + userChoice);
             
-            // Get current user
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userId);
-            if (!userOpt.isPresent()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-            }
-            
-            UserProfile user = userOpt.get();
-            int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
-            
-            // Check if user has enough funds
-            if (currentBalance < betAmount) {
-                return ResponseEntity.status(400).body(Map.of(
-                    "error", "Insufficient funds",
-                    "currentBalance", currentBalance,
-                    "required", betAmount
-                ));
-            }
-            
             // Flip the coin (50/50)
             String result = random.nextBoolean() ? "heads" : "tails";
             boolean won = result.equals(userChoice.toLowerCase());
             
             // Calculate winnings
             int winAmount = won ? betAmount * 2 : 0;
-            int newBalance = currentBalance - betAmount + winAmount;
             int profit = winAmount - betAmount;
-            
-            // Update user balance
-            UserProfile updatedUser = new UserProfile();
-            updatedUser.setObrobucks(newBalance);
-            userProfileService.updateUser(userId, updatedUser);
+
+            // Update user balance, if it covers the bet
+            BalanceChange change = balances.apply(userId, betAmount, profit, BalanceEvent.GAME, "coin-flip");
+            ResponseEntity<Map<String, Object>> rejected = rejection(change, betAmount);
+            if (rejected != null) {
+                return rejected;
+            }
+            int newBalance = change.balance();
             
             // Return response
             Map<String, Object> response = new HashMap<>();
@@ -178,24 +149,6 @@ public class GamblingController {
             
             System.out.println("Dice roll for user: " + userId + ", bet: " + betAmount);
             
-            // Get current user
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userId);
-            if (!userOpt.isPresent()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-            }
-            
-            UserProfile user = userOpt.get();
-            int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
-            
-            // Check if user has enough funds
-            if (currentBalance < betAmount) {
-                return ResponseEntity.status(400).body(Map.of(
-                    "error", "Insufficient funds",
-                    "currentBalance", currentBalance,
-                    "required", betAmount
-                ));
-            }
-            
             // Roll the dice (1-6)
             int diceResult = random.nextInt(6) + 1;
             
@@ -204,13 +157,15 @@ public class GamblingController {
             
             // Calculate winnings
             int winAmount = won ? betAmount * 2 : 0;
-            int newBalance = currentBalance - betAmount + winAmount;
             int profit = winAmount - betAmount;
-            
-            // Update user balance
-            UserProfile updatedUser = new UserProfile();
-            updatedUser.setObrobucks(newBalance);
-            userProfileService.updateUser(userId, updatedUser);
+
+            // Update user balance, if it covers the bet
+            BalanceChange change = balances.apply(userId, betAmount, profit, BalanceEvent.GAME, "dice-roll");
+            ResponseEntity<Map<String, Object>> rejected = rejection(change, betAmount);
+            if (rejected != null) {
+                return rejected;
+            }
+            int newBalance = change.balance();
             
             // Return response
             Map<String, Object> response = new HashMap<>();
@@ -246,63 +201,26 @@ public class GamblingController {
             
             System.out.println("Slot machine for user: " + userId + ", bet: " + betAmount);
             
-            // Get current user
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userId);
-            if (!userOpt.isPresent()) {
-                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
-            }
-            
-            UserProfile user = userOpt.get();
-            int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
-            
-            // Check if user has enough funds
-            if (currentBalance < betAmount) {
-                return ResponseEntity.status(400).body(Map.of(
-                    "error", "Insufficient funds",
-                    "currentBalance", currentBalance,
-                    "required", betAmount
-                ));
-            }
-            
-            // Slot symbols: 🍒 🍋 🍊 💎 7️⃣
-            String[] symbols = {"cherry", "lemon", "orange", "diamond", "seven"};
-            
             // Spin the slots (3 reels)
-            String reel1 = symbols[random.nextInt(symbols.length)];
-            String reel2 = symbols[random.nextInt(symbols.length)];
-            String reel3 = symbols[random.nextInt(symbols.length)];
-            
+            String reel1 = SLOT_SYMBOLS[random.nextInt(SLOT_SYMBOLS.length)];
+            String reel2 = SLOT_SYMBOLS[random.nextInt(SLOT_SYMBOLS.length)];
+            String reel3 = SLOT_SYMBOLS[random.nextInt(SLOT_SYMBOLS.length)];
+
             // Calculate winnings
-            int multiplier = 0;
-            String resultType = "loss";
-            
-            if (reel1.equals(reel2) && reel2.equals(reel3)) {
-                // All 3 match
-                if (reel1.equals("seven")) {
-                    multiplier = 10; // Jackpot!
-                    resultType = "jackpot";
-                } else if (reel1.equals("diamond")) {
-                    multiplier = 7;
-                    resultType = "big_win";
-                } else {
-                    multiplier = 5;
-                    resultType = "triple_match";
-                }
-            } else if (reel1.equals(reel2) || reel2.equals(reel3) || reel1.equals(reel3)) {
-                // 2 match
-                multiplier = 2;
-                resultType = "double_match";
-            }
-            // else: no match, multiplier stays 0
+            SlotOutcome outcome = evaluateReels(reel1, reel2, reel3);
+            int multiplier = outcome.multiplier();
+            String resultType = outcome.resultType();
             
             int winAmount = betAmount * multiplier;
-            int newBalance = currentBalance - betAmount + winAmount;
             int profit = winAmount - betAmount;
-            
-            // Update user balance
-            UserProfile updatedUser = new UserProfile();
-            updatedUser.setObrobucks(newBalance);
-            userProfileService.updateUser(userId, updatedUser);
+
+            // Update user balance, if it covers the bet
+            BalanceChange change = balances.apply(userId, betAmount, profit, BalanceEvent.GAME, "slot-machine");
+            ResponseEntity<Map<String, Object>> rejected = rejection(change, betAmount);
+            if (rejected != null) {
+                return rejected;
+            }
+            int newBalance = change.balance();
             
             // Return response
             Map<String, Object> response = new HashMap<>();
@@ -326,15 +244,60 @@ public class GamblingController {
         }
     }
 
+    /**
+     * The error response for a balance change that was refused, or null when it was applied
+     */
+    static ResponseEntity<Map<String, Object>> rejection(BalanceChange change, int required) {
+        return switch (change.status()) {
+            case BalanceChange.OK -> null;
+            case BalanceChange.USER_NOT_FOUND -> ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            default -> ResponseEntity.status(400).body(Map.of(
+                "error", "Insufficient funds",
+                "currentBalance", change.balance(),
+                "required", required
+            ));
+        };
+    }
+
+    /**
+     * Payout multiplier and result label for one spin of the three reels
+     */
+    record SlotOutcome(int multiplier, String resultType) {}
+
+    static SlotOutcome evaluateReels(String reel1, String reel2, String reel3) {
+        if (reel1.equals(reel2) && reel2.equals(reel3)) {
+            // All 3 match
+            if (reel1.equals("seven")) {
+                return new SlotOutcome(10, "jackpot"); // Jackpot!
+            } else if (reel1.equals("diamond")) {
+                return new SlotOutcome(7, "big_win");
+            }
+            return new SlotOutcome(5, "triple_match");
+        } else if (reel1.equals(reel2) || reel2.equals(reel3) || reel1.equals(reel3)) {
+            // 2 match
+            return new SlotOutcome(2, "double_match");
+        }
+        // no match
+        return new SlotOutcome(0, "loss");
+    }
+
     /**
      * Get current user balance
      * GET /api/gambling/balance/{userId}
+     * 304 without touching Supabase when If-None-Match still matches
      */
     @GetMapping("/balance/{userId}")
-    public ResponseEntity<Map<String, Object>> getBalance(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getBalance(
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             UUID userUUID = UUID.fromString(userId);
-            Optional<UserProfile> userOpt = userProfileService.getUserById(userUUID);
+            String etag = versions.etag(EntityVersions.balance(userUUID));
+            if (EntityVersions.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            Optional<UserBalance> userOpt = balances.get(userUUID);
             
             if (!userOpt.isPresent()) {
                 Map<String, Object> errorResponse = new HashMap<>();
@@ -342,13 +305,12 @@ public class GamblingController {
                 return ResponseEntity.status(404).body(errorResponse);
             }
             
-            UserProfile user = userOpt.get();
-            int balance = user.getObrobucks() != null ? user.getObrobucks() : 0;
+            int balance = userOpt.get().balance();
             
             Map<String, Object> response = new HashMap<>();
             response.put("balance", balance);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).body(response);
             
         } catch (Exception e) {
             System.err.println("Error fetching balance: " + e.getMessage());
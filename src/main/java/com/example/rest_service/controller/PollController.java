@@ -1,20 +1,23 @@
 package com.example.rest_service.controller;
 
 import com.example.rest_service.dto.CreatePollRequest;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
 import com.example.rest_service.model.Poll;
 import com.example.rest_service.model.PollStatus;
 import com.example.rest_service.model.Bet;
-import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.model.PollResolution;
+import com.example.rest_service.service.BetSupabaseService;
+import com.example.rest_service.service.EntityVersions;
+import com.example.rest_service.service.PollResolutionJobs;
+import com.example.rest_service.service.PollResolutionStore;
 import com.example.rest_service.service.PollSupabaseService;
-import com.example.rest_service.service.UserProfileService;
-import com.example.rest_service.SupabaseConfig;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.util.*;
@@ -22,48 +25,76 @@ import java.util.*;
 @CrossOrigin
 @RestController
 @RequestMapping("/api/polls")
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "blocking", matchIfMissing = true)
 public class PollController {
 
     private final PollSupabaseService service;
-    private final UserProfileService userProfileService;
-    private final RestTemplate restTemplate;
-    private final SupabaseConfig supabase;
+    private final BetSupabaseService betService;
+    private final EntityVersions versions;
+    private final PollResolutionJobs resolutions;
+    private final PollResolutionStore resolutionRecords;
 
     @Autowired
     public PollController(
         PollSupabaseService service,
-        UserProfileService userProfileService,
-        RestTemplate restTemplate,
-        SupabaseConfig supabase
+        BetSupabaseService betService,
+        EntityVersions versions,
+        PollResolutionJobs resolutions,
+        PollResolutionStore resolutionRecords
     ) {
         this.service = service;
-        this.userProfileService = userProfileService;
-        this.restTemplate = restTemplate;
-        this.supabase = supabase;
+        this.betService = betService;
+        this.versions = versions;
+        this.resolutions = resolutions;
+        this.resolutionRecords = resolutionRecords;
     }
 
-    private String base(String table) {
-        return supabase.getSupabaseUrl() + "/rest/v1/" + table;
-    }
+    /**
+     * All polls, or one keyset page when limit or cursor is given
+     * GET /api/polls?limit=20&cursor=...
+     * 304 without touching Supabase when If-None-Match still matches
+     */
+    @GetMapping
+    public ResponseEntity<List<Poll>> all(
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = versions.etag(EntityVersions.POLLS, limit + ":" + cursor);
+        if (EntityVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-    private HttpHeaders writeHeaders() {
-        HttpHeaders h = supabase.createSupabaseHeaders();
-        h.set("Prefer", "return=representation");
-        return h;
-    }
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok().eTag(etag).body(service.list());
+        }
 
-    private HttpHeaders readHeaders() {
-        return supabase.createSupabaseHeaders();
-    }
+        PageCursor after;
+        int pageSize;
+        try {
+            after = PageCursor.decode(cursor, PageCursor.IdFormat.NUMERIC);
+            pageSize = PageCursor.limit(limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-    @GetMapping
-    public List<Poll> all() {
-        return service.list();
+        CursorPage<Poll> page = service.listPage(after, pageSize);
+        ResponseEntity<List<Poll>> resp = page.toResponse(page.items());
+        return ResponseEntity.ok().headers(resp.getHeaders()).eTag(etag).body(resp.getBody());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Poll> one(@PathVariable long id) {
-        return service.get(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Poll> one(
+        @PathVariable long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        String etag = versions.etag(EntityVersions.poll(id));
+        if (EntityVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return service.get(id)
+            .map(poll -> ResponseEntity.ok().eTag(etag).body(poll))
+            .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping
@@ -102,6 +133,7 @@ public class PollController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable long id) {
         boolean ok = service.delete(id);
+        resolutionRecords.forget(id);
         return ok ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
@@ -109,6 +141,7 @@ public class PollController {
      * Resolve a poll - set winning option and pay out winners
      * POST /api/polls/{id}/resolve
      * Body: { "winningOption": "Yes" }
+     * 202 with the resolution job; poll GET /api/polls/resolutions/{jobId} until it has finished
      */
     @PostMapping("/{id}/resolve")
     public ResponseEntity<Map<String, Object>> resolvePoll(
@@ -138,86 +171,17 @@ public class PollController {
                     .body(Map.of("error", "Invalid winning option"));
             }
 
-            // Check if already closed
-            if (poll.getStatus() == PollStatus.CLOSED) {
+            // Check if already closed; a poll whose resolution failed part-way may be resubmitted to finish it
+            if (poll.getStatus() == PollStatus.CLOSED && resolutionRecords.unfinished(id).isEmpty()) {
                 return ResponseEntity.status(400)
                     .body(Map.of("error", "Poll already closed"));
             }
 
-            // Get all bets for this poll
-            String betsUrl = base("bets") + "?poll_id=eq." + id + "&select=*";
-            ResponseEntity<Bet[]> betsResp = restTemplate.exchange(
-                betsUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(readHeaders()),
-                Bet[].class
-            );
-
-            List<Bet> bets = Arrays.asList(
-                Optional.ofNullable(betsResp.getBody()).orElse(new Bet[0])
-            );
-
-            int winnersCount = 0;
-            int totalPaidOut = 0;
-
-            // Process each bet
-            for (Bet bet : bets) {
-                boolean isWinner = bet.getOptionText().equals(winningOption);
-                
-                // Update bet record
-                Map<String, Object> betUpdate = new HashMap<>();
-                betUpdate.put("is_winner", isWinner);
-
-                HttpEntity<Object> betEntity = new HttpEntity<>(betUpdate, writeHeaders());
-                restTemplate.exchange(
-                    base("bets") + "?id=eq." + bet.getId(),
-                    HttpMethod.PATCH,
-                    betEntity,
-                    String.class
-                );
-
-                // Pay winners
-                if (isWinner && bet.getPotentialPayout() != null) {
-                    Optional<UserProfile> userOpt = userProfileService.getUserById(bet.getUserId());
-                    if (userOpt.isPresent()) {
-                        UserProfile user = userOpt.get();
-                        int currentBalance = user.getObrobucks() != null ? user.getObrobucks() : 0;
-                        int newBalance = currentBalance + bet.getPotentialPayout();
-
-                        UserProfile updatedUser = new UserProfile();
-                        updatedUser.setObrobucks(newBalance);
-                        userProfileService.updateUser(bet.getUserId(), updatedUser);
-
-                        winnersCount++;
-                        totalPaidOut += bet.getPotentialPayout();
-                    }
-                }
-            }
-
-            // Update poll status to CLOSED
-            Map<String, Object> pollUpdate = new HashMap<>();
-            pollUpdate.put("status", PollStatus.CLOSED.name());
-            
-            HttpEntity<Object> pollEntity = new HttpEntity<>(pollUpdate, writeHeaders());
-            restTemplate.exchange(
-                base("polls") + "?id=eq." + id,
-                HttpMethod.PATCH,
-                pollEntity,
-                String.class
-            );
-
-            // Return success response
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("pollId", id);
-            response.put("winningOption", winningOption);
-            response.put("winnersCount", winnersCount);
-            response.put("totalPaidOut", totalPaidOut);
-            response.put("totalBets", bets.size());
-
-            System.out.println("Poll resolved successfully: " + response);
-
-            return ResponseEntity.ok(response);
+            // Marking bets and paying winners runs in the background; the job URL reports progress
+            PollResolutionJobs.Job job = resolutions.submit(id, winningOption);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/polls/resolutions/" + job.id()))
+                .body(job.toMap());
 
         } catch (Exception e) {
             System.err.println("Error resolving poll: " + e.getMessage());
@@ -227,13 +191,30 @@ public class PollController {
         }
     }
 
+    /**
+     * State and progress of a resolution job
+     * GET /api/polls/resolutions/{jobId}
+     */
+    @GetMapping("/resolutions/{jobId}")
+    public ResponseEntity<Map<String, Object>> resolution(@PathVariable String jobId) {
+        return resolutions.get(jobId)
+            .map(job -> ResponseEntity.ok(job.toMap()))
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Resolution job not found")));
+    }
+
     /**
      * Get poll winner (if resolved)
      * GET /api/polls/{id}/winner
+     * A memory read for polls resolved since startup; otherwise the poll, then its poll_resolutions row
      */
     @GetMapping("/{id}/winner")
     public ResponseEntity<Map<String, Object>> getWinner(@PathVariable long id) {
         try {
+            Optional<PollResolution> known = resolutionRecords.peek(id);
+            if (known.isPresent()) {
+                return ResponseEntity.ok(winner(known.get()));
+            }
+
             Optional<Poll> pollOpt = service.get(id);
             if (!pollOpt.isPresent()) {
                 return ResponseEntity.status(404)
@@ -246,20 +227,17 @@ public class PollController {
                 return ResponseEntity.ok(Map.of("resolved", false));
             }
 
-            // Get a winning bet to find the winning option
-            String betsUrl = base("bets") + "?poll_id=eq." + id + "&is_winner=eq.true&limit=1";
-            ResponseEntity<Bet[]> betsResp = restTemplate.exchange(
-                betsUrl,
-                HttpMethod.GET,
-                new HttpEntity<>(readHeaders()),
-                Bet[].class
-            );
-
-            Bet[] winningBets = betsResp.getBody();
-            if (winningBets != null && winningBets.length > 0) {
+            Optional<PollResolution> recorded = resolutionRecords.find(id);
+            if (recorded.isPresent()) {
+                return ResponseEntity.ok(winner(recorded.get()));
+            }
+
+            // Polls closed before resolution records existed: infer the option from a winning bet
+            Optional<Bet> winningBet = betService.findFirstWinner(id);
+            if (winningBet.isPresent()) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("resolved", true);
-                response.put("winningOption", winningBets[0].getOptionText());
+                response.put("winningOption", winningBet.get().getOptionText());
                 return ResponseEntity.ok(response);
             }
 
@@ -271,4 +249,15 @@ public class PollController {
                 .body(Map.of("error", "Failed to get winner"));
         }
     }
+
+    private static Map<String, Object> winner(PollResolution r) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("resolved", true);
+        response.put("winningOption", r.winningOption());
+        response.put("winnersCount", r.winnersCount());
+        response.put("totalPool", r.totalPool());
+        response.put("totalPaidOut", r.totalPaidOut());
+        response.put("resolvedAt", r.resolvedAt());
+        return response;
+    }
 }
\ No newline at end of file
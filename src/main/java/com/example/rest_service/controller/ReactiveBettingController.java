@@ -0,0 +1,347 @@
+package com.example.rest_service.controller;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.BetPlacement;
+import com.example.rest_service.model.Poll;
+import com.example.rest_service.model.PollStatus;
+import com.example.rest_service.service.BalanceService;
+import com.example.rest_service.service.PariMutuelOdds;
+import com.example.rest_service.service.ReactivePollSupabaseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking variant of {@link BettingController}, active when supabase.client.mode=reactive.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/betting")
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class ReactiveBettingController {
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> ROWS =
+        new ParameterizedTypeReference<>() {};
+
+    private final ReactivePollSupabaseService pollService;
+    private final BalanceService balances;
+    private final WebClient webClient;
+    private final SupabaseConfig supabase;
+    private final PariMutuelOdds odds;
+    private final boolean rpcPlacement;
+
+    public ReactiveBettingController(
+        ReactivePollSupabaseService pollService,
+        WebClient supabaseWebClient,
+        SupabaseConfig supabase,
+        PariMutuelOdds odds,
+        BalanceService balances,
+        @Value("${betting.placement.mode:legacy}") String placementMode
+    ) {
+        this.pollService = pollService;
+        this.balances = balances;
+        this.webClient = supabaseWebClient;
+        this.supabase = supabase;
+        this.odds = odds;
+        // place_bet debits user_profiles.obrobucks itself, which the ledger no longer reads
+        this.rpcPlacement = "rpc".equalsIgnoreCase(placementMode) && !balances.ledgerEnabled();
+        if ("rpc".equalsIgnoreCase(placementMode) && !rpcPlacement) {
+            System.out.println(">>> betting.placement.mode=rpc ignored: bets are debited through the balance ledger");
+        }
+    }
+
+    private void writeHeaders(HttpHeaders h) {
+        h.addAll(supabase.createSupabaseHeaders());
+        h.set("Prefer", "return=representation");
+    }
+
+    private void readHeaders(HttpHeaders h) {
+        h.addAll(supabase.createSupabaseHeaders());
+    }
+
+    private Mono<List<Map<String, Object>>> betRows(Long pollId) {
+        return webClient.get().uri("/bets?poll_id=eq." + pollId + "&select=option_text,amount")
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToMono(ROWS)
+            .defaultIfEmpty(List.of());
+    }
+
+    private Mono<Map<String, Object>> stats(Long pollId) {
+        return betRows(pollId).map(bets -> BettingController.summarizeBets(pollId, bets, odds.houseTake()));
+    }
+
+    /**
+     * Get betting stats for a specific poll
+     * GET /api/betting/stats/{pollId}
+     */
+    @GetMapping("/stats/{pollId}")
+    public Mono<ResponseEntity<Map<String, Object>>> getPollStats(@PathVariable Long pollId) {
+        return stats(pollId)
+            .map(ResponseEntity::ok)
+            .onErrorResume(e -> {
+                System.err.println("Error getting poll stats: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Failed to get poll stats")));
+            });
+    }
+
+    /**
+     * Place a bet on a poll option
+     * POST /api/betting/place
+     */
+    @PostMapping("/place")
+    public Mono<ResponseEntity<Map<String, Object>>> placeBet(@RequestBody Map<String, Object> request) {
+        UUID userId;
+        Long pollId;
+        String optionText;
+        int betAmount;
+        try {
+            userId = UUID.fromString((String) request.get("userId"));
+            pollId = ((Number) request.get("pollId")).longValue();
+            optionText = (String) request.get("optionText");
+            betAmount = ((Number) request.get("amount")).intValue();
+        } catch (Exception e) {
+            return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Failed to place bet: " + e.getMessage())));
+        }
+
+        if (rpcPlacement) {
+            return placeAtomically(userId, pollId, optionText, betAmount);
+        }
+
+        return pollService.get(pollId)
+            .flatMap(poll -> {
+                if (!poll.getOptions().contains(optionText)) {
+                    return Mono.just(ResponseEntity.status(400).body(Map.<String, Object>of("error", "Invalid option")));
+                }
+                if (betAmount <= 0) {
+                    return Mono.just(ResponseEntity.status(400).body(Map.<String, Object>of("error", "Invalid amount")));
+                }
+                if (poll.getStatus() == PollStatus.CLOSED) {
+                    return Mono.just(ResponseEntity.status(400).body(Map.<String, Object>of("error", "Poll already closed")));
+                }
+                return debitAndRecord(userId, pollId, optionText, betAmount);
+            })
+            .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Poll not found")))
+            .onErrorResume(RejectedExecutionException.class, e -> {
+                System.err.println("Bet refused, queue full: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(503).body(Map.of("error", "Too many bets in flight, try again shortly")));
+            })
+            .onErrorResume(e -> {
+                System.err.println("Error placing bet: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Failed to place bet: " + e.getMessage())));
+            });
+    }
+
+    /**
+     * betting.placement.mode=rpc: validation, debit, bet insert and pool bump in one place_bet call
+     */
+    private Mono<ResponseEntity<Map<String, Object>>> placeAtomically(UUID userId,
+                                                                      Long pollId,
+                                                                      String optionText,
+                                                                      int betAmount) {
+        Map<String, Object> args = new HashMap<>();
+        args.put("p_user_id", userId);
+        args.put("p_poll_id", pollId);
+        args.put("p_option_text", optionText);
+        args.put("p_amount", betAmount);
+        args.put("p_house_take", odds.houseTake());
+
+        return webClient.post().uri("/rpc/place_bet").headers(this::readHeaders)
+            .bodyValue(args)
+            .retrieve()
+            .bodyToMono(BetPlacement[].class)
+            .map(rows -> {
+                if (rows.length == 0) {
+                    throw new IllegalStateException("place_bet returned no row");
+                }
+                BetPlacement placement = rows[0];
+                ResponseEntity<Map<String, Object>> rejected = BettingController.rejection(placement, betAmount);
+                if (rejected != null) {
+                    return rejected;
+                }
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("betAmount", betAmount);
+                response.put("potentialPayout", placement.potentialPayout());
+                response.put("odds", placement.odds());
+                response.put("newBalance", placement.newBalance());
+                response.put("option", optionText);
+
+                System.out.println("Bet placed successfully: " + response);
+                return ResponseEntity.ok(response);
+            })
+            .onErrorResume(e -> {
+                System.err.println("Error placing bet: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Failed to place bet: " + e.getMessage())));
+            });
+    }
+
+    /**
+     * A balance change through the balance service, which blocks (per-user lane, ledger or profile
+     * writes), so it runs off the event loop
+     */
+    private Mono<BalanceChange> apply(UUID userId, int stake, int delta, String kind, String ref) {
+        return Mono.fromCallable(() -> balances.apply(userId, stake, delta, kind, ref))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> debitAndRecord(UUID userId,
+                                                                     Long pollId,
+                                                                     String optionText,
+                                                                     int betAmount) {
+        String ref = "poll:" + pollId;
+        return betRows(pollId)
+            .map(BettingController::totals)
+            .flatMap(totals -> {
+                // Quote odds from the current pools with this bet added; the final payout is fixed at resolution
+                PariMutuelOdds.Quote quote = odds.quote(totals, optionText, betAmount);
+
+                // Deduct bet amount from user balance, if it covers the bet
+                return apply(userId, betAmount, -betAmount, BalanceEvent.BET, ref).flatMap(change -> {
+                    if (change.status().equals(BalanceChange.USER_NOT_FOUND)) {
+                        return Mono.just(ResponseEntity.status(404).body(Map.<String, Object>of("error", "User not found")));
+                    }
+                    if (!change.ok()) {
+                        return Mono.just(ResponseEntity.status(400).body(Map.<String, Object>of(
+                            "error", "Insufficient funds",
+                            "currentBalance", change.balance(),
+                            "required", betAmount
+                        )));
+                    }
+
+                    Map<String, Object> betData = new HashMap<>();
+                    betData.put("poll_id", pollId);
+                    betData.put("user_id", userId);
+                    betData.put("option_text", optionText);
+                    betData.put("amount", betAmount);
+                    betData.put("potential_payout", quote.potentialPayout());
+                    betData.put("created_at", OffsetDateTime.now().toString());
+                    betData.put("is_winner", null);
+
+                    int newPollTotal = betAmount;
+                    for (long optionTotal : totals.values()) newPollTotal += (int) optionTotal;
+                    return webClient.post().uri("/bets").headers(this::writeHeaders)
+                        .bodyValue(betData)
+                        .retrieve()
+                        .toBodilessEntity()
+                        // The stake is already debited; give it back before reporting the failure
+                        .onErrorResume(e -> apply(userId, 0, betAmount, BalanceEvent.REFUND, ref).then(Mono.error(e)))
+                        .then(webClient.patch().uri("/polls?id=eq." + pollId).headers(this::writeHeaders)
+                            .bodyValue(Map.of("total_bets", newPollTotal))
+                            .retrieve()
+                            .toBodilessEntity())
+                        .then(Mono.fromSupplier(() -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("success", true);
+                            response.put("betAmount", betAmount);
+                            response.put("potentialPayout", quote.potentialPayout());
+                            response.put("odds", quote.odds());
+                            response.put("newBalance", change.balance());
+                            response.put("option", optionText);
+
+                            System.out.println("Bet placed successfully: " + response);
+                            return ResponseEntity.ok(response);
+                        }));
+                });
+            });
+    }
+
+    /**
+     * Get user's bets for a specific poll
+     * GET /api/betting/user/{userId}/poll/{pollId}
+     */
+    @GetMapping("/user/{userId}/poll/{pollId}")
+    public Mono<ResponseEntity<List<Bet>>> getUserBetsForPoll(
+        @PathVariable String userId,
+        @PathVariable Long pollId
+    ) {
+        return webClient.get().uri("/bets?user_id=eq." + userId + "&poll_id=eq." + pollId + "&select=*")
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(Bet.class)
+            .collectList()
+            .map(ResponseEntity::ok)
+            .onErrorResume(e -> {
+                System.err.println("Error getting user bets: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(new ArrayList<>()));
+            });
+    }
+
+    /**
+     * Get all bets for a user (for bet history), or one keyset page when limit or cursor is given
+     * GET /api/betting/user/{userId}?limit=20&cursor=...
+     */
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<List<Map<String, Object>>>> getUserBets(
+        @PathVariable String userId,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor
+    ) {
+        boolean paged = limit != null || cursor != null;
+        PageCursor after = null;
+        int pageSize = 0;
+        if (paged) {
+            try {
+                after = PageCursor.decode(cursor, PageCursor.IdFormat.NUMERIC);
+                pageSize = PageCursor.limit(limit);
+            } catch (IllegalArgumentException e) {
+                return Mono.just(ResponseEntity.badRequest().body(new ArrayList<>()));
+            }
+        }
+
+        int size = pageSize;
+        String query = paged
+            ? "&select=*" + PageCursor.postgrestPage(after, pageSize)
+            : "&select=*&order=created_at.desc";
+        return webClient.get().uri("/bets?user_id=eq." + userId + query)
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(Bet.class)
+            .collectList()
+            .map(rows -> paged ? CursorPage.of(rows, size, Bet::getCreatedAt, Bet::getId) : new CursorPage<>(rows, null))
+            // Enrich with poll information, read for all distinct polls at once
+            .flatMap(page -> pollService.summaries(page.items().stream().map(Bet::getPollId).toList())
+                .map(polls -> {
+                    List<Map<String, Object>> enrichedBets = new ArrayList<>(page.items().size());
+                    for (Bet bet : page.items()) {
+                        Map<String, Object> betInfo = new HashMap<>();
+                        betInfo.put("id", bet.getId());
+                        betInfo.put("pollId", bet.getPollId());
+                        betInfo.put("optionText", bet.getOptionText());
+                        betInfo.put("amount", bet.getAmount());
+                        betInfo.put("potentialPayout", bet.getPotentialPayout());
+                        betInfo.put("createdAt", bet.getCreatedAt());
+                        betInfo.put("isWinner", bet.getIsWinner());
+
+                        Poll poll = polls.get(bet.getPollId());
+                        if (poll != null) {
+                            betInfo.put("pollQuestion", poll.getQuestion());
+                            betInfo.put("pollStatus", poll.getStatus());
+                            betInfo.put("pollEndsAt", poll.getEnds_at());
+                        }
+                        enrichedBets.add(betInfo);
+                    }
+                    return page.toResponse(enrichedBets);
+                }))
+            .onErrorResume(e -> {
+                System.err.println("Error getting user bets: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(new ArrayList<>()));
+            });
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.rest_service.controller;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CreatePollRequest;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.Poll;
+import com.example.rest_service.model.PollStatus;
+import com.example.rest_service.service.PollResolutionJobs;
+import com.example.rest_service.service.PollResolutionStore;
+import com.example.rest_service.service.ReactivePollSupabaseService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Non-blocking variant of {@link PollController}, active when supabase.client.mode=reactive.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/polls")
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class ReactivePollController {
+
+    private final ReactivePollSupabaseService service;
+    private final WebClient webClient;
+    private final SupabaseConfig supabase;
+    private final PollResolutionJobs resolutions;
+    private final PollResolutionStore resolutionRecords;
+
+    public ReactivePollController(
+        ReactivePollSupabaseService service,
+        WebClient supabaseWebClient,
+        SupabaseConfig supabase,
+        PollResolutionJobs resolutions,
+        PollResolutionStore resolutionRecords
+    ) {
+        this.service = service;
+        this.webClient = supabaseWebClient;
+        this.supabase = supabase;
+        this.resolutions = resolutions;
+        this.resolutionRecords = resolutionRecords;
+    }
+
+    private void readHeaders(HttpHeaders h) {
+        h.addAll(supabase.createSupabaseHeaders());
+    }
+
+    /**
+     * All polls, or one keyset page when limit or cursor is given
+     * GET /api/polls?limit=20&cursor=...
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<Poll>>> all(
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor
+    ) {
+        if (limit == null && cursor == null) {
+            return service.list().map(ResponseEntity::ok);
+        }
+
+        PageCursor after;
+        int pageSize;
+        try {
+            after = PageCursor.decode(cursor, PageCursor.IdFormat.NUMERIC);
+            pageSize = PageCursor.limit(limit);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return service.listPage(after, pageSize).map(page -> page.toResponse(page.items()));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Poll>> one(@PathVariable long id) {
+        return service.get(id).map(ResponseEntity::ok).defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Poll>> create(@RequestBody CreatePollRequest req) {
+
+        if (req == null ||
+            req.question == null || req.question.isBlank() ||
+            req.options == null || req.options.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        PollStatus status = null;
+        if (req.status != null) {
+            status = PollStatus.valueOf(req.status);
+        }
+
+        // Use the createdBy from request, or fallback to hardcoded for testing
+        UUID createdBy = req.createdBy != null
+            ? req.createdBy
+            : UUID.fromString("9d947e28-5c8d-4dae-98a7-b2f0132d11c5");
+
+        return service.create(req.question, req.options, req.category, req.endsAt, status, createdBy)
+            .map(created -> ResponseEntity
+                .created(URI.create("/api/polls/" + created.getId()))
+                .body(created));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable long id) {
+        return service.delete(id)
+            .map(ok -> ok ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Resolve a poll - set winning option and pay out winners
+     * POST /api/polls/{id}/resolve
+     * Body: { "winningOption": "Yes" }
+     */
+    @PostMapping("/{id}/resolve")
+    public Mono<ResponseEntity<Map<String, Object>>> resolvePoll(
+        @PathVariable long id,
+        @RequestBody Map<String, String> request
+    ) {
+        String winningOption = request.get("winningOption");
+
+        if (winningOption == null || winningOption.isBlank()) {
+            return Mono.just(ResponseEntity.badRequest()
+                .body(Map.of("error", "winningOption is required")));
+        }
+
+        return service.get(id)
+            .flatMap(poll -> {
+                // Validate winning option exists
+                if (!poll.getOptions().contains(winningOption)) {
+                    return Mono.just(ResponseEntity.status(400)
+                        .body(Map.<String, Object>of("error", "Invalid winning option")));
+                }
+
+                // The same background job as the blocking controller: claimed once, bets marked in one
+                // call, winners credited through the balance service. Reading the claim and starting
+                // the job block, so both run off the event loop.
+                return Mono.fromCallable(() -> resolve(poll, winningOption))
+                    .subscribeOn(Schedulers.boundedElastic());
+            })
+            .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Poll not found")))
+            .onErrorResume(e -> {
+                System.err.println("Error resolving poll: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500)
+                    .body(Map.of("error", "Failed to resolve poll: " + e.getMessage())));
+            });
+    }
+
+    private ResponseEntity<Map<String, Object>> resolve(Poll poll, String winningOption) {
+        // Check if already closed; a poll whose resolution failed part-way may be resubmitted to finish it
+        if (poll.getStatus() == PollStatus.CLOSED && resolutionRecords.unfinished(poll.getId()).isEmpty()) {
+            return ResponseEntity.status(400).body(Map.of("error", "Poll already closed"));
+        }
+
+        PollResolutionJobs.Job job = resolutions.submit(poll.getId(), winningOption);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/polls/resolutions/" + job.id()))
+            .body(job.toMap());
+    }
+
+    /**
+     * State and progress of a resolution job
+     * GET /api/polls/resolutions/{jobId}
+     */
+    @GetMapping("/resolutions/{jobId}")
+    public Mono<ResponseEntity<Map<String, Object>>> resolution(@PathVariable String jobId) {
+        return Mono.just(resolutions.get(jobId)
+            .map(job -> ResponseEntity.ok(job.toMap()))
+            .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Resolution job not found"))));
+    }
+
+    /**
+     * Get poll winner (if resolved)
+     * GET /api/polls/{id}/winner
+     */
+    @GetMapping("/{id}/winner")
+    public Mono<ResponseEntity<Map<String, Object>>> getWinner(@PathVariable long id) {
+        return service.get(id)
+            .flatMap(poll -> {
+                if (poll.getStatus() != PollStatus.CLOSED) {
+                    return Mono.just(ResponseEntity.ok(Map.<String, Object>of("resolved", false)));
+                }
+
+                // Get a winning bet to find the winning option
+                return webClient.get().uri("/bets?poll_id=eq." + id + "&is_winner=eq.true&limit=1")
+                    .headers(this::readHeaders)
+                    .retrieve()
+                    .bodyToFlux(Bet.class)
+                    .next()
+                    .map(bet -> {
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("resolved", true);
+                        response.put("winningOption", bet.getOptionText());
+                        return ResponseEntity.ok(response);
+                    })
+                    .defaultIfEmpty(ResponseEntity.ok(Map.of("resolved", false)));
+            })
+            .defaultIfEmpty(ResponseEntity.status(404).body(Map.of("error", "Poll not found")))
+            .onErrorResume(e -> {
+                System.err.println("Error getting winner: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(500).body(Map.of("error", "Failed to get winner")));
+            });
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.rest_service.controller;
+
+import com.example.rest_service.JwtUtil;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.service.ReactiveUserProfileService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking variant of {@link UserProfileController}, active when supabase.client.mode=reactive.
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*") // Configure this properly for production
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class ReactiveUserProfileController {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+        new ParameterizedTypeReference<>() {};
+
+    private final ReactiveUserProfileService userProfileService;
+    private final WebClient githubClient = WebClient.create();
+
+    @Value("${github.client.id}")
+    private String githubClientId;
+
+    @Value("${github.client.secret}")
+    private String githubClientSecret;
+
+    public ReactiveUserProfileController(ReactiveUserProfileService userProfileService) {
+        this.userProfileService = userProfileService;
+    }
+
+    private static <T> Mono<ResponseEntity<T>> found(Mono<T> lookup) {
+        return lookup.map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+    }
+
+    private static Mono<UUID> parseId(String id) {
+        return Mono.fromCallable(() -> UUID.fromString(id));
+    }
+
+    /**
+     * Get all users, or one keyset page when limit or cursor is given
+     * GET /api/users?limit=20&cursor=...
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<UserProfile>>> getAllUsers(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit == null && cursor == null) {
+            return userProfileService.getAllUsers()
+                .collectList()
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+        }
+
+        PageCursor after;
+        int pageSize;
+        try {
+            after = PageCursor.decode(cursor, PageCursor.IdFormat.UUID);
+            pageSize = PageCursor.limit(limit);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return userProfileService.getUsersPage(after, pageSize)
+            .map(page -> page.toResponse(page.items()))
+            .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+    }
+
+    /**
+     * Get user by ID
+     * GET /api/users/{id}
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserProfile>> getUserById(@PathVariable String id) {
+        return parseId(id)
+            .flatMap(userId -> found(userProfileService.getUserById(userId)))
+            .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * Get user by email
+     * GET /api/users/email/{email}
+     */
+    @GetMapping("/email/{email}")
+    public Mono<ResponseEntity<UserProfile>> getUserByEmail(@PathVariable String email) {
+        return found(userProfileService.getUserByEmail(email));
+    }
+
+    /**
+     * Get user by Google ID
+     * GET /api/users/google/{googleId}
+     */
+    @GetMapping("/google/{googleId}")
+    public Mono<ResponseEntity<UserProfile>> getUserByGoogleId(@PathVariable String googleId) {
+        return found(userProfileService.getUserByGoogleId(googleId));
+    }
+
+    /**
+     * Search users by username
+     * GET /api/users/search?username=value
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<UserProfile>>> searchUsers(@RequestParam String username) {
+        return userProfileService.searchUsersByUsername(username)
+            .collectList()
+            .map(ResponseEntity::ok)
+            .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+    }
+
+    /**
+     * Create a new user
+     * POST /api/users
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Object>> createUser(@RequestBody UserProfile userProfile) {
+        System.out.println("Creating user with payload: " + userProfile.toString());
+        return userProfileService.createUser(userProfile)
+            .map(created -> ResponseEntity.status(HttpStatus.CREATED).<Object>body(created))
+            .onErrorResume(e -> {
+                System.err.println("Error creating user: " + e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error creating user: " + e.getMessage()));
+            });
+    }
+
+    /**
+     * Update user profile
+     * PUT /api/users/{id}
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Object>> updateUser(@PathVariable String id, @RequestBody UserProfile userProfile) {
+        System.out.println("Updating user " + id + " with payload: " + userProfile.toString());
+        return parseId(id)
+            .flatMap(userId -> userProfileService.updateUser(userId, userProfile)
+                .map(updated -> ResponseEntity.<Object>ok(updated))
+                .onErrorResume(e -> {
+                    System.err.println("Error updating user: " + e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error updating user: " + e.getMessage()));
+                }))
+            .onErrorResume(IllegalArgumentException.class, e -> {
+                System.err.println("Invalid UUID format: " + e.getMessage());
+                return Mono.just(ResponseEntity.badRequest().body("Invalid user ID format: " + e.getMessage()));
+            });
+    }
+
+    /**
+     * Update user's last login
+     * PATCH /api/users/{id}/login
+     */
+    @PatchMapping("/{id}/login")
+    public Mono<ResponseEntity<Void>> updateLastLogin(@PathVariable String id) {
+        return parseId(id)
+            .doOnNext(userId -> System.out.println("updateLastLogin called for id = " + userId + " (no-op)"))
+            .map(userId -> ResponseEntity.ok().<Void>build())
+            .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * Delete user
+     * DELETE /api/users/{id}
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable String id) {
+        return parseId(id)
+            .flatMap(userId -> userProfileService.deleteUser(userId)
+                .map(deleted -> deleted ? ResponseEntity.ok().<Void>build() : ResponseEntity.notFound().<Void>build())
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build())))
+            .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * Health check endpoint
+     * GET /api/users/health
+     */
+    @GetMapping("/health")
+    public ResponseEntity<String> healthCheck() {
+        return ResponseEntity.ok("User Profile Service is running");
+    }
+
+    /**
+     * GitHub OAuth login
+     * POST /api/users/auth/github
+     *
+     * Body: { "code": "<github_auth_code_from_expo>" }
+     */
+    @PostMapping("/auth/github")
+    public Mono<ResponseEntity<Object>> githubLogin(@RequestBody Map<String, String> body) {
+        String code = body.get("code");
+        if (code == null || code.isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body("Missing 'code' in request body"));
+        }
+
+        Map<String, String> params = new HashMap<>();
+        params.put("client_id", githubClientId);
+        params.put("client_secret", githubClientSecret);
+        params.put("code", code);
+
+        // 1. Exchange code for access token
+        return githubClient.post().uri("https://github.com/login/oauth/access_token")
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(params)
+            .retrieve()
+            .bodyToMono(JSON_OBJECT)
+            .flatMap(tokenResponse -> {
+                String accessToken = (String) tokenResponse.get("access_token");
+                if (accessToken == null) {
+                    return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .<Object>body("GitHub did not return an access token"));
+                }
+
+                // 2. Fetch GitHub user profile
+                return githubClient.get().uri("https://api.github.com/user")
+                    .headers(h -> h.setBearerAuth(accessToken))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .bodyToMono(JSON_OBJECT)
+                    .flatMap(gh -> persistGithubUser(gh, accessToken))
+                    .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body("Failed to fetch GitHub user profile"));
+            })
+            .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body("Failed to exchange code for access token"))
+            .onErrorResume(e -> {
+                e.printStackTrace();
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("GitHub login failed: " + e.getMessage()));
+            });
+    }
+
+    private Mono<ResponseEntity<Object>> persistGithubUser(Map<String, Object> gh, String accessToken) {
+        Object rawName = gh.get("name");
+        String name = rawName != null ? rawName.toString() : null;
+        String githubId = gh.get("id") != null ? gh.get("id").toString() : null;
+        String username = (String) gh.get("login");
+        String avatarUrl = (String) gh.get("avatar_url");
+        String bio = (String) gh.get("bio");
+        String email = (String) gh.get("email"); // may be null
+
+        // Generate default email if not provided by GitHub
+        if (email == null || email.isBlank()) {
+            email = username + "@github.local";
+        }
+
+        // 3. Persist via Supabase through service layer
+        return userProfileService.createOrUpdateGithubUser(
+                githubId,
+                email,
+                name != null ? name : username, // fallback if name is null
+                username,
+                avatarUrl,
+                bio,
+                accessToken
+            )
+            .map(userProfile -> {
+                // 4. Generate JWT token for authentication
+                String jwtToken = JwtUtil.generateToken(userProfile.getEmail());
+
+                // 5. Shape response for frontend
+                Map<String, Object> result = new HashMap<>();
+                result.put("id", userProfile.getId());
+                result.put("name", userProfile.getName());
+                result.put("username", userProfile.getUsername());
+                result.put("profile_picture_url", userProfile.getProfilePictureUrl());
+                result.put("bio", userProfile.getBio());
+                result.put("obrobucks", userProfile.getObrobucks());
+                result.put("github_id", userProfile.getGithubId());
+                result.put("email", userProfile.getEmail());
+                result.put("token", jwtToken);
+                return ResponseEntity.<Object>ok(result);
+            });
+    }
+}
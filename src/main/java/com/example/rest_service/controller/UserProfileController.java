@@ -1,9 +1,13 @@
 package com.example.rest_service.controller;
 
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
 import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.service.UserProfileExportService;
 import com.example.rest_service.service.UserProfileService;
 import com.example.rest_service.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -13,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -24,9 +29,11 @@ import java.util.Collections;
 @RestController
 @RequestMapping("/api/users")
 @CrossOrigin(origins = "*") // Configure this properly for production
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "blocking", matchIfMissing = true)
 public class UserProfileController {
 
     private final UserProfileService userProfileService;
+    private final UserProfileExportService exportService;
 
     // Inject GitHub credentials from application.properties
     @Value("${github.client.id}")
@@ -36,24 +43,53 @@ public class UserProfileController {
     private String githubClientSecret;
 
     @Autowired
-    public UserProfileController(UserProfileService userProfileService) {
+    public UserProfileController(UserProfileService userProfileService, UserProfileExportService exportService) {
         this.userProfileService = userProfileService;
+        this.exportService = exportService;
     }
 
     /**
-     * Get all users
-     * GET /api/users
+     * Get all users, or one keyset page when limit or cursor is given
+     * GET /api/users?limit=20&cursor=...
      */
     @GetMapping
-    public ResponseEntity<List<UserProfile>> getAllUsers() {
+    public ResponseEntity<List<UserProfile>> getAllUsers(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<UserProfile> users = userProfileService.getAllUsers();
-            return ResponseEntity.ok(users);
+            if (limit == null && cursor == null) {
+                List<UserProfile> users = userProfileService.getAllUsers();
+                return ResponseEntity.ok(users);
+            }
+
+            PageCursor after;
+            int pageSize;
+            try {
+                after = PageCursor.decode(cursor, PageCursor.IdFormat.UUID);
+                pageSize = PageCursor.limit(limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+
+            CursorPage<UserProfile> page = userProfileService.getUsersPage(after, pageSize);
+            return page.toResponse(page.items());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Stream all users as newline-delimited JSON, without OAuth tokens
+     * GET /api/users/export
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> exportService.exportNdjson(out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
     /**
      * Get user by ID
      * GET /api/users/{id}
@@ -0,0 +1,40 @@
+package com.example.rest_service.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset page of results plus the cursor for the next one (null on the last page).
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Build a page from rows fetched with limit + 1, trimming the look-ahead row
+     */
+    public static <T> CursorPage<T> of(List<T> rows,
+                                       int limit,
+                                       Function<T, OffsetDateTime> createdAt,
+                                       Function<T, Object> id) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(limit - 1);
+        String next = new PageCursor(createdAt.apply(last), String.valueOf(id.apply(last))).encode();
+        return new CursorPage<>(items, next);
+    }
+
+    /**
+     * 200 with the items as the body and the next cursor, if any, in the X-Next-Cursor header
+     */
+    public <R> ResponseEntity<List<R>> toResponse(List<R> body) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (nextCursor != null) {
+            ok.header(PageCursor.HEADER, nextCursor);
+        }
+        return ok.body(body);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.rest_service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Opaque keyset position over (created_at, id) for lists ordered newest first.
+ * Clients get it back in the X-Next-Cursor header and pass it as ?cursor= unchanged.
+ */
+public record PageCursor(OffsetDateTime createdAt, String id) {
+
+    public static final String HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    /**
+     * The kind of id a list is keyed on; a cursor's id must have that form before it reaches a query
+     */
+    public enum IdFormat {
+        NUMERIC("[0-9]{1,18}"),
+        UUID("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+        private final Pattern pattern;
+
+        IdFormat(String regex) {
+            this.pattern = Pattern.compile(regex);
+        }
+
+        boolean matches(String id) {
+            return pattern.matcher(id).matches();
+        }
+    }
+
+    public PageCursor {
+        // UTC keeps '+' out of the query string, where PostgREST would read it as a space
+        createdAt = createdAt.withOffsetSameInstant(ZoneOffset.UTC);
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor from a request, or null when none was given. Throws IllegalArgumentException
+     * unless it is well formed and its id has the list's format.
+     */
+    public static PageCursor decode(String cursor, IdFormat idFormat) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("Malformed cursor");
+            String id = raw.substring(sep + 1);
+            if (!idFormat.matches(id)) throw new IllegalArgumentException("Malformed cursor id");
+            return new PageCursor(OffsetDateTime.parse(raw.substring(0, sep)), id);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    /**
+     * Page size for a request: the default when absent, capped at MAX_LIMIT
+     */
+    public static int limit(Integer requested) {
+        if (requested == null) return DEFAULT_LIMIT;
+        if (requested < 1) throw new IllegalArgumentException("limit must be positive");
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    /**
+     * PostgREST filter selecting rows strictly after this cursor in created_at.desc,id.desc order
+     */
+    public String postgrestFilter() {
+        return "or=(created_at.lt.\"" + createdAt + "\",and(created_at.eq.\"" + createdAt + "\",id.lt.\"" + id + "\"))";
+    }
+
+    /**
+     * PostgREST query suffix for one keyset page, fetching one extra row to detect a next page
+     */
+    public static String postgrestPage(PageCursor after, int limit) {
+        return (after != null ? "&" + after.postgrestFilter() : "")
+            + "&order=created_at.desc,id.desc&limit=" + (limit + 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.rest_service.model;
+
+/**
+ * Outcome of a balance change. On any status other than ok nothing was written; balance then holds
+ * the current balance for insufficient_funds and 0 for user_not_found.
+ */
+public record BalanceChange(String status, int balance) {
+
+    public static final String OK = "ok";
+    public static final String INSUFFICIENT_FUNDS = "insufficient_funds";
+    public static final String USER_NOT_FOUND = "user_not_found";
+
+    public boolean ok() {
+        return OK.equals(status);
+    }
+}
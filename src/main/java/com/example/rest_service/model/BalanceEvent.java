@@ -0,0 +1,26 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * One balance_events row: a signed change to a user's obrobucks (src/main/resources/db/balance_ledger.sql).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BalanceEvent(
+    Long id,
+    @JsonProperty("user_id") UUID userId,
+    Integer delta,
+    String kind,
+    String ref
+) {
+
+    public static final String COLUMNS = "id,user_id,delta,kind,ref";
+
+    public static final String GAME = "game";
+    public static final String BET = "bet";
+    public static final String PAYOUT = "payout";
+    public static final String REFUND = "refund";
+}
@@ -0,0 +1,19 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * A user's balance as of one ledger event, one balance_snapshots row.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BalanceSnapshot(
+    @JsonProperty("user_id") UUID userId,
+    Integer balance,
+    @JsonProperty("last_event_id") Long lastEventId
+) {
+
+    public static final String COLUMNS = "user_id,balance,last_event_id";
+}
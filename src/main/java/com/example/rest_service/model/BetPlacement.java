@@ -0,0 +1,33 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Result row of the place_bet SQL function (src/main/resources/db/place_bet.sql).
+ * On any status other than ok nothing was written; newBalance then holds the current balance
+ * for insufficient_funds and is null otherwise.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BetPlacement(
+    String status,
+    @JsonProperty("bet_id") Long betId,
+    @JsonProperty("new_balance") Integer newBalance,
+    @JsonProperty("option_total") Long optionTotal,
+    @JsonProperty("pool_total") Long poolTotal,
+    @JsonProperty("potential_payout") Integer potentialPayout,
+    Double odds
+) {
+
+    public static final String OK = "ok";
+    public static final String INSUFFICIENT_FUNDS = "insufficient_funds";
+    public static final String USER_NOT_FOUND = "user_not_found";
+    public static final String POLL_NOT_FOUND = "poll_not_found";
+    public static final String POLL_CLOSED = "poll_closed";
+    public static final String INVALID_OPTION = "invalid_option";
+    public static final String INVALID_AMOUNT = "invalid_amount";
+
+    public boolean ok() {
+        return OK.equals(status);
+    }
+}
@@ -9,6 +9,10 @@ import java.util.UUID;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Poll {
+
+    // Columns bet history needs to describe a poll (select=id,question,status,ends_at)
+    public static final String SUMMARY_COLUMNS = "id,question,status,ends_at";
+
     private Long id;
     private String question;
     private PollStatus status;
@@ -25,6 +29,22 @@ public class Poll {
     @JsonProperty("created_by_username")
     private String createdByUsername;  // NEW FIELD
 
+    public Poll() {}
+
+    // Copy constructor, so cached polls are never shared with callers
+    public Poll(Poll other) {
+        this.id = other.id;
+        this.question = other.question;
+        this.status = other.status;
+        this.category = other.category;
+        this.total_bets = other.total_bets;
+        this.created_at = other.created_at;
+        this.ends_at = other.ends_at;
+        this.options = new ArrayList<>(other.options);
+        this.createdBy = other.createdBy;
+        this.createdByUsername = other.createdByUsername;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,31 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Outcome of a resolved poll, one poll_resolutions row (src/main/resources/db/poll_resolutions.sql).
+ * A row in the resolving state is only a claim on the poll; its totals are not set yet.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PollResolution(
+    @JsonProperty("poll_id") Long pollId,
+    @JsonProperty("winning_option") String winningOption,
+    @JsonProperty("winners_count") Integer winnersCount,
+    @JsonProperty("total_pool") Long totalPool,
+    @JsonProperty("total_paid_out") Long totalPaidOut,
+    @JsonProperty("resolved_at") OffsetDateTime resolvedAt,
+    String state
+) {
+
+    public static final String COLUMNS = "poll_id,winning_option,winners_count,total_pool,total_paid_out,resolved_at,state";
+
+    public static final String RESOLVING = "resolving";
+    public static final String RESOLVED = "resolved";
+
+    public boolean resolved() {
+        return RESOLVED.equals(state);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.UUID;
+
+/**
+ * Balance-only projection of a user_profiles row (select=id,obrobucks).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserBalance(UUID id, Integer obrobucks) {
+
+    public static final String COLUMNS = "id,obrobucks";
+
+    /**
+     * Balance with a missing column treated as zero, as the controllers always have
+     */
+    public int balance() {
+        return obrobucks != null ? obrobucks : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.rest_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * Identity-only projection of a user_profiles row, enough to resolve who a login belongs to.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record UserIdentity(
+    UUID id,
+    String email,
+    String username,
+    @JsonProperty("google_id") String googleId,
+    @JsonProperty("github_id") String githubId
+) {
+
+    public static final String COLUMNS = "id,email,username,google_id,github_id";
+}
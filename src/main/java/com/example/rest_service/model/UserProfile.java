@@ -64,6 +64,27 @@ public class UserProfile {
         this.obrobucks = 0; // Default value
     }
 
+    // Copy constructor, so cached profiles are never shared with callers
+    public UserProfile(UserProfile other) {
+        this.id = other.id;
+        this.email = other.email;
+        this.googleId = other.googleId;
+        this.githubId = other.githubId;
+        this.name = other.name;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.profilePictureUrl = other.profilePictureUrl;
+        this.username = other.username;
+        this.bio = other.bio;
+        this.obrobucks = other.obrobucks;
+        this.accessToken = other.accessToken;
+        this.refreshToken = other.refreshToken;
+        this.tokenExpiresAt = other.tokenExpiresAt;
+        this.lastLogin = other.lastLogin;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     // Getters and Setters
     public UUID getId() {
         return id;
@@ -0,0 +1,99 @@
+package com.example.rest_service.repository;
+
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.BalanceSnapshot;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Direct JDBC access to the balance_events and balance_snapshots tables.
+ */
+@Repository
+public class BalanceLedgerJdbcRepository {
+
+    static final String EVENT_COLUMNS = "id, user_id, delta, kind, ref";
+
+    static final RowMapper<BalanceEvent> EVENT_MAPPER = (rs, rowNum) -> new BalanceEvent(
+        rs.getLong("id"),
+        JdbcRows.uuid(rs, "user_id"),
+        JdbcRows.integer(rs, "delta"),
+        rs.getString("kind"),
+        rs.getString("ref")
+    );
+
+    static final RowMapper<BalanceSnapshot> SNAPSHOT_MAPPER = (rs, rowNum) -> new BalanceSnapshot(
+        JdbcRows.uuid(rs, "user_id"),
+        JdbcRows.integer(rs, "balance"),
+        rs.getLong("last_event_id")
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public BalanceLedgerJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public Optional<BalanceSnapshot> findSnapshot(UUID userId) {
+        return jdbc.query("SELECT user_id, balance, last_event_id FROM balance_snapshots WHERE user_id = ?",
+                SNAPSHOT_MAPPER, userId)
+            .stream().findFirst();
+    }
+
+    /**
+     * A user's events after the given one, oldest first
+     */
+    public List<BalanceEvent> findTail(UUID userId, long afterEventId) {
+        return jdbc.query("SELECT " + EVENT_COLUMNS + " FROM balance_events WHERE user_id = ? AND id > ? ORDER BY id",
+            EVENT_MAPPER, userId, afterEventId);
+    }
+
+    /**
+     * Every event of a kind with the given ref, e.g. the payouts of one poll
+     */
+    public List<BalanceEvent> findByRef(String kind, String ref) {
+        return jdbc.query("SELECT " + EVENT_COLUMNS + " FROM balance_events WHERE kind = ? AND ref = ?",
+            EVENT_MAPPER, kind, ref);
+    }
+
+    /**
+     * Append events in one INSERT, returned with their ids in the order given
+     */
+    public List<BalanceEvent> appendAll(List<BalanceEvent> events) {
+        if (events.isEmpty()) return List.of();
+        List<UUID> users = new ArrayList<>(events.size());
+        List<Integer> deltas = new ArrayList<>(events.size());
+        List<String> kinds = new ArrayList<>(events.size());
+        List<String> refs = new ArrayList<>(events.size());
+        for (BalanceEvent e : events) {
+            users.add(e.userId());
+            deltas.add(e.delta());
+            kinds.add(e.kind());
+            refs.add(e.ref());
+        }
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                "INSERT INTO balance_events (user_id, delta, kind, ref)"
+                    + " SELECT user_id, delta, kind, ref FROM unnest(?, ?, ?, ?) WITH ORDINALITY AS e(user_id, delta, kind, ref, n) ORDER BY n"
+                    + " RETURNING " + EVENT_COLUMNS);
+            ps.setArray(1, con.createArrayOf("uuid", users.toArray()));
+            ps.setArray(2, con.createArrayOf("integer", deltas.toArray()));
+            ps.setArray(3, con.createArrayOf("text", kinds.toArray()));
+            ps.setArray(4, con.createArrayOf("text", refs.toArray()));
+            return ps;
+        }, EVENT_MAPPER);
+    }
+
+    public void saveSnapshot(BalanceSnapshot s) {
+        jdbc.update("INSERT INTO balance_snapshots (user_id, balance, last_event_id, taken_at) VALUES (?, ?, ?, now())"
+                + " ON CONFLICT (user_id) DO UPDATE SET balance = EXCLUDED.balance,"
+                + " last_event_id = EXCLUDED.last_event_id, taken_at = EXCLUDED.taken_at",
+            s.userId(), s.balance(), s.lastEventId());
+    }
+}
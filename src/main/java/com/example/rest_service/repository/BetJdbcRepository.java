@@ -0,0 +1,126 @@
+package com.example.rest_service.repository;
+
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.BetPlacement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Direct JDBC access to the bets table.
+ */
+@Repository
+public class BetJdbcRepository {
+
+    static final String COLUMNS = "id, poll_id, user_id, option_text, amount, potential_payout, created_at, is_winner";
+
+    static final RowMapper<Bet> BET_MAPPER = (rs, rowNum) -> {
+        Bet b = new Bet();
+        b.setId(rs.getLong("id"));
+        b.setPollId(rs.getLong("poll_id"));
+        b.setUserId(JdbcRows.uuid(rs, "user_id"));
+        b.setOptionText(rs.getString("option_text"));
+        b.setAmount(JdbcRows.integer(rs, "amount"));
+        b.setPotentialPayout(JdbcRows.integer(rs, "potential_payout"));
+        b.setCreatedAt(JdbcRows.timestamp(rs, "created_at"));
+        b.setIsWinner(rs.getObject("is_winner", Boolean.class));
+        return b;
+    };
+
+    static final RowMapper<BetPlacement> PLACEMENT_MAPPER = (rs, rowNum) -> new BetPlacement(
+        rs.getString("status"),
+        rs.getObject("bet_id", Long.class),
+        JdbcRows.integer(rs, "new_balance"),
+        rs.getObject("option_total", Long.class),
+        rs.getObject("pool_total", Long.class),
+        JdbcRows.integer(rs, "potential_payout"),
+        rs.getBigDecimal("odds") != null ? rs.getBigDecimal("odds").doubleValue() : null
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public BetJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * option_text/amount pairs for every bet on a poll, shaped like the PostgREST rows
+     */
+    public List<Map<String, Object>> findOptionAmounts(long pollId) {
+        return jdbc.queryForList("SELECT id, option_text, amount FROM bets WHERE poll_id = ?", pollId);
+    }
+
+    public List<Bet> findByPollId(long pollId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE poll_id = ?", BET_MAPPER, pollId);
+    }
+
+    public List<Bet> findByUserId(UUID userId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE user_id = ? ORDER BY created_at DESC",
+            BET_MAPPER, userId);
+    }
+
+    /**
+     * Up to limit of a user's bets after the cursor, newest first
+     */
+    public List<Bet> findByUserIdPage(UUID userId, PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE user_id = ?"
+                + " ORDER BY created_at DESC, id DESC LIMIT ?", BET_MAPPER, userId, limit);
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE user_id = ? AND (created_at, id) < (?, ?)"
+                + " ORDER BY created_at DESC, id DESC LIMIT ?",
+            BET_MAPPER, userId, after.createdAt(), Long.parseLong(after.id()), limit);
+    }
+
+    public List<Bet> findByUserAndPoll(UUID userId, long pollId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE user_id = ? AND poll_id = ?",
+            BET_MAPPER, userId, pollId);
+    }
+
+    public Optional<Bet> findFirstWinner(long pollId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM bets WHERE poll_id = ? AND is_winner = true LIMIT 1",
+            BET_MAPPER, pollId).stream().findFirst();
+    }
+
+    public Bet insert(Map<String, Object> payload) {
+        List<Object> params = new ArrayList<>();
+        String sql = JdbcRows.insertSql("bets", payload, params);
+        return jdbc.queryForObject(sql, BET_MAPPER, params.toArray());
+    }
+
+    /**
+     * Insert several bets in one statement, returned in the order given
+     */
+    public List<Bet> insertAll(List<Map<String, Object>> payloads) {
+        if (payloads.isEmpty()) return List.of();
+        List<Object> params = new ArrayList<>();
+        String sql = JdbcRows.insertAllSql("bets", payloads, params);
+        return jdbc.query(sql, BET_MAPPER, params.toArray());
+    }
+
+    /**
+     * Debit, insert and bump the pool in one statement via the place_bet function
+     */
+    public BetPlacement place(UUID userId, long pollId, String optionText, int amount, double houseTake) {
+        return jdbc.queryForObject("SELECT * FROM place_bet(?, ?, ?, ?, ?)",
+            PLACEMENT_MAPPER, userId, pollId, optionText, amount, houseTake);
+    }
+
+    /**
+     * Mark every bet on a poll won or lost in one statement
+     */
+    public int updateOutcome(long pollId, String winningOption) {
+        return jdbc.update("UPDATE bets SET is_winner = (option_text = ?) WHERE poll_id = ?", winningOption, pollId);
+    }
+
+    public int updateIsWinner(long betId, boolean isWinner) {
+        return jdbc.update("UPDATE bets SET is_winner = ? WHERE id = ?", isWinner, betId);
+    }
+}
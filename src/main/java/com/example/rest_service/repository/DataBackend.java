@@ -0,0 +1,49 @@
+package com.example.rest_service.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-table choice between the PostgREST API (rest) and a direct JDBC connection (jdbc).
+ * Configured with supabase.backend.<table>=rest|jdbc.
+ */
+@Component
+public class DataBackend {
+
+    private static final String JDBC = "jdbc";
+
+    @Value("${supabase.backend.polls:rest}")
+    private String polls;
+
+    @Value("${supabase.backend.poll-options:rest}")
+    private String pollOptions;
+
+    @Value("${supabase.backend.bets:rest}")
+    private String bets;
+
+    @Value("${supabase.backend.user-profiles:rest}")
+    private String userProfiles;
+
+    @PostConstruct
+    public void init() {
+        System.out.println(">>> Data backend: polls=" + polls + ", poll_options=" + pollOptions
+            + ", bets=" + bets + ", user_profiles=" + userProfiles);
+    }
+
+    public boolean pollsViaJdbc() {
+        return JDBC.equalsIgnoreCase(polls);
+    }
+
+    public boolean pollOptionsViaJdbc() {
+        return JDBC.equalsIgnoreCase(pollOptions);
+    }
+
+    public boolean betsViaJdbc() {
+        return JDBC.equalsIgnoreCase(bets);
+    }
+
+    public boolean userProfilesViaJdbc() {
+        return JDBC.equalsIgnoreCase(userProfiles);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.rest_service.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shared helpers for turning PostgREST-style column maps into parameterized SQL.
+ */
+final class JdbcRows {
+
+    // Payload maps carry timestamps as ISO-8601 strings, as they are sent to PostgREST
+    private static final Set<String> TIMESTAMP_COLUMNS =
+        Set.of("created_at", "updated_at", "ends_at", "last_login", "token_expires_at");
+
+    private JdbcRows() {}
+
+    /**
+     * Bind marker for a column, casting ISO timestamp strings server-side
+     */
+    static String marker(String column) {
+        return TIMESTAMP_COLUMNS.contains(column) ? "CAST(? AS timestamptz)" : "?";
+    }
+
+    /**
+     * INSERT ... RETURNING * for the non-null entries of a payload
+     */
+    static String insertSql(String table, Map<String, Object> payload, List<Object> params) {
+        List<String> columns = new ArrayList<>();
+        List<String> markers = new ArrayList<>();
+        for (Map.Entry<String, Object> e : payload.entrySet()) {
+            if (e.getValue() == null) continue;
+            columns.add(e.getKey());
+            markers.add(marker(e.getKey()));
+            params.add(e.getValue());
+        }
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+            + String.join(", ", markers) + ") RETURNING *";
+    }
+
+    /**
+     * One multi-row INSERT ... RETURNING * for payloads sharing the first payload's columns; columns
+     * that are null in every payload are left to their defaults
+     */
+    static String insertAllSql(String table, List<Map<String, Object>> payloads, List<Object> params) {
+        List<String> columns = new ArrayList<>();
+        for (String column : payloads.get(0).keySet()) {
+            if (payloads.stream().anyMatch(p -> p.get(column) != null)) columns.add(column);
+        }
+        List<String> markers = new ArrayList<>();
+        for (String column : columns) markers.add(marker(column));
+        String tuple = "(" + String.join(", ", markers) + ")";
+
+        List<String> tuples = new ArrayList<>();
+        for (Map<String, Object> payload : payloads) {
+            tuples.add(tuple);
+            for (String column : columns) params.add(payload.get(column));
+        }
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES "
+            + String.join(", ", tuples) + " RETURNING *";
+    }
+
+    /**
+     * UPDATE ... SET for every entry of a payload; the caller appends the WHERE clause parameters
+     */
+    static String updateSql(String table, Map<String, Object> payload, String where, List<Object> params) {
+        List<String> assignments = new ArrayList<>();
+        for (Map.Entry<String, Object> e : payload.entrySet()) {
+            assignments.add(e.getKey() + " = " + marker(e.getKey()));
+            params.add(e.getValue());
+        }
+        return "UPDATE " + table + " SET " + String.join(", ", assignments) + " WHERE " + where + " RETURNING *";
+    }
+
+    static OffsetDateTime timestamp(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, OffsetDateTime.class);
+    }
+
+    static UUID uuid(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, UUID.class);
+    }
+
+    static Integer integer(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, Integer.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.rest_service.repository;
+
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.Poll;
+import com.example.rest_service.model.PollStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Direct JDBC access to the polls table.
+ */
+@Repository
+public class PollJdbcRepository {
+
+    static final String COLUMNS = "id, question, status, category, total_bets, created_at, ends_at, created_by";
+
+    static final RowMapper<Poll> POLL_MAPPER = (rs, rowNum) -> {
+        Poll p = new Poll();
+        p.setId(rs.getLong("id"));
+        p.setQuestion(rs.getString("question"));
+        String status = rs.getString("status");
+        p.setStatus(status != null ? PollStatus.valueOf(status) : null);
+        p.setCategory(rs.getString("category"));
+        p.setTotal_bets(JdbcRows.integer(rs, "total_bets"));
+        p.setCreated_at(JdbcRows.timestamp(rs, "created_at"));
+        p.setEnds_at(JdbcRows.timestamp(rs, "ends_at"));
+        p.setCreatedBy(JdbcRows.uuid(rs, "created_by"));
+        return p;
+    };
+
+    private final JdbcTemplate jdbc;
+
+    public PollJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<Poll> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM polls ORDER BY created_at DESC", POLL_MAPPER);
+    }
+
+    /**
+     * Up to limit polls after the cursor, newest first
+     */
+    public List<Poll> findPage(PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT " + COLUMNS + " FROM polls ORDER BY created_at DESC, id DESC LIMIT ?",
+                POLL_MAPPER, limit);
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM polls WHERE (created_at, id) < (?, ?)"
+                + " ORDER BY created_at DESC, id DESC LIMIT ?",
+            POLL_MAPPER, after.createdAt(), Long.parseLong(after.id()), limit);
+    }
+
+    public Optional<Poll> findById(long id) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM polls WHERE id = ?", POLL_MAPPER, id)
+            .stream().findFirst();
+    }
+
+    public List<Poll> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT " + COLUMNS + " FROM polls WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, POLL_MAPPER);
+    }
+
+    public Poll insert(Map<String, Object> payload) {
+        List<Object> params = new ArrayList<>();
+        String sql = JdbcRows.insertSql("polls", payload, params);
+        return jdbc.queryForObject(sql, POLL_MAPPER, params.toArray());
+    }
+
+    public int deleteById(long id) {
+        return jdbc.update("DELETE FROM polls WHERE id = ?", id);
+    }
+
+    public int updateTotalBets(long id, int totalBets) {
+        return jdbc.update("UPDATE polls SET total_bets = ? WHERE id = ?", totalBets, id);
+    }
+
+    public int updateStatus(long id, PollStatus status) {
+        return jdbc.update("UPDATE polls SET status = ? WHERE id = ?", status.name(), id);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.rest_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Direct JDBC access to the poll_options table.
+ */
+@Repository
+public class PollOptionJdbcRepository {
+
+    private final JdbcTemplate jdbc;
+
+    public PollOptionJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<String> findTextsByPollId(long pollId) {
+        return jdbc.queryForList("SELECT option_text FROM poll_options WHERE poll_id = ? ORDER BY id", String.class, pollId);
+    }
+
+    public Map<Long, List<String>> findTextsByPollIds(List<Long> pollIds) {
+        Map<Long, List<String>> out = new HashMap<>();
+        if (pollIds.isEmpty()) return out;
+        // = ANY(array) keeps one statement text regardless of how many ids are passed
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                "SELECT poll_id, option_text FROM poll_options WHERE poll_id = ANY(?) ORDER BY id");
+            ps.setArray(1, con.createArrayOf("bigint", pollIds.toArray()));
+            return ps;
+        }, rs -> {
+            out.computeIfAbsent(rs.getLong("poll_id"), k -> new ArrayList<>()).add(rs.getString("option_text"));
+        });
+        return out;
+    }
+
+    public void insertAll(long pollId, List<String> options) {
+        jdbc.batchUpdate("INSERT INTO poll_options (poll_id, option_text) VALUES (?, ?)",
+            options.stream().map(txt -> new Object[]{pollId, txt}).toList());
+    }
+
+    public int deleteByPollId(long pollId) {
+        return jdbc.update("DELETE FROM poll_options WHERE poll_id = ?", pollId);
+    }
+}
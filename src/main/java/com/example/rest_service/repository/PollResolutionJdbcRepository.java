@@ -0,0 +1,62 @@
+package com.example.rest_service.repository;
+
+import com.example.rest_service.model.PollResolution;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Direct JDBC access to the poll_resolutions table.
+ */
+@Repository
+public class PollResolutionJdbcRepository {
+
+    static final String COLUMNS = "poll_id, winning_option, winners_count, total_pool, total_paid_out, resolved_at, state";
+
+    static final RowMapper<PollResolution> RESOLUTION_MAPPER = (rs, rowNum) -> new PollResolution(
+        rs.getLong("poll_id"),
+        rs.getString("winning_option"),
+        JdbcRows.integer(rs, "winners_count"),
+        rs.getObject("total_pool", Long.class),
+        rs.getObject("total_paid_out", Long.class),
+        JdbcRows.timestamp(rs, "resolved_at"),
+        rs.getString("state")
+    );
+
+    private final JdbcTemplate jdbc;
+
+    public PollResolutionJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public Optional<PollResolution> findByPollId(long pollId) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM poll_resolutions WHERE poll_id = ?", RESOLUTION_MAPPER, pollId)
+            .stream().findFirst();
+    }
+
+    /**
+     * Insert the row unless the poll already has one, returning whichever row the poll has now
+     */
+    public PollResolution insertIfAbsent(PollResolution r) {
+        jdbc.update("INSERT INTO poll_resolutions (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)"
+                + " ON CONFLICT (poll_id) DO NOTHING",
+            r.pollId(), r.winningOption(), r.winnersCount(), r.totalPool(), r.totalPaidOut(), r.resolvedAt(), r.state());
+        return findByPollId(r.pollId()).orElseThrow();
+    }
+
+    /**
+     * Insert, or overwrite the row claimed for the poll with its outcome
+     */
+    public PollResolution upsert(PollResolution r) {
+        return jdbc.queryForObject("INSERT INTO poll_resolutions (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)"
+                + " ON CONFLICT (poll_id) DO UPDATE SET winning_option = EXCLUDED.winning_option,"
+                + " winners_count = EXCLUDED.winners_count, total_pool = EXCLUDED.total_pool,"
+                + " total_paid_out = EXCLUDED.total_paid_out, resolved_at = EXCLUDED.resolved_at,"
+                + " state = EXCLUDED.state"
+                + " RETURNING " + COLUMNS,
+            RESOLUTION_MAPPER,
+            r.pollId(), r.winningOption(), r.winnersCount(), r.totalPool(), r.totalPaidOut(), r.resolvedAt(), r.state());
+    }
+}
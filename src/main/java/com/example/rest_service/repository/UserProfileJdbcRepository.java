@@ -0,0 +1,196 @@
+package com.example.rest_service.repository;
+
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.UserBalance;
+import com.example.rest_service.model.UserIdentity;
+import com.example.rest_service.model.UserProfile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Direct JDBC access to the user_profiles table.
+ */
+@Repository
+public class UserProfileJdbcRepository {
+
+    static final RowMapper<UserProfile> USER_MAPPER = (rs, rowNum) -> {
+        UserProfile u = new UserProfile();
+        u.setId(JdbcRows.uuid(rs, "id"));
+        u.setEmail(rs.getString("email"));
+        u.setGoogleId(rs.getString("google_id"));
+        u.setGithubId(rs.getString("github_id"));
+        u.setName(rs.getString("name"));
+        u.setFirstName(rs.getString("first_name"));
+        u.setLastName(rs.getString("last_name"));
+        u.setProfilePictureUrl(rs.getString("profile_picture_url"));
+        u.setUsername(rs.getString("username"));
+        u.setBio(rs.getString("bio"));
+        u.setObrobucks(JdbcRows.integer(rs, "obrobucks"));
+        u.setAccessToken(rs.getString("access_token"));
+        u.setRefreshToken(rs.getString("refresh_token"));
+        u.setTokenExpiresAt(JdbcRows.timestamp(rs, "token_expires_at"));
+        u.setLastLogin(JdbcRows.timestamp(rs, "last_login"));
+        u.setCreatedAt(JdbcRows.timestamp(rs, "created_at"));
+        u.setUpdatedAt(JdbcRows.timestamp(rs, "updated_at"));
+        return u;
+    };
+
+    private static final RowMapper<UserBalance> BALANCE_MAPPER = (rs, rowNum) ->
+        new UserBalance(JdbcRows.uuid(rs, "id"), JdbcRows.integer(rs, "obrobucks"));
+
+    private static final RowMapper<UserIdentity> IDENTITY_MAPPER = (rs, rowNum) -> new UserIdentity(
+        JdbcRows.uuid(rs, "id"),
+        rs.getString("email"),
+        rs.getString("username"),
+        rs.getString("google_id"),
+        rs.getString("github_id"));
+
+    private static final Set<String> IDENTITY_KEYS = Set.of("id", "email", "google_id", "github_id");
+    private static final String IDENTITY_SELECT = "SELECT " + UserIdentity.COLUMNS + " FROM user_profiles";
+
+    private final JdbcTemplate jdbc;
+
+    public UserProfileJdbcRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public List<UserProfile> findAll() {
+        return jdbc.query("SELECT * FROM user_profiles", USER_MAPPER);
+    }
+
+    /**
+     * Up to limit users after the cursor, newest first
+     */
+    public List<UserProfile> findPage(PageCursor after, int limit) {
+        if (after == null) {
+            return jdbc.query("SELECT * FROM user_profiles ORDER BY created_at DESC, id DESC LIMIT ?",
+                USER_MAPPER, limit);
+        }
+        return jdbc.query("SELECT * FROM user_profiles WHERE (created_at, id) < (?, ?)"
+                + " ORDER BY created_at DESC, id DESC LIMIT ?",
+            USER_MAPPER, after.createdAt(), UUID.fromString(after.id()), limit);
+    }
+
+    public Optional<UserProfile> findById(UUID id) {
+        return jdbc.query("SELECT * FROM user_profiles WHERE id = ?", USER_MAPPER, id).stream().findFirst();
+    }
+
+    public Optional<UserProfile> findByEmail(String email) {
+        return jdbc.query("SELECT * FROM user_profiles WHERE email = ?", USER_MAPPER, email).stream().findFirst();
+    }
+
+    public Optional<UserProfile> findByGoogleId(String googleId) {
+        return jdbc.query("SELECT * FROM user_profiles WHERE google_id = ?", USER_MAPPER, googleId).stream().findFirst();
+    }
+
+    public Optional<UserProfile> findByGithubId(String githubId) {
+        return jdbc.query("SELECT * FROM user_profiles WHERE github_id = ?", USER_MAPPER, githubId).stream().findFirst();
+    }
+
+    public List<UserProfile> searchByUsername(String username) {
+        return jdbc.query("SELECT * FROM user_profiles WHERE username ILIKE ?", USER_MAPPER, "%" + username + "%");
+    }
+
+    public Optional<UserBalance> findBalance(UUID id) {
+        return jdbc.query("SELECT id, obrobucks FROM user_profiles WHERE id = ?", BALANCE_MAPPER, id)
+            .stream().findFirst();
+    }
+
+    public Optional<UserBalance> updateBalance(UUID id, int obrobucks) {
+        return jdbc.query("UPDATE user_profiles SET obrobucks = ? WHERE id = ? RETURNING id, obrobucks",
+            BALANCE_MAPPER, obrobucks, id).stream().findFirst();
+    }
+
+    /**
+     * Add each amount to its user's balance in one statement, once per user and ref, returning the
+     * balances of every user credited under the ref (the credit_balances function's statement)
+     */
+    public List<UserBalance> creditBalances(Map<UUID, Integer> credits, String ref) {
+        if (credits.isEmpty()) return List.of();
+        List<UUID> ids = new ArrayList<>(credits.keySet());
+        List<Integer> amounts = new ArrayList<>(ids.size());
+        for (UUID id : ids) amounts.add(credits.get(id));
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                "WITH fresh AS ("
+                    + " INSERT INTO balance_credits (user_id, ref, amount)"
+                    + " SELECT c.id, ?, c.amount FROM unnest(?, ?) AS c(id, amount) JOIN user_profiles u ON u.id = c.id"
+                    + " ON CONFLICT (user_id, ref) DO NOTHING RETURNING user_id, amount"
+                    + "), paid AS ("
+                    + " UPDATE user_profiles u SET obrobucks = coalesce(u.obrobucks, 0) + f.amount"
+                    + " FROM fresh f WHERE u.id = f.user_id RETURNING u.id, u.obrobucks"
+                    + ") SELECT id, obrobucks FROM paid"
+                    + " UNION ALL SELECT u.id, u.obrobucks FROM balance_credits b JOIN user_profiles u ON u.id = b.user_id"
+                    + " WHERE b.ref = ?");
+            ps.setString(1, ref);
+            ps.setArray(2, con.createArrayOf("uuid", ids.toArray()));
+            ps.setArray(3, con.createArrayOf("integer", amounts.toArray()));
+            ps.setString(4, ref);
+            return ps;
+        }, BALANCE_MAPPER);
+    }
+
+    /**
+     * Identity lookup on one of the unique login columns: id, email, google_id or github_id
+     */
+    public Optional<UserIdentity> findIdentity(String column, Object value) {
+        if (!IDENTITY_KEYS.contains(column)) {
+            throw new IllegalArgumentException("Not an identity column: " + column);
+        }
+        return jdbc.query(IDENTITY_SELECT + " WHERE " + column + " = ?", IDENTITY_MAPPER, value)
+            .stream().findFirst();
+    }
+
+    public List<UserIdentity> findAllIdentities() {
+        return jdbc.query(IDENTITY_SELECT, IDENTITY_MAPPER);
+    }
+
+    /**
+     * Hand up to limit rows with id greater than after (or from the start) to the handler, in id order
+     */
+    public void forEachExportRow(String columns, UUID after, int limit, RowCallbackHandler handler) {
+        String sql = "SELECT " + columns + " FROM user_profiles"
+            + (after != null ? " WHERE id > ?" : "") + " ORDER BY id LIMIT ?";
+        if (after != null) {
+            jdbc.query(sql, handler, after, limit);
+        } else {
+            jdbc.query(sql, handler, limit);
+        }
+    }
+
+    public Map<String, String> findUsernames(List<String> userIds) {
+        Map<String, String> out = new HashMap<>();
+        if (userIds.isEmpty()) return out;
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT id, username FROM user_profiles WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("uuid", userIds.stream().map(UUID::fromString).toArray()));
+            return ps;
+        }, rs -> {
+            out.put(rs.getString("id"), rs.getString("username"));
+        });
+        return out;
+    }
+
+    public UserProfile insert(Map<String, Object> payload) {
+        List<Object> params = new ArrayList<>();
+        String sql = JdbcRows.insertSql("user_profiles", payload, params);
+        return jdbc.queryForObject(sql, USER_MAPPER, params.toArray());
+    }
+
+    public Optional<UserProfile> update(UUID id, Map<String, Object> payload) {
+        if (payload.isEmpty()) return findById(id);
+        List<Object> params = new ArrayList<>();
+        String sql = JdbcRows.updateSql("user_profiles", payload, "id = ?", params);
+        params.add(id);
+        return jdbc.query(sql, USER_MAPPER, params.toArray()).stream().findFirst();
+    }
+
+    public int deleteById(UUID id) {
+        return jdbc.update("DELETE FROM user_profiles WHERE id = ?", id);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.rest_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single writer per user for balance changes: each user with work pending has a lane, a FIFO
+ * queue drained by one virtual thread at a time, so one user's operations run strictly one after
+ * another while different users' run in parallel. A lane exists only while it has work.
+ *
+ * forAll() runs one operation with several users' lanes held (poll payouts); its gates are queued
+ * under one lock, so two such operations always meet their lanes in the same order and cannot
+ * deadlock. Callers block until their operation has run; an operation must not submit to a lane
+ * it is running in.
+ *
+ * balance.executor.enabled=false runs everything on the caller's thread. Metrics:
+ * balance.executor.queue.depth, balance.executor.lanes, balance.executor.lane.depth (a lane's
+ * length on enqueue), balance.executor.wait and balance.executor.rejected.
+ */
+@Component
+public class BalanceExecutor {
+
+    private final boolean enabled;
+    private final int maxQueuedPerUser;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<UUID, ArrayDeque<Runnable>> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Object gateLock = new Object();
+
+    private final DistributionSummary laneDepth;
+    private final Timer wait;
+    private final Counter rejected;
+
+    public BalanceExecutor(MeterRegistry registry,
+                           @Value("${balance.executor.enabled:true}") boolean enabled,
+                           @Value("${balance.executor.max-queued-per-user:1000}") int maxQueuedPerUser) {
+        this.enabled = enabled;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+
+        this.laneDepth = DistributionSummary.builder("balance.executor.lane.depth")
+            .description("Operations already queued for the user when one more is added")
+            .register(registry);
+        this.wait = Timer.builder("balance.executor.wait")
+            .description("Time from an operation being queued to it starting")
+            .register(registry);
+        this.rejected = Counter.builder("balance.executor.rejected")
+            .description("Operations refused because the user's lane was full")
+            .register(registry);
+        Gauge.builder("balance.executor.queue.depth", queued, AtomicInteger::get)
+            .description("Balance operations queued or running, over all users")
+            .register(registry);
+        Gauge.builder("balance.executor.lanes", lanes, Map::size)
+            .description("Users with balance operations queued or running")
+            .register(registry);
+    }
+
+    /**
+     * Run an operation in the user's lane and wait for its result
+     */
+    public <T> T submit(UUID userId, Supplier<T> operation) {
+        if (!enabled) return operation.get();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        enqueue(userId, () -> {
+            wait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                result.complete(operation.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return join(result);
+    }
+
+    /**
+     * Run one operation while holding the lanes of all the given users
+     */
+    public <T> T forAll(Collection<UUID> userIds, Supplier<T> operation) {
+        if (!enabled || userIds.isEmpty()) return operation.get();
+
+        Set<UUID> users = new LinkedHashSet<>(userIds);
+        CountDownLatch arrived = new CountDownLatch(users.size());
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable gate = () -> {
+            arrived.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        int enqueued = 0;
+        try {
+            synchronized (gateLock) {
+                for (UUID userId : users) {
+                    enqueue(userId, gate);
+                    enqueued++;
+                }
+            }
+            arrived.await();
+            return operation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for balance lanes", e);
+        } finally {
+            // Gates that were queued must open whatever happened, or their lanes stall
+            if (enqueued > 0) done.countDown();
+        }
+    }
+
+    private void enqueue(UUID userId, Runnable task) {
+        boolean[] start = new boolean[1];
+        lanes.compute(userId, (id, lane) -> {
+            if (lane == null) {
+                lane = new ArrayDeque<>();
+                start[0] = true;
+            } else if (lane.size() >= maxQueuedPerUser) {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many balance operations queued for user " + id);
+            }
+            laneDepth.record(lane.size());
+            lane.add(task);
+            return lane;
+        });
+        queued.incrementAndGet();
+        if (start[0]) {
+            workers.execute(() -> drain(userId));
+        }
+    }
+
+    /**
+     * Run the lane's tasks in order; the lane is removed, atomically, once it is found empty
+     */
+    private void drain(UUID userId) {
+        while (true) {
+            Runnable[] next = new Runnable[1];
+            lanes.computeIfPresent(userId, (id, lane) -> {
+                // The head stays queued while it runs, so it counts toward the lane's length
+                next[0] = lane.peek();
+                return next[0] == null ? null : lane;
+            });
+            if (next[0] == null) return;
+            try {
+                next[0].run();
+            } finally {
+                lanes.computeIfPresent(userId, (id, lane) -> {
+                    lane.poll();
+                    return lane;
+                });
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.BalanceSnapshot;
+import com.example.rest_service.model.UserBalance;
+import com.example.rest_service.repository.BalanceLedgerJdbcRepository;
+import com.example.rest_service.repository.DataBackend;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Event-sourced obrobucks (src/main/resources/db/balance_ledger.sql): each change is appended to
+ * balance_events as a delta, and a balance is the user's latest balance_snapshots row plus the
+ * events after it. Both tables go over the user_profiles backend.
+ *
+ * A user's balance is loaded (snapshot plus tail, two reads) and then kept in memory for up to
+ * ledger.accounts.ttl, so a change is a check against that and a single append; the ttl bounds how
+ * long events appended by another instance go unseen. Every ledger.snapshot-every events the
+ * snapshot is rebuilt from the stored events, not from memory. The snapshot only saves replaying
+ * events, so once the append has committed a failed snapshot is logged and retried on the next
+ * change. Payouts are appended for all winners at once and drop the winners' loaded balances,
+ * which are read again on next use; a user already paid under a payout's ref is skipped.
+ *
+ * user_profiles.obrobucks is only refreshed with each snapshot, so with the ledger on it lags by
+ * up to ledger.snapshot-every events (and a payout until the winner's next change). Profile
+ * reads return that column as stored; GET /api/gambling/balance/{userId} reads the ledger.
+ *
+ * Off unless ledger.enabled=true. Metrics: ledger.events.appended, ledger.snapshots and
+ * ledger.accounts.size.
+ */
+@Component
+public class BalanceLedger {
+
+    /**
+     * A user's loaded balance and the snapshot it was built on
+     */
+    private static final class Account {
+        final ReentrantLock lock = new ReentrantLock();
+        int balance;
+        int snapshotBalance;
+        long snapshotEventId;
+        int sinceSnapshot;
+    }
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabase;
+    private final DataBackend backend;
+    private final BalanceLedgerJdbcRepository repository;
+    private final UserProfileService userProfileService;
+    private final EntityVersions versions;
+
+    private final boolean enabled;
+    private final int snapshotEvery;
+    private final Cache<UUID, Account> accounts;
+    // Bumped after every payout append; a load that began before one may have missed it
+    private final AtomicLong payouts = new AtomicLong();
+    private final Counter appended;
+    private final Counter snapshots;
+
+    public BalanceLedger(RestTemplate restTemplate,
+                         SupabaseConfig supabase,
+                         DataBackend backend,
+                         BalanceLedgerJdbcRepository repository,
+                         UserProfileService userProfileService,
+                         EntityVersions versions,
+                         MeterRegistry registry,
+                         @Value("${ledger.enabled:false}") boolean enabled,
+                         @Value("${ledger.snapshot-every:100}") int snapshotEvery,
+                         @Value("${ledger.accounts.max-size:100000}") long maxAccounts,
+                         @Value("${ledger.accounts.ttl:5m}") Duration accountTtl) {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("ledger.snapshot-every must be at least 1, got " + snapshotEvery);
+        }
+        this.restTemplate = restTemplate;
+        this.supabase = supabase;
+        this.backend = backend;
+        this.repository = repository;
+        this.userProfileService = userProfileService;
+        this.versions = versions;
+        this.enabled = enabled;
+        this.snapshotEvery = snapshotEvery;
+        this.accounts = Caffeine.newBuilder()
+            .maximumSize(maxAccounts)
+            .expireAfterWrite(accountTtl)
+            .build();
+
+        this.appended = Counter.builder("ledger.events.appended")
+            .description("Balance events written to the ledger")
+            .register(registry);
+        this.snapshots = Counter.builder("ledger.snapshots")
+            .description("Balance snapshots written")
+            .register(registry);
+        Gauge.builder("ledger.accounts.size", accounts, Cache::estimatedSize)
+            .description("User balances held in memory")
+            .register(registry);
+
+        if (enabled) {
+            System.out.println(">>> Balance ledger: snapshot-every=" + snapshotEvery + ", accounts.max-size=" + maxAccounts
+                + ", accounts.ttl=" + accountTtl);
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public Optional<Integer> balance(UUID userId) {
+        return account(userId).map(a -> {
+            a.lock.lock();
+            try {
+                return a.balance;
+            } finally {
+                a.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Append one change if the balance covers the stake (and stays non-negative)
+     */
+    public BalanceChange apply(UUID userId, int stake, int delta, String kind, String ref) {
+        Optional<Account> loaded = account(userId);
+        if (loaded.isEmpty()) {
+            return new BalanceChange(BalanceChange.USER_NOT_FOUND, 0);
+        }
+        Account a = loaded.get();
+        a.lock.lock();
+        try {
+            if (a.balance < stake || a.balance + delta < 0) {
+                return new BalanceChange(BalanceChange.INSUFFICIENT_FUNDS, a.balance);
+            }
+            append(List.of(new BalanceEvent(null, userId, delta, kind, ref)));
+            a.balance += delta;
+            if (++a.sinceSnapshot >= snapshotEvery) {
+                trySnapshot(userId, a);
+            }
+            userProfileService.balanceChanged(userId, a.balance);
+            return new BalanceChange(BalanceChange.OK, a.balance);
+        } finally {
+            a.lock.unlock();
+        }
+    }
+
+    /**
+     * Append a credit, in one write, for every user without one of this kind and ref yet. Returns
+     * the amounts credited under the ref, earlier calls included.
+     */
+    public Map<UUID, Integer> creditAll(Map<UUID, Integer> credits, String kind, String ref) {
+        Map<UUID, Integer> credited = new HashMap<>();
+        for (BalanceEvent e : findByRef(kind, ref)) credited.merge(e.userId(), e.delta(), Integer::sum);
+
+        List<BalanceEvent> events = new ArrayList<>(credits.size());
+        credits.forEach((userId, amount) -> {
+            if (credited.containsKey(userId)) return;
+            events.add(new BalanceEvent(null, userId, amount, kind, ref));
+            credited.put(userId, amount);
+        });
+        append(events);
+
+        // Cheaper to reload a winner's balance when next used than to read every one now
+        if (!events.isEmpty()) payouts.incrementAndGet();
+        for (BalanceEvent e : events) {
+            accounts.invalidate(e.userId());
+            versions.bump(EntityVersions.balance(e.userId()));
+        }
+        return credited;
+    }
+
+    /**
+     * Loaded outside the cache's own compute, which holds a lock that would pin a virtual thread's
+     * carrier for the length of the reads; two threads loading the same user keep the first result.
+     * A load that overlapped a payout may have read the tail before the credit was appended and is
+     * read again rather than stored.
+     */
+    private Optional<Account> account(UUID userId) {
+        while (true) {
+            Account cached = accounts.getIfPresent(userId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            long payoutsBefore = payouts.get();
+            Account loaded = load(userId);
+            if (loaded == null) {
+                return Optional.empty();
+            }
+            Account stored = accounts.asMap().compute(userId, (id, current) ->
+                current != null ? current : payouts.get() == payoutsBefore ? loaded : null);
+            if (stored != null) {
+                return Optional.of(stored);
+            }
+        }
+    }
+
+    /**
+     * Latest snapshot plus the events after it; a user without one is seeded from user_profiles.obrobucks
+     */
+    private Account load(UUID userId) {
+        Account a = new Account();
+        Optional<BalanceSnapshot> snapshot = findSnapshot(userId);
+        if (snapshot.isPresent()) {
+            a.snapshotBalance = snapshot.get().balance();
+            a.snapshotEventId = snapshot.get().lastEventId();
+        } else {
+            Optional<UserBalance> profile = userProfileService.readBalance(userId);
+            if (profile.isEmpty()) return null;
+            a.snapshotBalance = profile.get().balance();
+            a.snapshotEventId = 0;
+        }
+
+        List<BalanceEvent> tail = findTail(userId, a.snapshotEventId);
+        a.balance = a.snapshotBalance;
+        for (BalanceEvent e : tail) a.balance += e.delta();
+        a.sinceSnapshot = tail.size();
+
+        if (snapshot.isEmpty() || a.sinceSnapshot >= snapshotEvery) {
+            trySnapshot(userId, a);
+        }
+        return a;
+    }
+
+    private void trySnapshot(UUID userId, Account a) {
+        try {
+            snapshot(userId, a);
+        } catch (Exception e) {
+            System.err.println("Error taking balance snapshot for user " + userId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fold the stored events since the last snapshot into a new one. Built from the ledger rather
+     * than the loaded balance, so a balance that missed a credit cannot be written back.
+     */
+    private void snapshot(UUID userId, Account a) {
+        int balance = a.snapshotBalance;
+        long lastEventId = a.snapshotEventId;
+        for (BalanceEvent e : findTail(userId, a.snapshotEventId)) {
+            balance += e.delta();
+            lastEventId = Math.max(lastEventId, e.id());
+        }
+
+        saveSnapshot(new BalanceSnapshot(userId, balance, lastEventId));
+        userProfileService.setBalance(userId, balance);
+        snapshots.increment();
+
+        a.balance = balance;
+        a.snapshotBalance = balance;
+        a.snapshotEventId = lastEventId;
+        a.sinceSnapshot = 0;
+    }
+
+    private void append(List<BalanceEvent> events) {
+        if (events.isEmpty()) return;
+        if (backend.userProfilesViaJdbc()) {
+            repository.appendAll(events);
+        } else {
+            List<Map<String, Object>> rows = new ArrayList<>(events.size());
+            for (BalanceEvent e : events) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("user_id", e.userId());
+                row.put("delta", e.delta());
+                row.put("kind", e.kind());
+                row.put("ref", e.ref());
+                rows.add(row);
+            }
+            HttpHeaders headers = supabase.createSupabaseHeaders();
+            headers.set("Prefer", "return=minimal");
+            restTemplate.exchange(supabase.getSupabaseUrl() + "/rest/v1/balance_events",
+                HttpMethod.POST, new HttpEntity<>(rows, headers), String.class);
+        }
+        appended.increment(events.size());
+    }
+
+    private Optional<BalanceSnapshot> findSnapshot(UUID userId) {
+        if (backend.userProfilesViaJdbc()) {
+            return repository.findSnapshot(userId);
+        }
+        ResponseEntity<BalanceSnapshot[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/balance_snapshots?user_id=eq." + userId + "&select=" + BalanceSnapshot.COLUMNS,
+            HttpMethod.GET,
+            new HttpEntity<>(supabase.createSupabaseHeadersForFreshRead()),
+            BalanceSnapshot[].class
+        );
+        BalanceSnapshot[] rows = resp.getBody();
+        return rows != null && rows.length > 0 ? Optional.of(rows[0]) : Optional.empty();
+    }
+
+    private List<BalanceEvent> findTail(UUID userId, long afterEventId) {
+        if (backend.userProfilesViaJdbc()) {
+            return repository.findTail(userId, afterEventId);
+        }
+        ResponseEntity<BalanceEvent[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/balance_events?user_id=eq." + userId + "&id=gt." + afterEventId
+                + "&select=" + BalanceEvent.COLUMNS + "&order=id.asc",
+            HttpMethod.GET,
+            new HttpEntity<>(supabase.createSupabaseHeadersForFreshRead()),
+            BalanceEvent[].class
+        );
+        BalanceEvent[] rows = resp.getBody();
+        return rows != null ? Arrays.asList(rows) : List.of();
+    }
+
+    private List<BalanceEvent> findByRef(String kind, String ref) {
+        if (backend.userProfilesViaJdbc()) {
+            return repository.findByRef(kind, ref);
+        }
+        ResponseEntity<BalanceEvent[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/balance_events?kind=eq.{kind}&ref=eq.{ref}&select=" + BalanceEvent.COLUMNS,
+            HttpMethod.GET,
+            new HttpEntity<>(supabase.createSupabaseHeadersForFreshRead()),
+            BalanceEvent[].class,
+            kind, ref
+        );
+        BalanceEvent[] rows = resp.getBody();
+        return rows != null ? Arrays.asList(rows) : List.of();
+    }
+
+    private void saveSnapshot(BalanceSnapshot s) {
+        if (backend.userProfilesViaJdbc()) {
+            repository.saveSnapshot(s);
+            return;
+        }
+        Map<String, Object> row = new HashMap<>();
+        row.put("user_id", s.userId());
+        row.put("balance", s.balance());
+        row.put("last_event_id", s.lastEventId());
+        row.put("taken_at", OffsetDateTime.now().toString());
+
+        HttpHeaders headers = supabase.createSupabaseHeaders();
+        headers.set("Prefer", "resolution=merge-duplicates,return=minimal");
+        restTemplate.exchange(supabase.getSupabaseUrl() + "/rest/v1/balance_snapshots?on_conflict=user_id",
+            HttpMethod.POST, new HttpEntity<>(row, headers), String.class);
+    }
+}
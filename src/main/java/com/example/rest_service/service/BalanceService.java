@@ -0,0 +1,98 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.UserBalance;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The one way balances are read for play and changed: through the ledger when ledger.enabled=true,
+ * otherwise by reading user_profiles.obrobucks and writing back the new value as before.
+ * Every change runs in its user's BalanceExecutor lane, so a user's changes never interleave.
+ */
+@Service
+public class BalanceService {
+
+    private final BalanceLedger ledger;
+    private final UserProfileService userProfileService;
+    private final BalanceExecutor executor;
+
+    public BalanceService(BalanceLedger ledger, UserProfileService userProfileService, BalanceExecutor executor) {
+        this.ledger = ledger;
+        this.userProfileService = userProfileService;
+        this.executor = executor;
+    }
+
+    public boolean ledgerEnabled() {
+        return ledger.enabled();
+    }
+
+    public Optional<UserBalance> get(UUID userId) {
+        if (ledger.enabled()) {
+            return ledger.balance(userId).map(balance -> new UserBalance(userId, balance));
+        }
+        return userProfileService.getBalance(userId);
+    }
+
+    /**
+     * Add delta to a user's balance if it covers the stake first, e.g. a game's cost with delta
+     * winnings minus cost, or a bet's amount with delta minus the amount
+     */
+    public BalanceChange apply(UUID userId, int stake, int delta, String kind, String ref) {
+        return executor.submit(userId, () -> applyNow(userId, stake, delta, kind, ref));
+    }
+
+    /**
+     * Credit many users in one write, at most once per user and ref, so a retried payout pays only
+     * those the earlier attempt missed. Returns the amount credited under the ref to each user that
+     * exists, earlier attempts included.
+     */
+    public Map<UUID, Integer> credit(Map<UUID, Integer> credits, String kind, String ref) {
+        if (credits.isEmpty()) return Map.of();
+        return executor.forAll(credits.keySet(), () -> creditNow(credits, kind, ref));
+    }
+
+    /**
+     * Run some other change to a user's balance (e.g. the place_bet function) in the user's lane
+     */
+    public <T> T serialized(UUID userId, Supplier<T> operation) {
+        return executor.submit(userId, operation);
+    }
+
+    private BalanceChange applyNow(UUID userId, int stake, int delta, String kind, String ref) {
+        if (ledger.enabled()) {
+            return ledger.apply(userId, stake, delta, kind, ref);
+        }
+
+        // Never the cached profile: the new balance is written back whole
+        Optional<UserBalance> current = userProfileService.readBalance(userId);
+        if (current.isEmpty()) {
+            return new BalanceChange(BalanceChange.USER_NOT_FOUND, 0);
+        }
+        int balance = current.get().balance();
+        if (balance < stake || balance + delta < 0) {
+            return new BalanceChange(BalanceChange.INSUFFICIENT_FUNDS, balance);
+        }
+        UserBalance updated = userProfileService.setBalance(userId, balance + delta);
+        return new BalanceChange(BalanceChange.OK, updated.balance());
+    }
+
+    private Map<UUID, Integer> creditNow(Map<UUID, Integer> credits, String kind, String ref) {
+        if (ledger.enabled()) {
+            return ledger.creditAll(credits, kind, ref);
+        }
+
+        List<UserBalance> credited = userProfileService.creditBalances(credits, ref);
+        Map<UUID, Integer> amounts = new HashMap<>();
+        for (UserBalance balance : credited) {
+            if (credits.containsKey(balance.id())) amounts.put(balance.id(), credits.get(balance.id()));
+        }
+        return amounts;
+    }
+}
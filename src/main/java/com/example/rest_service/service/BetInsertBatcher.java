@@ -0,0 +1,212 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.repository.BetJdbcRepository;
+import com.example.rest_service.repository.DataBackend;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for bet inserts: placements queue up for at most betting.batch.linger (or until
+ * betting.batch.max-size are waiting) and are written as one bulk insert, a single round trip for
+ * the whole batch. Each caller blocks until the batch holding its bet is written, so a bet is never
+ * acknowledged before it is durable; a failed batch fails every caller in it.
+ *
+ * Off unless betting.batch.enabled=true. Metrics: betting.batch.size, betting.batch.flush,
+ * betting.batch.latency (enqueue to durable), betting.batch.queue.depth and betting.batch.rejected.
+ */
+@Component
+public class BetInsertBatcher {
+
+    private record Pending(Map<String, Object> row, long enqueuedAt, CompletableFuture<Bet> result) {}
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabase;
+    private final DataBackend backend;
+    private final BetJdbcRepository betRepository;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+    private final Timer latency;
+    private final Counter rejected;
+
+    public BetInsertBatcher(RestTemplate restTemplate,
+                            SupabaseConfig supabase,
+                            DataBackend backend,
+                            BetJdbcRepository betRepository,
+                            MeterRegistry registry,
+                            @Value("${betting.batch.enabled:false}") boolean enabled,
+                            @Value("${betting.batch.max-size:64}") int maxSize,
+                            @Value("${betting.batch.linger:5ms}") Duration linger,
+                            @Value("${betting.batch.queue-capacity:10000}") int queueCapacity,
+                            @Value("${betting.batch.writers:2}") int writerCount) {
+        this.restTemplate = restTemplate;
+        this.supabase = supabase;
+        this.backend = backend;
+        this.betRepository = betRepository;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.batchSize = DistributionSummary.builder("betting.batch.size")
+            .description("Bets written per bulk insert")
+            .register(registry);
+        this.flushTimer = Timer.builder("betting.batch.flush")
+            .description("Time to write one batch of bets")
+            .register(registry);
+        this.latency = Timer.builder("betting.batch.latency")
+            .description("Time from a bet being queued to its batch being written")
+            .register(registry);
+        this.rejected = Counter.builder("betting.batch.rejected")
+            .description("Bets refused because the intake queue was full")
+            .register(registry);
+        Gauge.builder("betting.batch.queue.depth", queue, BlockingQueue::size)
+            .description("Bets waiting to be written")
+            .register(registry);
+
+        if (enabled) {
+            for (int i = 0; i < writerCount; i++) {
+                writers.add(Thread.ofPlatform().daemon().name("bet-batch-writer-" + i).start(this::drain));
+            }
+            System.out.println(">>> Bet insert batching: max-size=" + maxSize + ", linger=" + linger
+                + ", queue-capacity=" + queueCapacity + ", writers=" + writerCount);
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a bet row and wait until the batch holding it has been written
+     */
+    public Bet insert(Map<String, Object> row) {
+        Pending pending = new Pending(row, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new RejectedExecutionException("Bet intake queue is full");
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Linger for company, but never past max-size
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxSize) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        queue.drainTo(batch, maxSize - batch.size());
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Never strand callers already taken off the queue
+                if (!batch.isEmpty()) flush(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Map<String, Object>> rows = new ArrayList<>(batch.size());
+        for (Pending p : batch) rows.add(p.row());
+
+        List<Bet> inserted;
+        long start = System.nanoTime();
+        try {
+            inserted = write(rows);
+            if (inserted.size() != rows.size()) {
+                throw new IllegalStateException("Bulk insert returned " + inserted.size() + " rows for " + rows.size() + " bets");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error writing batch of " + rows.size() + " bets: " + e.getMessage());
+            for (Pending p : batch) p.result().completeExceptionally(e);
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSize.record(rows.size());
+        }
+
+        // Both PostgREST and INSERT ... RETURNING give rows back in the order they were sent
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending p = batch.get(i);
+            latency.record(now - p.enqueuedAt(), TimeUnit.NANOSECONDS);
+            p.result().complete(inserted.get(i));
+        }
+    }
+
+    private List<Bet> write(List<Map<String, Object>> rows) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.insertAll(rows);
+        }
+        HttpHeaders headers = supabase.createSupabaseHeaders();
+        headers.set("Prefer", "return=representation");
+        ResponseEntity<Bet[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/bets", HttpMethod.POST, new HttpEntity<>(rows, headers), Bet[].class);
+        Bet[] body = resp.getBody();
+        return body != null ? Arrays.asList(body) : List.of();
+    }
+
+    /**
+     * Stop taking bets and write out whatever is still queued
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) writer.join(TimeUnit.SECONDS.toMillis(10));
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new RejectedExecutionException("Shutting down"));
+        }
+    }
+}
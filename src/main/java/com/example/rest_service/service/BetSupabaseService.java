@@ -0,0 +1,216 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.BetPlacement;
+import com.example.rest_service.repository.BetJdbcRepository;
+import com.example.rest_service.repository.DataBackend;
+import org.springframework.http.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.*;
+
+/**
+ * Access to the bets table, over PostgREST or JDBC depending on supabase.backend.bets.
+ */
+@Service
+public class BetSupabaseService {
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabase;
+    private final DataBackend backend;
+    private final BetJdbcRepository betRepository;
+    private final BettingPools pools;
+    private final BetInsertBatcher batcher;
+
+    public BetSupabaseService(RestTemplate restTemplate,
+                              SupabaseConfig supabase,
+                              DataBackend backend,
+                              BetJdbcRepository betRepository,
+                              BettingPools pools,
+                              BetInsertBatcher batcher) {
+        this.restTemplate = restTemplate;
+        this.supabase = supabase;
+        this.backend = backend;
+        this.betRepository = betRepository;
+        this.pools = pools;
+        this.batcher = batcher;
+    }
+
+    private HttpHeaders readHeaders() {
+        return supabase.createSupabaseHeaders();
+    }
+
+    private HttpHeaders writeHeaders() {
+        HttpHeaders h = supabase.createSupabaseHeaders();
+        h.set("Prefer", "return=representation");
+        return h;
+    }
+
+    private String base(String table) {
+        return supabase.getSupabaseUrl() + "/rest/v1/" + table;
+    }
+
+    private List<Bet> fetch(String query) {
+        ResponseEntity<Bet[]> resp = restTemplate.exchange(
+            base("bets") + query, HttpMethod.GET, new HttpEntity<>(readHeaders()), Bet[].class);
+        return Arrays.asList(Optional.ofNullable(resp.getBody()).orElse(new Bet[0]));
+    }
+
+    /**
+     * id, option_text and amount of every bet on a poll
+     */
+    public List<Map<String, Object>> findOptionAmounts(long pollId) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.findOptionAmounts(pollId);
+        }
+        String url = base("bets") + "?poll_id=eq." + pollId + "&select=id,option_text,amount";
+        ResponseEntity<List> resp = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), List.class);
+        List<Map<String, Object>> rows = resp.getBody();
+        return rows != null ? rows : new ArrayList<>();
+    }
+
+    /**
+     * Running per-option totals for a poll, seeded from the bets table on first use
+     */
+    public BettingPools.Pool pool(long pollId) {
+        return pools.get(pollId, this::findOptionAmounts);
+    }
+
+    public List<Bet> findByPoll(long pollId) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.findByPollId(pollId);
+        }
+        return fetch("?poll_id=eq." + pollId + "&select=*");
+    }
+
+    /**
+     * A user's whole bet history, newest first
+     */
+    public List<Bet> findByUser(String userId) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.findByUserId(UUID.fromString(userId));
+        }
+        return fetch("?user_id=eq." + userId + "&select=*&order=created_at.desc");
+    }
+
+    /**
+     * One keyset page of a user's bet history, newest first
+     */
+    public CursorPage<Bet> findByUserPage(String userId, PageCursor after, int limit) {
+        List<Bet> rows = backend.betsViaJdbc()
+            ? betRepository.findByUserIdPage(UUID.fromString(userId), after, limit + 1)
+            : fetch("?user_id=eq." + userId + "&select=*" + PageCursor.postgrestPage(after, limit));
+        return CursorPage.of(rows, limit, Bet::getCreatedAt, Bet::getId);
+    }
+
+    public List<Bet> findByUserAndPoll(String userId, long pollId) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.findByUserAndPoll(UUID.fromString(userId), pollId);
+        }
+        return fetch("?user_id=eq." + userId + "&poll_id=eq." + pollId + "&select=*");
+    }
+
+    public Optional<Bet> findFirstWinner(long pollId) {
+        if (backend.betsViaJdbc()) {
+            return betRepository.findFirstWinner(pollId);
+        }
+        return fetch("?poll_id=eq." + pollId + "&is_winner=eq.true&limit=1").stream().findFirst();
+    }
+
+    /**
+     * Insert one bet, through the group-commit batcher when betting.batch.enabled is on
+     */
+    public Bet insert(Map<String, Object> betData) {
+        Bet inserted;
+        if (batcher.enabled()) {
+            inserted = batcher.insert(betData);
+        } else if (backend.betsViaJdbc()) {
+            inserted = betRepository.insert(betData);
+        } else {
+            ResponseEntity<Bet[]> resp = restTemplate.exchange(
+                base("bets"), HttpMethod.POST, new HttpEntity<>(betData, writeHeaders()), Bet[].class);
+            Bet[] rows = resp.getBody();
+            inserted = rows != null && rows.length > 0 ? rows[0] : null;
+        }
+
+        pools.placed(((Number) betData.get("poll_id")).longValue(), inserted != null ? inserted.getId() : null,
+            (String) betData.get("option_text"), ((Number) betData.get("amount")).longValue());
+        return inserted;
+    }
+
+    /**
+     * Place a bet in one round trip through the place_bet SQL function, which checks the poll,
+     * option and balance and writes the debit, bet and pool total atomically
+     */
+    public BetPlacement place(UUID userId, long pollId, String optionText, int amount, double houseTake) {
+        BetPlacement placement;
+        if (backend.betsViaJdbc()) {
+            placement = betRepository.place(userId, pollId, optionText, amount, houseTake);
+        } else {
+            Map<String, Object> args = new HashMap<>();
+            args.put("p_user_id", userId);
+            args.put("p_poll_id", pollId);
+            args.put("p_option_text", optionText);
+            args.put("p_amount", amount);
+            args.put("p_house_take", houseTake);
+            ResponseEntity<BetPlacement[]> resp = restTemplate.exchange(
+                base("rpc/place_bet"), HttpMethod.POST, new HttpEntity<>(args, readHeaders()), BetPlacement[].class);
+            BetPlacement[] rows = resp.getBody();
+            if (rows == null || rows.length == 0) {
+                throw new IllegalStateException("place_bet returned no row");
+            }
+            placement = rows[0];
+        }
+
+        if (placement.ok()) {
+            pools.placed(pollId, placement.betId(), optionText, amount);
+        }
+        return placement;
+    }
+
+    /**
+     * Settle every bet on a poll at once: is_winner=true on the winning option, false on the rest
+     */
+    public void markOutcome(long pollId, String winningOption) {
+        if (backend.betsViaJdbc()) {
+            betRepository.updateOutcome(pollId, winningOption);
+            return;
+        }
+        patchWhere(pollId, "eq", winningOption, true);
+        patchWhere(pollId, "neq", winningOption, false);
+    }
+
+    private void patchWhere(long pollId, String operator, String optionText, boolean isWinner) {
+        // Encode the option as a value so characters like & or , cannot break out of the filter
+        URI uri = UriComponentsBuilder.fromHttpUrl(base("bets"))
+            .queryParam("poll_id", "eq.{pollId}")
+            .queryParam("option_text", operator + ".{option}")
+            .encode()
+            .buildAndExpand(pollId, optionText)
+            .toUri();
+        HttpHeaders headers = readHeaders();
+        headers.set("Prefer", "return=minimal");
+        restTemplate.exchange(uri, HttpMethod.PATCH, new HttpEntity<>(Map.of("is_winner", isWinner), headers), String.class);
+    }
+
+    public void markWinner(long betId, boolean isWinner) {
+        if (backend.betsViaJdbc()) {
+            betRepository.updateIsWinner(betId, isWinner);
+            return;
+        }
+        Map<String, Object> betUpdate = new HashMap<>();
+        betUpdate.put("is_winner", isWinner);
+        restTemplate.exchange(
+            base("bets") + "?id=eq." + betId,
+            HttpMethod.PATCH,
+            new HttpEntity<>(betUpdate, writeHeaders()),
+            String.class
+        );
+    }
+}
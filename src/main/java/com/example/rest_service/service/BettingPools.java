@@ -0,0 +1,128 @@
+package com.example.rest_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Running per-option totals and bet counts for each poll's betting pool, so stats are read in
+ * O(options) instead of re-summing every bet row.
+ *
+ * A pool is seeded from the bets table the first time it is asked for and then advanced by every
+ * placement this instance makes. It remembers the highest bet id it was seeded with, and a placed
+ * bet is only added to a pool seeded before it, so a bet is never counted twice however seeding
+ * and insert interleave. Pools expire after betting.pools.ttl and are re-seeded on the next read,
+ * which folds in bets placed by other instances and bounds any drift.
+ */
+@Component
+public class BettingPools {
+
+    /**
+     * One poll's pool. Options are added on first bet; totals use LongAdder so concurrent
+     * placements on a hot poll do not contend on one counter.
+     */
+    public static final class Pool {
+
+        private final Map<String, Tally> options = new ConcurrentHashMap<>();
+        private long seededThrough;
+
+        private record Tally(LongAdder amount, LongAdder count) {
+            Tally() {
+                this(new LongAdder(), new LongAdder());
+            }
+        }
+
+        public void add(String option, long amount) {
+            Tally tally = options.computeIfAbsent(option, o -> new Tally());
+            tally.amount().add(amount);
+            tally.count().increment();
+        }
+
+        /**
+         * Total staked per option, in first-bet order
+         */
+        public Map<String, Long> totals() {
+            Map<String, Long> totals = new LinkedHashMap<>();
+            options.forEach((option, tally) -> totals.put(option, tally.amount().sum()));
+            return totals;
+        }
+
+        public long betCount() {
+            long count = 0;
+            for (Tally tally : options.values()) count += tally.count().sum();
+            return count;
+        }
+    }
+
+    private final Cache<Long, Pool> pools;
+    // Bumped before any pool is dropped, so a seed read before the drop is not stored after it
+    private final AtomicLong drops = new AtomicLong();
+
+    public BettingPools(MeterRegistry registry,
+                        @Value("${betting.pools.max-polls:10000}") long maxPolls,
+                        @Value("${betting.pools.ttl:5m}") Duration ttl) {
+        this.pools = Caffeine.newBuilder()
+            .maximumSize(maxPolls)
+            .expireAfterWrite(ttl)
+            .build();
+        Gauge.builder("betting.pools.size", pools, Cache::estimatedSize)
+            .description("Polls with a seeded betting pool")
+            .register(registry);
+    }
+
+    /**
+     * The poll's pool, seeding it from (id, option_text, amount) rows if it is not held yet. The
+     * rows are read outside the cache's own compute, which holds a lock that would pin a virtual
+     * thread's carrier for the length of the read; two threads seeding the same poll keep the
+     * first pool stored.
+     */
+    public Pool get(long pollId, LongFunction<List<Map<String, Object>>> seedRows) {
+        Pool cached = pools.getIfPresent(pollId);
+        if (cached != null) return cached;
+
+        long dropsBefore = drops.get();
+        Pool seeded = new Pool();
+        for (Map<String, Object> row : seedRows.apply(pollId)) {
+            seeded.add((String) row.get("option_text"), ((Number) row.get("amount")).longValue());
+            seeded.seededThrough = Math.max(seeded.seededThrough, ((Number) row.get("id")).longValue());
+        }
+
+        // After a drop during the read the rows may miss a bet: answer with them but don't keep them
+        Pool stored = pools.asMap().compute(pollId, (id, current) ->
+            current != null ? current : drops.get() == dropsBefore ? seeded : null);
+        return stored != null ? stored : seeded;
+    }
+
+    /**
+     * Count a bet once it is stored, in whichever pool the poll has now. A pool whose seed already
+     * read the bet is left alone; without the bet's id there is no telling, so the pool is re-seeded.
+     */
+    public void placed(long pollId, Long betId, String option, long amount) {
+        if (betId == null) {
+            // Also stops a seed being read now from being stored
+            invalidate(pollId);
+            return;
+        }
+        Pool pool = pools.getIfPresent(pollId);
+        if (pool != null && betId > pool.seededThrough) {
+            pool.add(option, amount);
+        }
+    }
+
+    public void invalidate(long pollId) {
+        drops.incrementAndGet();
+        pools.invalidate(pollId);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.rest_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version numbers for the entities clients poll, bumped by the service layer on every write,
+ * from which the controllers derive strong ETags without fetching or serializing anything.
+ *
+ * Versions come from one process-wide counter and ETags carry a per-process epoch, so a tag
+ * is never reused for different content, even across restarts. A version also expires after
+ * etag.versions.ttl, which bounds how long a change made outside this instance can be answered
+ * with 304 (the same bound the profile and poll caches give).
+ */
+@Component
+public class EntityVersions {
+
+    public static final String POLLS = "polls";
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong counter = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    public EntityVersions(@Value("${etag.versions.max-size:100000}") long maxSize,
+                          @Value("${etag.versions.ttl:5m}") Duration ttl) {
+        this.versions = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    public static String poll(long id) {
+        return "poll:" + id;
+    }
+
+    public static String balance(UUID userId) {
+        return "balance:" + userId;
+    }
+
+    /**
+     * Current strong ETag for a key, quoted as it goes on the wire
+     */
+    public String etag(String key) {
+        long version = versions.get(key, k -> counter.incrementAndGet());
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * ETag for a derived view such as one page of a list; the suffix tells apart views of the same version
+     */
+    public String etag(String key, String view) {
+        String tag = etag(key);
+        return tag.substring(0, tag.length() - 1) + "-" + Integer.toHexString(view.hashCode()) + "\"";
+    }
+
+    public void bump(String key) {
+        versions.put(key, counter.incrementAndGet());
+    }
+
+    /**
+     * True when an If-None-Match header names the given ETag (or is *)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+}
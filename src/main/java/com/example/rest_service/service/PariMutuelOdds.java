@@ -0,0 +1,95 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.Bet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pari-mutuel odds: everything staked on a poll, less the house take, is shared among the bets on
+ * the winning option in proportion to their stakes.
+ *
+ * Quotes at placement are read from the live pools (no locking; the per-option LongAdders may be
+ * mid-update, which only nudges an estimate). Payouts are fixed at resolution from the final bet
+ * rows and rounded down; the remainders stay with the house. Payouts are worked out in exact decimal
+ * arithmetic, as place_bet.sql does in numeric, so a share that divides evenly is never a coin short.
+ */
+@Component
+public class PariMutuelOdds {
+
+    /**
+     * Decimal odds and the payout they imply, as quoted when a bet is placed
+     */
+    public record Quote(double odds, int potentialPayout) {}
+
+    /**
+     * Final pools of a resolved poll
+     */
+    public record Settlement(long totalPool, long winningPool) {}
+
+    private final double houseTake;
+
+    public PariMutuelOdds(@Value("${betting.house-take:0.05}") double houseTake) {
+        if (houseTake < 0 || houseTake >= 1) {
+            throw new IllegalArgumentException("betting.house-take must be in [0, 1), got " + houseTake);
+        }
+        this.houseTake = houseTake;
+    }
+
+    public double houseTake() {
+        return houseTake;
+    }
+
+    /**
+     * Decimal odds on an option: the net pool per unit staked on it (0 when nothing is staked)
+     */
+    public static double odds(long optionPool, long totalPool, double houseTake) {
+        return optionPool > 0 ? totalPool * (1 - houseTake) / optionPool : 0;
+    }
+
+    /**
+     * stake * totalPool * (1 - houseTake) / optionPool, rounded down (0 when nothing is staked)
+     */
+    public static int share(long stake, long totalPool, long optionPool, double houseTake) {
+        if (optionPool <= 0) return 0;
+        return BigDecimal.valueOf(stake)
+            .multiply(BigDecimal.valueOf(totalPool))
+            .multiply(BigDecimal.ONE.subtract(BigDecimal.valueOf(houseTake)))
+            .divide(BigDecimal.valueOf(optionPool), 0, RoundingMode.FLOOR)
+            .intValue();
+    }
+
+    /**
+     * Odds and payout for a new stake if the pools stayed as they are with it added
+     */
+    public Quote quote(Map<String, Long> totals, String option, int amount) {
+        long totalPool = amount;
+        for (long optionTotal : totals.values()) totalPool += optionTotal;
+        long optionPool = totals.getOrDefault(option, 0L) + amount;
+
+        double odds = odds(optionPool, totalPool, houseTake);
+        return new Quote(Math.round(odds * 100) / 100.0, share(amount, totalPool, optionPool, houseTake));
+    }
+
+    public Settlement settle(List<Bet> bets, String winningOption) {
+        long totalPool = 0;
+        long winningPool = 0;
+        for (Bet bet : bets) {
+            int amount = bet.getAmount() != null ? bet.getAmount() : 0;
+            totalPool += amount;
+            if (winningOption.equals(bet.getOptionText())) winningPool += amount;
+        }
+        return new Settlement(totalPool, winningPool);
+    }
+
+    /**
+     * What a winning stake returns, stake included
+     */
+    public int payout(int stake, Settlement settlement) {
+        return share(stake, settlement.totalPool(), settlement.winningPool(), houseTake);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.Poll;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * In-process catalog of fully assembled polls (options and creator username already joined),
+ * so a poll read on the betting path costs no upstream calls once the poll has been seen.
+ * PollSupabaseService drops an entry whenever it deletes the poll or changes its status;
+ * the TTL bounds staleness from changes made outside this instance.
+ *
+ * Metrics: cache.polls.requests{result=hit|miss}, cache.polls.size.
+ */
+@Component
+public class PollCatalog {
+
+    private final boolean enabled;
+    private final Cache<Long, Poll> polls;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PollCatalog(MeterRegistry registry,
+                       @Value("${cache.polls.enabled:true}") boolean enabled,
+                       @Value("${cache.polls.max-size:5000}") long maxSize,
+                       @Value("${cache.polls.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.polls = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.hits = Counter.builder("cache.polls.requests").tag("result", "hit")
+            .description("Poll reads answered from the catalog")
+            .register(registry);
+        this.misses = Counter.builder("cache.polls.requests").tag("result", "miss")
+            .description("Poll reads that were assembled from Supabase")
+            .register(registry);
+        Gauge.builder("cache.polls.size", polls, Cache::estimatedSize)
+            .register(registry);
+    }
+
+    public Optional<Poll> get(long id, LongFunction<Optional<Poll>> loader) {
+        if (!enabled) return loader.apply(id);
+        Poll cached = polls.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(new Poll(cached));
+        }
+        misses.increment();
+        Optional<Poll> loaded = loader.apply(id);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    /**
+     * Cached copy if present, without assembling it on a miss
+     */
+    public Optional<Poll> peek(long id) {
+        if (!enabled) return Optional.empty();
+        Poll cached = polls.getIfPresent(id);
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(new Poll(cached));
+    }
+
+    /**
+     * Store a poll that has already been assembled, e.g. the one create() returns
+     */
+    public void put(Poll poll) {
+        if (enabled && poll != null && poll.getId() != null) {
+            polls.put(poll.getId(), new Poll(poll));
+        }
+    }
+
+    /**
+     * Keep a cached poll's running total in step with the write just made, without dropping it
+     */
+    public void updateTotalBets(long id, int totalBets) {
+        if (!enabled) return;
+        polls.asMap().computeIfPresent(id, (key, poll) -> {
+            Poll updated = new Poll(poll);
+            updated.setTotal_bets(totalBets);
+            return updated;
+        });
+    }
+
+    public void invalidate(long id) {
+        if (enabled) polls.invalidate(id);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.model.PollResolution;
+import com.example.rest_service.model.PollStatus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Poll resolution as a background job, in a fixed number of round trips however many bets there are:
+ * the claim on the poll, the status change closing it, one read of the poll's bets, two set-based
+ * updates marking them won and lost, one bulk credit of each winner's summed payout, and the
+ * poll_resolutions record.
+ *
+ * At most one job runs per poll. The claim is a conditional insert of the poll's poll_resolutions
+ * row in the resolving state, made before anything else: a poll already resolved is refused, and
+ * one whose earlier job failed part-way can be resubmitted with the same option to finish it.
+ * Every later step is safe to repeat; in particular payouts are made once per user and poll
+ * (ref poll:N), so a retry pays only the winners the failed attempt had not reached.
+ * Finished jobs stay readable for resolution.jobs.retention.
+ */
+@Component
+public class PollResolutionJobs {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * One resolution: its state, the step it is on and running totals
+     */
+    public static final class Job {
+
+        private final String id = UUID.randomUUID().toString();
+        private final long pollId;
+        private final String winningOption;
+        private final OffsetDateTime createdAt = OffsetDateTime.now();
+
+        private volatile State state = State.QUEUED;
+        private volatile String phase = "queued";
+        private volatile int totalBets;
+        private volatile int winnersCount;
+        private volatile int usersCredited;
+        private volatile long totalPool;
+        private volatile long totalPaidOut;
+        private volatile String error;
+        private volatile OffsetDateTime finishedAt;
+
+        Job(long pollId, String winningOption) {
+            this.pollId = pollId;
+            this.winningOption = winningOption;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public long pollId() {
+            return pollId;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public boolean finished() {
+            return state == State.SUCCEEDED || state == State.FAILED;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("jobId", id);
+            m.put("pollId", pollId);
+            m.put("winningOption", winningOption);
+            m.put("state", state.name());
+            m.put("phase", phase);
+            m.put("totalBets", totalBets);
+            m.put("winnersCount", winnersCount);
+            m.put("usersCredited", usersCredited);
+            m.put("totalPool", totalPool);
+            m.put("totalPaidOut", totalPaidOut);
+            m.put("createdAt", createdAt.toString());
+            m.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            m.put("error", error);
+            return m;
+        }
+    }
+
+    private final PollSupabaseService pollService;
+    private final BetSupabaseService betService;
+    private final BalanceService balances;
+    private final PariMutuelOdds odds;
+    private final PollResolutionStore records;
+
+    private final Cache<String, Job> jobs;
+    private final Map<Long, Job> active = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PollResolutionJobs(PollSupabaseService pollService,
+                              BetSupabaseService betService,
+                              BalanceService balances,
+                              PariMutuelOdds odds,
+                              PollResolutionStore records,
+                              @Value("${resolution.jobs.retention:1h}") Duration retention) {
+        this.pollService = pollService;
+        this.betService = betService;
+        this.balances = balances;
+        this.odds = odds;
+        this.records = records;
+        this.jobs = Caffeine.newBuilder()
+            .expireAfterWrite(retention)
+            .build();
+    }
+
+    /**
+     * Start resolving a poll, or return the job already resolving it
+     */
+    public Job submit(long pollId, String winningOption) {
+        Job job = new Job(pollId, winningOption);
+        Job running = active.putIfAbsent(pollId, job);
+        if (running != null) {
+            return running;
+        }
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job));
+        return job;
+    }
+
+    public Optional<Job> get(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    private void run(Job job) {
+        job.state = State.RUNNING;
+        try {
+            job.phase = "claiming poll";
+            PollResolution claim = records.claim(job.pollId, job.winningOption);
+            if (claim.resolved()) {
+                throw new IllegalStateException("Poll " + job.pollId + " is already resolved");
+            }
+            if (!job.winningOption.equals(claim.winningOption())) {
+                throw new IllegalStateException("Poll " + job.pollId + " is already being resolved with option " + claim.winningOption());
+            }
+
+            // Closed before the bets are read, so no bet can arrive after the payouts are worked out
+            job.phase = "closing poll";
+            pollService.updateStatus(job.pollId, PollStatus.CLOSED);
+
+            job.phase = "reading bets";
+            List<Bet> bets = betService.findByPoll(job.pollId);
+            PariMutuelOdds.Settlement settlement = odds.settle(bets, job.winningOption);
+            job.totalBets = bets.size();
+            job.totalPool = settlement.totalPool();
+
+            // One credit per user, however many winning bets they hold
+            Map<UUID, Integer> credits = new HashMap<>();
+            int winners = 0;
+            for (Bet bet : bets) {
+                if (!job.winningOption.equals(bet.getOptionText()) || bet.getAmount() == null) continue;
+                winners++;
+                int payout = odds.payout(bet.getAmount(), settlement);
+                if (payout > 0) credits.merge(bet.getUserId(), payout, Integer::sum);
+            }
+            job.winnersCount = winners;
+
+            job.phase = "marking bets";
+            betService.markOutcome(job.pollId, job.winningOption);
+
+            job.phase = "crediting winners";
+            Map<UUID, Integer> credited = balances.credit(credits, BalanceEvent.PAYOUT, "poll:" + job.pollId);
+            long paid = 0;
+            for (int amount : credited.values()) paid += amount;
+            job.usersCredited = credited.size();
+            job.totalPaidOut = paid;
+
+            job.phase = "recording result";
+            PollResolution resolution = new PollResolution(job.pollId, job.winningOption, job.winnersCount,
+                job.totalPool, job.totalPaidOut, OffsetDateTime.now(), PollResolution.RESOLVED);
+            records.save(resolution);
+            records.publish(resolution);
+
+            job.phase = "done";
+            job.state = State.SUCCEEDED;
+            System.out.println("Poll resolved successfully: " + job.toMap());
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.state = State.FAILED;
+            System.err.println("Error resolving poll " + job.pollId + " during " + job.phase + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            job.finishedAt = OffsetDateTime.now();
+            active.remove(job.pollId, job);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.model.PollResolution;
+import com.example.rest_service.repository.DataBackend;
+import com.example.rest_service.repository.PollResolutionJdbcRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolution records of closed polls: persisted to poll_resolutions (over the polls table's
+ * backend) and held in memory, so a winner lookup is a map read. The same table holds the claim a
+ * resolution job takes on its poll, a row in the resolving state that lookups here do not return.
+ *
+ * A resolution never changes once its poll is closed, so entries need no TTL; the map is only
+ * bounded by resolution.records.max-size, and an evicted or pre-restart record is reloaded from
+ * the table on its next lookup.
+ */
+@Component
+public class PollResolutionStore {
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabase;
+    private final DataBackend backend;
+    private final PollResolutionJdbcRepository repository;
+    private final Cache<Long, PollResolution> records;
+
+    public PollResolutionStore(RestTemplate restTemplate,
+                               SupabaseConfig supabase,
+                               DataBackend backend,
+                               PollResolutionJdbcRepository repository,
+                               MeterRegistry registry,
+                               @Value("${resolution.records.max-size:100000}") long maxSize) {
+        this.restTemplate = restTemplate;
+        this.supabase = supabase;
+        this.backend = backend;
+        this.repository = repository;
+        this.records = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .build();
+        Gauge.builder("resolution.records.size", records, Cache::estimatedSize)
+            .description("Resolved polls held in memory")
+            .register(registry);
+    }
+
+    /**
+     * The in-memory record only, for the hot path
+     */
+    public Optional<PollResolution> peek(long pollId) {
+        return Optional.ofNullable(records.getIfPresent(pollId));
+    }
+
+    /**
+     * The record from memory, or from the table for a closed poll not held yet
+     */
+    public Optional<PollResolution> find(long pollId) {
+        PollResolution cached = records.getIfPresent(pollId);
+        if (cached != null) return Optional.of(cached);
+
+        Optional<PollResolution> loaded = fetch(pollId).filter(PollResolution::resolved);
+        loaded.ifPresent(r -> records.put(pollId, r));
+        return loaded;
+    }
+
+    /**
+     * The claim of a resolution that started but has not finished, if the poll has one
+     */
+    public Optional<PollResolution> unfinished(long pollId) {
+        return fetch(pollId).filter(r -> !r.resolved());
+    }
+
+    /**
+     * Claim a poll for resolution with the given option: one conditional insert of its row in the
+     * resolving state. Returns the row the poll has afterwards, which is someone else's claim or a
+     * finished resolution when the insert found one there.
+     */
+    public PollResolution claim(long pollId, String winningOption) {
+        PollResolution claim = new PollResolution(pollId, winningOption, 0, 0L, 0L, OffsetDateTime.now(),
+            PollResolution.RESOLVING);
+        if (backend.pollsViaJdbc()) {
+            return repository.insertIfAbsent(claim);
+        }
+        HttpHeaders headers = supabase.createSupabaseHeaders();
+        headers.set("Prefer", "resolution=ignore-duplicates,return=representation");
+        ResponseEntity<PollResolution[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/poll_resolutions?on_conflict=poll_id&select=" + PollResolution.COLUMNS,
+            HttpMethod.POST,
+            new HttpEntity<>(row(claim), headers),
+            PollResolution[].class
+        );
+        PollResolution[] inserted = resp.getBody();
+        if (inserted != null && inserted.length > 0) return inserted[0];
+        return fetch(pollId).orElseThrow(() -> new IllegalStateException("No poll_resolutions row for poll " + pollId));
+    }
+
+    /**
+     * Write a poll's record over its claim. Held in memory only once publish() is called.
+     */
+    public void save(PollResolution resolution) {
+        if (backend.pollsViaJdbc()) {
+            repository.upsert(resolution);
+            return;
+        }
+        HttpHeaders headers = supabase.createSupabaseHeaders();
+        headers.set("Prefer", "resolution=merge-duplicates,return=minimal");
+        restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/poll_resolutions?on_conflict=poll_id",
+            HttpMethod.POST,
+            new HttpEntity<>(row(resolution), headers),
+            String.class
+        );
+    }
+
+    /**
+     * The shared RestTemplate writes dates as epoch numbers, which timestamptz rejects
+     */
+    private static Map<String, Object> row(PollResolution resolution) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("poll_id", resolution.pollId());
+        row.put("winning_option", resolution.winningOption());
+        row.put("winners_count", resolution.winnersCount());
+        row.put("total_pool", resolution.totalPool());
+        row.put("total_paid_out", resolution.totalPaidOut());
+        row.put("resolved_at", resolution.resolvedAt().toString());
+        row.put("state", resolution.state());
+        return row;
+    }
+
+    public void publish(PollResolution resolution) {
+        records.put(resolution.pollId(), resolution);
+    }
+
+    public void forget(long pollId) {
+        records.invalidate(pollId);
+    }
+
+    private Optional<PollResolution> fetch(long pollId) {
+        if (backend.pollsViaJdbc()) {
+            return repository.findByPollId(pollId);
+        }
+        ResponseEntity<PollResolution[]> resp = restTemplate.exchange(
+            supabase.getSupabaseUrl() + "/rest/v1/poll_resolutions?poll_id=eq." + pollId + "&select=" + PollResolution.COLUMNS,
+            HttpMethod.GET,
+            new HttpEntity<>(supabase.createSupabaseHeaders()),
+            PollResolution[].class
+        );
+        PollResolution[] rows = resp.getBody();
+        return rows != null && rows.length > 0 ? Optional.of(rows[0]) : Optional.empty();
+    }
+}
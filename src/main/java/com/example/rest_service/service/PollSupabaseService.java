@@ -1,8 +1,14 @@
 package com.example.rest_service.service;
 
 import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
 import com.example.rest_service.model.Poll;
 import com.example.rest_service.model.PollStatus;
+import com.example.rest_service.repository.DataBackend;
+import com.example.rest_service.repository.PollJdbcRepository;
+import com.example.rest_service.repository.PollOptionJdbcRepository;
+import com.example.rest_service.repository.UserProfileJdbcRepository;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
@@ -15,12 +21,34 @@ import java.util.stream.Collectors;
 @Service
 public class PollSupabaseService {
 
+    // Ids per id=in.() read, keeping request URLs well under proxy limits
+    private static final int SUMMARY_BATCH = 500;
+
     private final RestTemplate restTemplate;
     private final SupabaseConfig supabase;
-
-    public PollSupabaseService(RestTemplate restTemplate, SupabaseConfig supabase) {
+    private final DataBackend backend;
+    private final PollJdbcRepository pollRepository;
+    private final PollOptionJdbcRepository optionRepository;
+    private final UserProfileJdbcRepository userRepository;
+    private final PollCatalog catalog;
+    private final EntityVersions versions;
+
+    public PollSupabaseService(RestTemplate restTemplate,
+                               SupabaseConfig supabase,
+                               DataBackend backend,
+                               PollJdbcRepository pollRepository,
+                               PollOptionJdbcRepository optionRepository,
+                               UserProfileJdbcRepository userRepository,
+                               PollCatalog catalog,
+                               EntityVersions versions) {
         this.restTemplate = restTemplate;
         this.supabase = supabase;
+        this.backend = backend;
+        this.pollRepository = pollRepository;
+        this.optionRepository = optionRepository;
+        this.userRepository = userRepository;
+        this.catalog = catalog;
+        this.versions = versions;
     }
 
     private HttpHeaders readHeaders() {
@@ -38,6 +66,9 @@ public class PollSupabaseService {
     }
 
     private List<String> fetchOptions(long pollId) {
+        if (backend.pollOptionsViaJdbc()) {
+            return optionRepository.findTextsByPollId(pollId);
+        }
         String url = base("poll_options") + "?poll_id=eq." + pollId + "&select=option_text";
         ResponseEntity<List> resp = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), List.class);
         List<Map<String,Object>> rows = resp.getBody();
@@ -47,6 +78,9 @@ public class PollSupabaseService {
 
     private Map<Long, List<String>> fetchOptionsForIds(List<Long> ids) {
         if (ids.isEmpty()) return Map.of();
+        if (backend.pollOptionsViaJdbc()) {
+            return optionRepository.findTextsByPollIds(ids);
+        }
         String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
         String url = base("poll_options") + "?poll_id=in.(" + in + ")&select=poll_id,option_text";
         ResponseEntity<List> resp = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), List.class);
@@ -65,6 +99,15 @@ public class PollSupabaseService {
     private Map<String, String> fetchUsernames(List<String> userIds) {
     if (userIds.isEmpty()) return Map.of();
     
+    if (backend.userProfilesViaJdbc()) {
+        try {
+            return userRepository.findUsernames(userIds);
+        } catch (Exception e) {
+            System.err.println("Error fetching usernames: " + e.getMessage());
+            return Map.of();
+        }
+    }
+    
     String in = userIds.stream()
         .map(id -> "\"" + id + "\"")
         .collect(Collectors.joining(","));
@@ -97,7 +140,11 @@ public class PollSupabaseService {
     }
 }
 
-    public List<Poll> list() {
+    private List<Poll> fetchPolls() {
+        if (backend.pollsViaJdbc()) {
+            return pollRepository.findAll();
+        }
+
         String url = base("polls")
             + "?select=id,question,status,category,total_bets,created_at,ends_at,created_by"
             + "&order=created_at.desc";
@@ -105,10 +152,78 @@ public class PollSupabaseService {
         ResponseEntity<Poll[]> resp =
             restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), Poll[].class);
 
-        List<Poll> polls = Arrays.asList(
+        return Arrays.asList(
+            Optional.ofNullable(resp.getBody()).orElse(new Poll[0])
+        );
+    }
+
+    private List<Poll> fetchPollPage(PageCursor after, int limit) {
+        if (backend.pollsViaJdbc()) {
+            return pollRepository.findPage(after, limit + 1);
+        }
+
+        String url = base("polls")
+            + "?select=id,question,status,category,total_bets,created_at,ends_at,created_by"
+            + PageCursor.postgrestPage(after, limit);
+
+        ResponseEntity<Poll[]> resp =
+            restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), Poll[].class);
+
+        return Arrays.asList(
             Optional.ofNullable(resp.getBody()).orElse(new Poll[0])
         );
+    }
+
+    private Optional<Poll> fetchPoll(long id) {
+        if (backend.pollsViaJdbc()) {
+            return pollRepository.findById(id);
+        }
+
+        String url = base("polls")
+            + "?id=eq." + id
+            + "&select=id,question,status,category,total_bets,created_at,ends_at,created_by";
+
+        ResponseEntity<Poll[]> resp =
+            restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), Poll[].class);
+
+        Poll[] arr = resp.getBody();
+        if (arr == null || arr.length == 0) return Optional.empty();
+        return Optional.of(arr[0]);
+    }
+
+    /**
+     * The poll's stored status, read past the catalog and never shared with another read, for
+     * checks that gate a write
+     */
+    public Optional<PollStatus> currentStatus(long id) {
+        if (backend.pollsViaJdbc()) {
+            return pollRepository.findById(id).map(Poll::getStatus);
+        }
+
+        String url = base("polls") + "?id=eq." + id + "&select=id,status";
+
+        ResponseEntity<Poll[]> resp = restTemplate.exchange(
+            url, HttpMethod.GET, new HttpEntity<>(supabase.createSupabaseHeadersForFreshRead()), Poll[].class);
+
+        Poll[] arr = resp.getBody();
+        if (arr == null || arr.length == 0) return Optional.empty();
+        return Optional.ofNullable(arr[0].getStatus());
+    }
 
+    public List<Poll> list() {
+        return enrich(fetchPolls());
+    }
+
+    /**
+     * One keyset page of polls, newest first
+     */
+    public CursorPage<Poll> listPage(PageCursor after, int limit) {
+        CursorPage<Poll> page = CursorPage.of(fetchPollPage(after, limit), limit, Poll::getCreated_at, Poll::getId);
+        enrich(page.items());
+        return page;
+    }
+
+    private List<Poll> enrich(List<Poll> polls) {
         // Fetch options
         Map<Long, List<String>> options =
             fetchOptionsForIds(polls.stream().map(Poll::getId).filter(Objects::nonNull).toList());
@@ -138,18 +253,53 @@ public class PollSupabaseService {
         return polls;
     }
 
+    /**
+     * A poll with its options and creator username, from the catalog when it has been seen recently
+     */
     public Optional<Poll> get(long id) {
-        String url = base("polls")
-            + "?id=eq." + id
-            + "&select=id,question,status,category,total_bets,created_at,ends_at,created_by";
+        return catalog.get(id, this::assemble);
+    }
 
+    /**
+     * Question, status and end time for many polls: catalog hits, then one id=in.() read per
+     * SUMMARY_BATCH of the rest. Polls that do not exist are left out of the map.
+     */
+    public Map<Long, Poll> summaries(Collection<Long> ids) {
+        Map<Long, Poll> out = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) continue;
+            Optional<Poll> cached = catalog.peek(id);
+            if (cached.isPresent()) {
+                out.put(id, cached.get());
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int i = 0; i < missing.size(); i += SUMMARY_BATCH) {
+            for (Poll p : fetchSummaries(missing.subList(i, Math.min(i + SUMMARY_BATCH, missing.size())))) {
+                out.put(p.getId(), p);
+            }
+        }
+        return out;
+    }
+
+    private List<Poll> fetchSummaries(List<Long> ids) {
+        if (backend.pollsViaJdbc()) {
+            return pollRepository.findByIds(ids);
+        }
+        String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        String url = base("polls") + "?id=in.(" + in + ")&select=" + Poll.SUMMARY_COLUMNS;
         ResponseEntity<Poll[]> resp =
             restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(readHeaders()), Poll[].class);
+        return Arrays.asList(Optional.ofNullable(resp.getBody()).orElse(new Poll[0]));
+    }
 
-        Poll[] arr = resp.getBody();
-        if (arr == null || arr.length == 0) return Optional.empty();
+    private Optional<Poll> assemble(long id) {
+        Optional<Poll> found = fetchPoll(id);
+        if (found.isEmpty()) return Optional.empty();
 
-        Poll p = arr[0];
+        Poll p = found.get();
         p.setOptions(fetchOptions(id));
         
         // Fetch username for creator
@@ -190,16 +340,21 @@ public class PollSupabaseService {
         }
         payload.put("created_by", createdBy);
 
-        HttpEntity<Object> entity = new HttpEntity<>(payload, writeHeaders());
-
-        ResponseEntity<Poll[]> insertResp = restTemplate.exchange(
-                base("polls"),
-                HttpMethod.POST,
-                entity,
-                Poll[].class
-        );
+        Poll[] inserted;
+        if (backend.pollsViaJdbc()) {
+            inserted = new Poll[]{ pollRepository.insert(payload) };
+        } else {
+            HttpEntity<Object> entity = new HttpEntity<>(payload, writeHeaders());
+
+            ResponseEntity<Poll[]> insertResp = restTemplate.exchange(
+                    base("polls"),
+                    HttpMethod.POST,
+                    entity,
+                    Poll[].class
+            );
+            inserted = insertResp.getBody();
+        }
 
-        Poll[] inserted = insertResp.getBody();
         if (inserted == null || inserted.length == 0 || inserted[0].getId() == null) {
             throw new RuntimeException("Failed to insert poll");
         }
@@ -208,15 +363,19 @@ public class PollSupabaseService {
 
         try {
             // insert poll options
-            List<Map<String,Object>> optionRows = options.stream().map(txt -> {
-                Map<String,Object> row = new HashMap<>();
-                row.put("poll_id", pollId);
-                row.put("option_text", txt);
-                return row;
-            }).toList();
-
-            HttpEntity<Object> optEntity = new HttpEntity<>(optionRows, writeHeaders());
-            restTemplate.exchange(base("poll_options"), HttpMethod.POST, optEntity, String.class);
+            if (backend.pollOptionsViaJdbc()) {
+                optionRepository.insertAll(pollId, options);
+            } else {
+                List<Map<String,Object>> optionRows = options.stream().map(txt -> {
+                    Map<String,Object> row = new HashMap<>();
+                    row.put("poll_id", pollId);
+                    row.put("option_text", txt);
+                    return row;
+                }).toList();
+
+                HttpEntity<Object> optEntity = new HttpEntity<>(optionRows, writeHeaders());
+                restTemplate.exchange(base("poll_options"), HttpMethod.POST, optEntity, String.class);
+            }
 
             Poll created = inserted[0];
             created.setOptions(new ArrayList<>(options));
@@ -229,37 +388,108 @@ public class PollSupabaseService {
                     created.setCreatedByUsername(username);
                 }
             }
-            
+
+            catalog.put(created);
+            versions.bump(EntityVersions.POLLS);
             return created;
 
         } catch (Exception e) {
             try {
+                if (backend.pollsViaJdbc()) {
+                    pollRepository.deleteById(pollId);
+                } else {
+                    restTemplate.exchange(
+                            base("polls") + "?id=eq." + pollId,
+                            HttpMethod.DELETE,
+                            new HttpEntity<>(readHeaders()),
+                            String.class
+                    );
+                }
+            } catch (Exception ignored) {}
+            throw e;
+        }
+    }
+
+    public boolean delete(long id) {
+        try {
+            // delete options first
+            if (backend.pollOptionsViaJdbc()) {
+                optionRepository.deleteByPollId(id);
+            } else {
                 restTemplate.exchange(
-                        base("polls") + "?id=eq." + pollId,
+                        base("poll_options") + "?poll_id=eq." + id,
                         HttpMethod.DELETE,
                         new HttpEntity<>(readHeaders()),
                         String.class
                 );
-            } catch (Exception ignored) {}
-            throw e;
+            }
+
+            if (backend.pollsViaJdbc()) {
+                pollRepository.deleteById(id);
+                return true;
+            }
+
+            ResponseEntity<String> resp = restTemplate.exchange(
+                    base("polls") + "?id=eq." + id,
+                    HttpMethod.DELETE,
+                    new HttpEntity<>(readHeaders()),
+                    String.class
+            );
+            return resp.getStatusCode().is2xxSuccessful();
+        } finally {
+            catalog.invalidate(id);
+            changed(id);
         }
     }
 
-    public boolean delete(long id) {
-        // delete options first
-        restTemplate.exchange(
-                base("poll_options") + "?poll_id=eq." + id,
-                HttpMethod.DELETE,
-                new HttpEntity<>(readHeaders()),
-                String.class
-        );
+    public void updateTotalBets(long id, int totalBets) {
+        if (backend.pollsViaJdbc()) {
+            pollRepository.updateTotalBets(id, totalBets);
+        } else {
+            patch(id, Map.of("total_bets", totalBets));
+        }
+        catalog.updateTotalBets(id, totalBets);
+        changed(id);
+    }
 
-        ResponseEntity<String> resp = restTemplate.exchange(
+    /**
+     * total_bets was changed server-side (e.g. by place_bet): patch the catalog and ETags to match
+     */
+    public void totalBetsChanged(long id, int totalBets) {
+        catalog.updateTotalBets(id, totalBets);
+        changed(id);
+    }
+
+    /**
+     * Change a poll's status (including closing it on resolution) and drop it from the catalog
+     */
+    public void updateStatus(long id, PollStatus status) {
+        try {
+            if (backend.pollsViaJdbc()) {
+                pollRepository.updateStatus(id, status);
+                return;
+            }
+            patch(id, Map.of("status", status.name()));
+        } finally {
+            catalog.invalidate(id);
+            changed(id);
+        }
+    }
+
+    /**
+     * A poll changed: its own ETag and every poll list ETag are now stale
+     */
+    private void changed(long id) {
+        versions.bump(EntityVersions.poll(id));
+        versions.bump(EntityVersions.POLLS);
+    }
+
+    private void patch(long id, Map<String, Object> changes) {
+        restTemplate.exchange(
                 base("polls") + "?id=eq." + id,
-                HttpMethod.DELETE,
-                new HttpEntity<>(readHeaders()),
+                HttpMethod.PATCH,
+                new HttpEntity<>(changes, writeHeaders()),
                 String.class
         );
-        return resp.getStatusCode().is2xxSuccessful();
     }
 }
\ No newline at end of file
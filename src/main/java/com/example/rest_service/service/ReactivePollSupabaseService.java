@@ -0,0 +1,258 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.Poll;
+import com.example.rest_service.model.PollStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link PollSupabaseService}, backed by WebClient.
+ */
+@Service
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class ReactivePollSupabaseService {
+
+    // Ids per id=in.() read, keeping request URLs well under proxy limits
+    private static final int SUMMARY_BATCH = 500;
+    private static final String POLL_COLUMNS = "id,question,status,category,total_bets,created_at,ends_at,created_by";
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> ROWS =
+        new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final SupabaseConfig supabase;
+
+    public ReactivePollSupabaseService(WebClient supabaseWebClient, SupabaseConfig supabase) {
+        this.webClient = supabaseWebClient;
+        this.supabase = supabase;
+    }
+
+    private void readHeaders(HttpHeaders h) {
+        h.addAll(supabase.createSupabaseHeaders());
+    }
+
+    private void writeHeaders(HttpHeaders h) {
+        h.addAll(supabase.createSupabaseHeaders());
+        h.set("Prefer", "return=representation");
+    }
+
+    private Mono<List<Map<String, Object>>> getRows(String uri) {
+        return webClient.get().uri(uri).headers(this::readHeaders)
+            .retrieve()
+            .bodyToMono(ROWS)
+            .defaultIfEmpty(List.of());
+    }
+
+    private Mono<List<String>> fetchOptions(long pollId) {
+        return getRows("/poll_options?poll_id=eq." + pollId + "&select=option_text")
+            .map(rows -> rows.stream().map(m -> String.valueOf(m.get("option_text"))).collect(Collectors.toList()));
+    }
+
+    private Mono<Map<Long, List<String>>> fetchOptionsForIds(List<Long> ids) {
+        if (ids.isEmpty()) return Mono.just(Map.of());
+        String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return getRows("/poll_options?poll_id=in.(" + in + ")&select=poll_id,option_text")
+            .map(rows -> {
+                Map<Long, List<String>> out = new HashMap<>();
+                for (Map<String, Object> r : rows) {
+                    Long pid = ((Number) r.get("poll_id")).longValue();
+                    out.computeIfAbsent(pid, k -> new ArrayList<>()).add(String.valueOf(r.get("option_text")));
+                }
+                return out;
+            });
+    }
+
+    private Mono<Map<String, String>> fetchUsernames(List<String> userIds) {
+        if (userIds.isEmpty()) return Mono.just(Map.of());
+        String in = userIds.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(","));
+        return getRows("/user_profiles?id=in.(" + in + ")&select=id,username")
+            .map(rows -> {
+                Map<String, String> usernameMap = new HashMap<>();
+                for (Map<String, Object> r : rows) {
+                    usernameMap.put(String.valueOf(r.get("id")), String.valueOf(r.get("username")));
+                }
+                return usernameMap;
+            })
+            .onErrorResume(e -> {
+                System.err.println("Error fetching usernames: " + e.getMessage());
+                return Mono.just(Map.of());
+            });
+    }
+
+    private static void applyUsername(Poll p, Map<String, String> usernames) {
+        if (p.getCreatedBy() == null) return;
+        String username = usernames.get(p.getCreatedBy().toString());
+        if (username != null && !username.equals("null")) {
+            p.setCreatedByUsername(username);
+        }
+    }
+
+    private Mono<Poll> withCreatorUsername(Poll p) {
+        if (p.getCreatedBy() == null) return Mono.just(p);
+        return fetchUsernames(List.of(p.getCreatedBy().toString()))
+            .map(usernames -> {
+                applyUsername(p, usernames);
+                return p;
+            });
+    }
+
+    public Mono<List<Poll>> list() {
+        return webClient.get()
+            .uri("/polls?select=" + POLL_COLUMNS + "&order=created_at.desc")
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(Poll.class)
+            .collectList()
+            .flatMap(this::enrich);
+    }
+
+    /**
+     * One keyset page of polls, newest first
+     */
+    public Mono<CursorPage<Poll>> listPage(PageCursor after, int limit) {
+        return webClient.get()
+            .uri("/polls?select=" + POLL_COLUMNS + PageCursor.postgrestPage(after, limit))
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(Poll.class)
+            .collectList()
+            .map(rows -> CursorPage.of(rows, limit, Poll::getCreated_at, Poll::getId))
+            .flatMap(page -> enrich(page.items()).thenReturn(page));
+    }
+
+    private Mono<List<Poll>> enrich(List<Poll> polls) {
+        List<Long> ids = polls.stream().map(Poll::getId).filter(Objects::nonNull).toList();
+        List<String> creatorIds = polls.stream()
+            .map(Poll::getCreatedBy)
+            .filter(Objects::nonNull)
+            .map(UUID::toString)
+            .distinct()
+            .collect(Collectors.toList());
+
+        // Options and creator usernames are independent, so fetch them concurrently
+        return Mono.zip(fetchOptionsForIds(ids), fetchUsernames(creatorIds))
+            .map(t -> {
+                for (Poll p : polls) {
+                    p.setOptions(t.getT1().getOrDefault(p.getId(), List.of()));
+                    applyUsername(p, t.getT2());
+                }
+                return polls;
+            });
+    }
+
+    /**
+     * Question, status and end time for many polls, one id=in.() read per SUMMARY_BATCH ids;
+     * missing polls are left out
+     */
+    public Mono<Map<Long, Poll>> summaries(Collection<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += SUMMARY_BATCH) {
+            batches.add(distinct.subList(i, Math.min(i + SUMMARY_BATCH, distinct.size())));
+        }
+        return Flux.fromIterable(batches)
+            .concatMap(batch -> webClient.get()
+                .uri("/polls?id=in.(" + batch.stream().map(String::valueOf).collect(Collectors.joining(","))
+                    + ")&select=" + Poll.SUMMARY_COLUMNS)
+                .headers(this::readHeaders)
+                .retrieve()
+                .bodyToFlux(Poll.class))
+            .collectMap(Poll::getId);
+    }
+
+    public Mono<Poll> get(long id) {
+        return webClient.get()
+            .uri("/polls?id=eq." + id + "&select=" + POLL_COLUMNS)
+            .headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(Poll.class)
+            .next()
+            .flatMap(p -> Mono.zip(fetchOptions(id), withCreatorUsername(p))
+                .map(t -> {
+                    p.setOptions(t.getT1());
+                    return p;
+                }));
+    }
+
+    public Mono<Poll> create(String question,
+                             List<String> options,
+                             String category,
+                             OffsetDateTime endsAt,
+                             PollStatus status,
+                             UUID createdBy) {
+
+        PollStatus effectiveStatus = status == null ? PollStatus.PENDING : status;
+        if (options == null || options.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("options required"));
+        }
+        if (createdBy == null) {
+            return Mono.error(new IllegalArgumentException("createdBy (user id) is required"));
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("question", question);
+        payload.put("status", effectiveStatus.name());
+        payload.put("category", category);
+        payload.put("total_bets", 0);
+        payload.put("created_at", OffsetDateTime.now().toString());
+        if (endsAt != null) {
+            payload.put("ends_at", endsAt.toString());
+        }
+        payload.put("created_by", createdBy);
+
+        return webClient.post().uri("/polls").headers(this::writeHeaders)
+            .bodyValue(payload)
+            .retrieve()
+            .bodyToFlux(Poll.class)
+            .next()
+            .filter(p -> p.getId() != null)
+            .switchIfEmpty(Mono.error(new RuntimeException("Failed to insert poll")))
+            .flatMap(inserted -> {
+                long pollId = inserted.getId();
+                List<Map<String, Object>> optionRows = options.stream().map(txt -> {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("poll_id", pollId);
+                    row.put("option_text", txt);
+                    return row;
+                }).toList();
+
+                return webClient.post().uri("/poll_options").headers(this::writeHeaders)
+                    .bodyValue(optionRows)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .then(Mono.defer(() -> {
+                        inserted.setOptions(new ArrayList<>(options));
+                        return withCreatorUsername(inserted);
+                    }))
+                    // Roll back the poll row if the options could not be written
+                    .onErrorResume(e -> webClient.delete().uri("/polls?id=eq." + pollId)
+                        .headers(this::readHeaders)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .onErrorResume(ignored -> Mono.empty())
+                        .then(Mono.error(e)));
+            });
+    }
+
+    public Mono<Boolean> delete(long id) {
+        // delete options first
+        return webClient.delete().uri("/poll_options?poll_id=eq." + id).headers(this::readHeaders)
+            .retrieve()
+            .toBodilessEntity()
+            .then(webClient.delete().uri("/polls?id=eq." + id).headers(this::readHeaders)
+                .retrieve()
+                .toBodilessEntity())
+            .map(resp -> resp.getStatusCode().is2xxSuccessful());
+    }
+}
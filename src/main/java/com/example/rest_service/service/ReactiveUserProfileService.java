@@ -0,0 +1,179 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.UserProfile;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link UserProfileService}, backed by WebClient.
+ * Lookups complete empty when no row matches.
+ */
+@Service
+@ConditionalOnProperty(name = "supabase.client.mode", havingValue = "reactive")
+public class ReactiveUserProfileService {
+
+    private final WebClient webClient;
+    private final SupabaseConfig supabaseConfig;
+
+    public ReactiveUserProfileService(WebClient supabaseWebClient, SupabaseConfig supabaseConfig) {
+        this.webClient = supabaseWebClient;
+        this.supabaseConfig = supabaseConfig;
+    }
+
+    private void readHeaders(HttpHeaders h) {
+        h.addAll(supabaseConfig.createSupabaseHeaders());
+    }
+
+    private Flux<UserProfile> fetch(String query, String what) {
+        return webClient.get().uri("/user_profiles" + query).headers(this::readHeaders)
+            .retrieve()
+            .bodyToFlux(UserProfile.class)
+            .onErrorMap(e -> new RuntimeException("Error fetching user profile " + what + ": " + e.getMessage(), e));
+    }
+
+    /**
+     * Get all user profiles
+     */
+    public Flux<UserProfile> getAllUsers() {
+        return fetch("", "list");
+    }
+
+    /**
+     * One keyset page of user profiles, newest first
+     */
+    public Mono<CursorPage<UserProfile>> getUsersPage(PageCursor after, int limit) {
+        return fetch("?select=*" + PageCursor.postgrestPage(after, limit), "page")
+            .collectList()
+            .map(rows -> CursorPage.of(rows, limit, UserProfile::getCreatedAt, UserProfile::getId));
+    }
+
+    /**
+     * Get user profile by ID
+     */
+    public Mono<UserProfile> getUserById(UUID id) {
+        return fetch("?id=eq." + id, "by ID").next();
+    }
+
+    /**
+     * Get user profile by email
+     */
+    public Mono<UserProfile> getUserByEmail(String email) {
+        return fetch("?email=eq." + email, "by email").next();
+    }
+
+    /**
+     * Get user profile by Google ID
+     */
+    public Mono<UserProfile> getUserByGoogleId(String googleId) {
+        return fetch("?google_id=eq." + googleId, "by Google ID").next();
+    }
+
+    /**
+     * Get user profile by GitHub ID
+     */
+    public Mono<UserProfile> getUserByGithubId(String githubId) {
+        return fetch("?github_id=eq." + githubId, "by GitHub ID").next();
+    }
+
+    /**
+     * Search users by username
+     */
+    public Flux<UserProfile> searchUsersByUsername(String username) {
+        return fetch("?username=ilike.*" + username + "*", "by username");
+    }
+
+    /**
+     * Create a new user profile
+     */
+    public Mono<UserProfile> createUser(UserProfile userProfile) {
+        Map<String, Object> userData = UserProfileService.insertPayload(userProfile);
+        return webClient.post().uri("/user_profiles").headers(this::readHeaders)
+            .bodyValue(userData)
+            .retrieve()
+            .bodyToFlux(UserProfile.class)
+            .next()
+            .switchIfEmpty(Mono.error(new RuntimeException("Failed to create user profile")))
+            .onErrorMap(WebClientResponseException.class,
+                e -> new RuntimeException("Error creating user profile: " + e.getResponseBodyAsString(), e));
+    }
+
+    /**
+     * Update user profile
+     */
+    public Mono<UserProfile> updateUser(UUID id, UserProfile userProfile) {
+        Map<String, Object> userData = UserProfileService.updatePayload(userProfile);
+        return webClient.patch().uri("/user_profiles?id=eq." + id)
+            .headers(h -> h.addAll(supabaseConfig.createSupabaseHeadersForUpdate()))
+            .bodyValue(userData)
+            .retrieve()
+            .bodyToFlux(UserProfile.class)
+            .next()
+            .switchIfEmpty(Mono.error(new RuntimeException("Failed to update user profile - no user returned from database")))
+            .onErrorMap(WebClientResponseException.class,
+                e -> new RuntimeException("Error updating user profile (HTTP " + e.getStatusCode() + "): " + e.getResponseBodyAsString(), e));
+    }
+
+    /**
+     * Delete user profile
+     */
+    public Mono<Boolean> deleteUser(UUID id) {
+        return webClient.delete().uri("/user_profiles?id=eq." + id).headers(this::readHeaders)
+            .retrieve()
+            .toBodilessEntity()
+            .map(resp -> resp.getStatusCode().is2xxSuccessful())
+            .onErrorMap(e -> new RuntimeException("Error deleting user profile: " + e.getMessage(), e));
+    }
+
+    /**
+     * Create or update a user from GitHub OAuth
+     */
+    public Mono<UserProfile> createOrUpdateGithubUser(
+            String githubId,
+            String email,
+            String name,
+            String username,
+            String avatarUrl,
+            String bio,
+            String accessToken
+    ) {
+        Mono<UserProfile> byGithub = githubId != null ? getUserByGithubId(githubId) : Mono.empty();
+        Mono<UserProfile> byEmail = email != null ? Mono.defer(() -> getUserByEmail(email)) : Mono.empty();
+
+        return byGithub.switchIfEmpty(byEmail)
+            .flatMap(current -> {
+                UserProfile updates = new UserProfile();
+                if (name != null) updates.setName(name);
+                if (username != null) updates.setUsername(username);
+                if (avatarUrl != null) updates.setProfilePictureUrl(avatarUrl);
+                if (bio != null) updates.setBio(bio);
+                if (accessToken != null) updates.setAccessToken(accessToken);
+                return updateUser(current.getId(), updates);
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                UserProfile newUser = new UserProfile();
+                newUser.setGithubId(githubId);
+                newUser.setEmail(email);
+                newUser.setName(name);
+                newUser.setUsername(username);
+                newUser.setProfilePictureUrl(avatarUrl);
+                newUser.setBio(bio);
+                newUser.setObrobucks(0);
+                newUser.setAccessToken(accessToken);
+                newUser.setLastLogin(OffsetDateTime.now());
+                return createUser(newUser);
+            }))
+            .onErrorMap(e -> new RuntimeException("Error creating/updating GitHub user: " + e.getMessage(), e));
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.UserProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of user profiles keyed by id, with email, Google ID and GitHub ID
+ * indexes pointing at the id. UserProfileService keeps it current on every write it makes;
+ * the TTL bounds how long a change made elsewhere (another instance, the SQL editor) can go unseen.
+ *
+ * Metrics: cache.users.requests{result=hit|miss}, cache.users.hit.ratio, cache.users.evictions{cause}
+ * and cache.users.size.
+ */
+@Component
+public class UserProfileCache {
+
+    private final boolean enabled;
+    private final Cache<UUID, UserProfile> byId;
+    private final Cache<String, UUID> byEmail;
+    private final Cache<String, UUID> byGoogleId;
+    private final Cache<String, UUID> byGithubId;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserProfileCache(MeterRegistry registry,
+                            @Value("${cache.users.enabled:true}") boolean enabled,
+                            @Value("${cache.users.max-size:10000}") long maxSize,
+                            @Value("${cache.users.ttl:5m}") Duration ttl) {
+        this.enabled = enabled;
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .executor(Runnable::run)
+            .removalListener((UUID id, UserProfile user, RemovalCause cause) -> {
+                // Replacements re-index themselves in put(); anything else drops its index entries
+                if (user != null && cause != RemovalCause.REPLACED) unindex(user);
+                if (cause.wasEvicted()) {
+                    registry.counter("cache.users.evictions", "cause", cause.name().toLowerCase()).increment();
+                }
+            })
+            .build();
+        this.byEmail = index(maxSize, ttl);
+        this.byGoogleId = index(maxSize, ttl);
+        this.byGithubId = index(maxSize, ttl);
+
+        this.hits = Counter.builder("cache.users.requests").tag("result", "hit")
+            .description("User profile lookups answered from the cache")
+            .register(registry);
+        this.misses = Counter.builder("cache.users.requests").tag("result", "miss")
+            .description("User profile lookups that went to Supabase")
+            .register(registry);
+        Gauge.builder("cache.users.hit.ratio", this, UserProfileCache::hitRatio)
+            .description("Share of user profile lookups answered without a Supabase call")
+            .register(registry);
+        Gauge.builder("cache.users.size", byId, Cache::estimatedSize)
+            .register(registry);
+    }
+
+    private static Cache<String, UUID> index(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public Optional<UserProfile> getById(UUID id, Function<UUID, Optional<UserProfile>> loader) {
+        if (!enabled) return loader.apply(id);
+        UserProfile cached = byId.getIfPresent(id);
+        if (cached != null) return hit(cached);
+        return load(loader.apply(id));
+    }
+
+    public Optional<UserProfile> getByEmail(String email, Function<String, Optional<UserProfile>> loader) {
+        return getByIndex(byEmail, email, UserProfile::getEmail, loader);
+    }
+
+    public Optional<UserProfile> getByGoogleId(String googleId, Function<String, Optional<UserProfile>> loader) {
+        return getByIndex(byGoogleId, googleId, UserProfile::getGoogleId, loader);
+    }
+
+    public Optional<UserProfile> getByGithubId(String githubId, Function<String, Optional<UserProfile>> loader) {
+        return getByIndex(byGithubId, githubId, UserProfile::getGithubId, loader);
+    }
+
+    /**
+     * Cached copy if present, without going upstream on a miss
+     */
+    public Optional<UserProfile> peek(UUID id) {
+        if (!enabled) return Optional.empty();
+        return Optional.ofNullable(byId.getIfPresent(id)).map(UserProfile::new);
+    }
+
+    /**
+     * Write-through after a create or update: the row Supabase returned replaces the cached one
+     */
+    public void put(UserProfile user) {
+        if (!enabled || user == null || user.getId() == null) return;
+        UserProfile previous = byId.asMap().put(user.getId(), new UserProfile(user));
+        if (previous != null) unindex(previous);
+        if (user.getEmail() != null) byEmail.put(user.getEmail(), user.getId());
+        if (user.getGoogleId() != null) byGoogleId.put(user.getGoogleId(), user.getId());
+        if (user.getGithubId() != null) byGithubId.put(user.getGithubId(), user.getId());
+    }
+
+    /**
+     * Write-through after a balance-only update; a user not already cached is left uncached
+     */
+    public void updateBalance(UUID id, Integer obrobucks) {
+        if (!enabled) return;
+        byId.asMap().computeIfPresent(id, (key, user) -> {
+            UserProfile updated = new UserProfile(user);
+            updated.setObrobucks(obrobucks);
+            return updated;
+        });
+    }
+
+    public void invalidate(UUID id) {
+        if (enabled) byId.invalidate(id);
+    }
+
+    private Optional<UserProfile> getByIndex(Cache<String, UUID> index, String key,
+                                             Function<UserProfile, String> column,
+                                             Function<String, Optional<UserProfile>> loader) {
+        if (!enabled || key == null) return loader.apply(key);
+        UUID id = index.getIfPresent(key);
+        UserProfile cached = id != null ? byId.getIfPresent(id) : null;
+        // The index can outlive a change of email/provider id; only trust it if the row still matches
+        if (cached != null && key.equals(column.apply(cached))) {
+            return hit(cached);
+        }
+        return load(loader.apply(key));
+    }
+
+    private Optional<UserProfile> hit(UserProfile cached) {
+        hits.increment();
+        return Optional.of(new UserProfile(cached));
+    }
+
+    private Optional<UserProfile> load(Optional<UserProfile> loaded) {
+        misses.increment();
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    private void unindex(UserProfile user) {
+        UUID id = user.getId();
+        if (user.getEmail() != null) byEmail.asMap().remove(user.getEmail(), id);
+        if (user.getGoogleId() != null) byGoogleId.asMap().remove(user.getGoogleId(), id);
+        if (user.getGithubId() != null) byGithubId.asMap().remove(user.getGithubId(), id);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
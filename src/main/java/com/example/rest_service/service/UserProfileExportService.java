@@ -0,0 +1,140 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.repository.DataBackend;
+import com.example.rest_service.repository.UserProfileJdbcRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Streams user_profiles as NDJSON, one page at a time, so heap use does not grow with the table.
+ * OAuth token columns are never exported.
+ */
+@Service
+public class UserProfileExportService {
+
+    static final String EXPORT_COLUMNS = "id,email,google_id,github_id,name,first_name,last_name,"
+        + "profile_picture_url,username,bio,obrobucks,last_login,created_at,updated_at";
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabaseConfig;
+    private final ObjectMapper objectMapper;
+    private final DataBackend backend;
+    private final UserProfileJdbcRepository userRepository;
+
+    @Value("${users.export.page-size:1000}")
+    private int pageSize;
+
+    public UserProfileExportService(RestTemplate restTemplate,
+                                    SupabaseConfig supabaseConfig,
+                                    ObjectMapper objectMapper,
+                                    DataBackend backend,
+                                    UserProfileJdbcRepository userRepository) {
+        this.restTemplate = restTemplate;
+        this.supabaseConfig = supabaseConfig;
+        this.objectMapper = objectMapper;
+        this.backend = backend;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Write every user profile to out as one JSON object per line
+     */
+    public long exportNdjson(OutputStream out) throws IOException {
+        long total = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Rows are newline-terminated below instead of Jackson's default space between root values
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Keyset paging on id: each page is an index range scan, unlike offset/Range paging
+            UUID after = null;
+            while (true) {
+                Page page = backend.userProfilesViaJdbc()
+                    ? jdbcPage(generator, after)
+                    : restPage(generator, after);
+                generator.flush();
+                total += page.rows;
+                if (page.rows < pageSize) break;
+                after = page.lastId;
+            }
+        }
+        System.out.println("Exported " + total + " user profiles");
+        return total;
+    }
+
+    private Page restPage(JsonGenerator generator, UUID after) {
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?select=" + EXPORT_COLUMNS
+            + (after != null ? "&id=gt." + after : "")
+            + "&order=id.asc&limit=" + pageSize;
+
+        return restTemplate.execute(url, HttpMethod.GET,
+            request -> request.getHeaders().addAll(supabaseConfig.createSupabaseHeaders()),
+            response -> {
+                Page page = new Page();
+                try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new IOException("Expected a JSON array from user_profiles");
+                    }
+                    // Only one row is materialized at a time
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        JsonNode row = parser.readValueAsTree();
+                        generator.writeTree(row);
+                        generator.writeRaw('\n');
+                        page.add(UUID.fromString(row.get("id").asText()));
+                    }
+                }
+                return page;
+            });
+    }
+
+    private Page jdbcPage(JsonGenerator generator, UUID after) {
+        Page page = new Page();
+        userRepository.forEachExportRow(EXPORT_COLUMNS, after, pageSize, rs -> {
+            try {
+                ResultSetMetaData meta = rs.getMetaData();
+                generator.writeStartObject();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    Object value = rs.getObject(i);
+                    if (value instanceof Timestamp) {
+                        value = rs.getObject(i, OffsetDateTime.class).toString();
+                    } else if (value instanceof UUID) {
+                        value = value.toString();
+                    }
+                    generator.writeFieldName(meta.getColumnLabel(i));
+                    generator.writeObject(value);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                page.add(rs.getObject("id", UUID.class));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return page;
+    }
+
+    private static final class Page {
+        int rows;
+        UUID lastId;
+
+        void add(UUID id) {
+            rows++;
+            lastId = id;
+        }
+    }
+}
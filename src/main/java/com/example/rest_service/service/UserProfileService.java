@@ -1,7 +1,13 @@
 package com.example.rest_service.service;
 
 import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.dto.CursorPage;
+import com.example.rest_service.dto.PageCursor;
+import com.example.rest_service.model.UserBalance;
+import com.example.rest_service.model.UserIdentity;
 import com.example.rest_service.model.UserProfile;
+import com.example.rest_service.repository.DataBackend;
+import com.example.rest_service.repository.UserProfileJdbcRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,11 +28,24 @@ public class UserProfileService {
     private final RestTemplate restTemplate;
     private final SupabaseConfig supabaseConfig;
     private final ObjectMapper objectMapper;
+    private final DataBackend backend;
+    private final UserProfileJdbcRepository userRepository;
+    private final UserProfileCache cache;
+    private final EntityVersions versions;
 
     @Autowired
-    public UserProfileService(RestTemplate restTemplate, SupabaseConfig supabaseConfig) {
+    public UserProfileService(RestTemplate restTemplate,
+                              SupabaseConfig supabaseConfig,
+                              DataBackend backend,
+                              UserProfileJdbcRepository userRepository,
+                              UserProfileCache cache,
+                              EntityVersions versions) {
         this.restTemplate = restTemplate;
         this.supabaseConfig = supabaseConfig;
+        this.backend = backend;
+        this.userRepository = userRepository;
+        this.cache = cache;
+        this.versions = versions;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
 
@@ -38,6 +57,10 @@ public class UserProfileService {
      */
     public List<UserProfile> getAllUsers() {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findAll();
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -55,11 +78,45 @@ public class UserProfileService {
         }
     }
 
+    /**
+     * Get one keyset page of user profiles, newest first
+     */
+    public CursorPage<UserProfile> getUsersPage(PageCursor after, int limit) {
+        try {
+            List<UserProfile> rows;
+            if (backend.userProfilesViaJdbc()) {
+                rows = userRepository.findPage(after, limit + 1);
+            } else {
+                HttpEntity<String> entity = new HttpEntity<>(supabaseConfig.createSupabaseHeaders());
+                String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?select=*"
+                    + PageCursor.postgrestPage(after, limit);
+                ResponseEntity<UserProfile[]> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    entity,
+                    UserProfile[].class
+                );
+                rows = Arrays.asList(Optional.ofNullable(response.getBody()).orElse(new UserProfile[0]));
+            }
+            return CursorPage.of(rows, limit, UserProfile::getCreatedAt, UserProfile::getId);
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching user profile page: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Get user profile by ID
      */
     public Optional<UserProfile> getUserById(UUID id) {
+        return cache.getById(id, this::fetchUserById);
+    }
+
+    private Optional<UserProfile> fetchUserById(UUID id) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findById(id);
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -85,7 +142,15 @@ public class UserProfileService {
      * Get user profile by email
      */
     public Optional<UserProfile> getUserByEmail(String email) {
+        return cache.getByEmail(email, this::fetchUserByEmail);
+    }
+
+    private Optional<UserProfile> fetchUserByEmail(String email) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findByEmail(email);
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -111,7 +176,15 @@ public class UserProfileService {
      * Get user profile by Google ID
      */
     public Optional<UserProfile> getUserByGoogleId(String googleId) {
+        return cache.getByGoogleId(googleId, this::fetchUserByGoogleId);
+    }
+
+    private Optional<UserProfile> fetchUserByGoogleId(String googleId) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findByGoogleId(googleId);
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -137,7 +210,15 @@ public class UserProfileService {
      * ✅ Get user profile by GitHub ID
      */
     public Optional<UserProfile> getUserByGithubId(String githubId) {
+        return cache.getByGithubId(githubId, this::fetchUserByGithubId);
+    }
+
+    private Optional<UserProfile> fetchUserByGithubId(String githubId) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findByGithubId(githubId);
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
@@ -159,6 +240,184 @@ public class UserProfileService {
         }
     }
 
+    /**
+     * Get only a user's balance (select=id,obrobucks), or the cached profile's balance when caching is on
+     */
+    public Optional<UserBalance> getBalance(UUID id) {
+        if (cache.enabled()) {
+            return getUserById(id).map(user -> new UserBalance(user.getId(), user.getObrobucks()));
+        }
+        try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findBalance(id);
+            }
+            return selectView("id=eq." + id, UserBalance.COLUMNS, UserBalance[].class).stream().findFirst();
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching user balance: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read a user's balance from user_profiles itself, bypassing the profile cache and any shared
+     * in-flight read, for a balance about to be changed
+     */
+    public Optional<UserBalance> readBalance(UUID id) {
+        try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findBalance(id);
+            }
+            return selectView("id=eq." + id, UserBalance.COLUMNS, UserBalance[].class,
+                supabaseConfig.createSupabaseHeadersForFreshRead()).stream().findFirst();
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching user balance: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Overwrite a user's balance, returning only the balance columns
+     */
+    public UserBalance setBalance(UUID id, int obrobucks) {
+        try {
+            if (backend.userProfilesViaJdbc()) {
+                UserBalance updated = userRepository.updateBalance(id, obrobucks)
+                    .orElseThrow(() -> new RuntimeException("Failed to update balance - no user returned from database"));
+                cache.updateBalance(id, updated.obrobucks());
+                versions.bump(EntityVersions.balance(id));
+                return updated;
+            }
+
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(
+                Map.of("obrobucks", obrobucks), supabaseConfig.createSupabaseHeadersForUpdate());
+            String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?id=eq." + id
+                + "&select=" + UserBalance.COLUMNS;
+            ResponseEntity<UserBalance[]> response = restTemplate.exchange(
+                url,
+                HttpMethod.PATCH,
+                entity,
+                UserBalance[].class
+            );
+
+            UserBalance[] updated = response.getBody();
+            if (updated != null && updated.length > 0) {
+                cache.updateBalance(id, updated[0].obrobucks());
+                versions.bump(EntityVersions.balance(id));
+                return updated[0];
+            }
+            throw new RuntimeException("Failed to update balance - no user returned from database");
+        } catch (HttpClientErrorException e) {
+            throw new RuntimeException("Error updating balance (HTTP " + e.getStatusCode() + "): " + e.getResponseBodyAsString(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating balance: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Add each amount to its user's balance in one round trip (the credit_balances function over
+     * PostgREST, or its statement over JDBC). A user already credited under the ref is skipped;
+     * the balances returned are those of every user credited under it, earlier calls included.
+     */
+    public List<UserBalance> creditBalances(Map<UUID, Integer> credits, String ref) {
+        if (credits.isEmpty()) return List.of();
+        try {
+            List<UserBalance> updated;
+            if (backend.userProfilesViaJdbc()) {
+                updated = userRepository.creditBalances(credits, ref);
+            } else {
+                List<Map<String, Object>> rows = new ArrayList<>(credits.size());
+                credits.forEach((id, amount) -> rows.add(Map.of("user_id", id, "amount", amount)));
+                ResponseEntity<UserBalance[]> response = restTemplate.exchange(
+                    supabaseConfig.getSupabaseUrl() + "/rest/v1/rpc/credit_balances",
+                    HttpMethod.POST,
+                    new HttpEntity<>(Map.of("p_credits", rows, "p_ref", ref), supabaseConfig.createSupabaseHeadersForUpdate()),
+                    UserBalance[].class
+                );
+                updated = Arrays.asList(Optional.ofNullable(response.getBody()).orElse(new UserBalance[0]));
+            }
+            for (UserBalance balance : updated) {
+                balanceChanged(balance.id(), balance.balance());
+            }
+            return updated;
+        } catch (Exception e) {
+            throw new RuntimeException("Error crediting balances: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A balance was changed server-side (e.g. by place_bet): refresh the cached copy and its ETag
+     */
+    public void balanceChanged(UUID id, int obrobucks) {
+        cache.updateBalance(id, obrobucks);
+        versions.bump(EntityVersions.balance(id));
+    }
+
+    /**
+     * Get the identity columns of a user by ID
+     */
+    public Optional<UserIdentity> getIdentityById(UUID id) {
+        Optional<UserProfile> cached = cache.peek(id);
+        if (cached.isPresent()) {
+            UserProfile user = cached.get();
+            return Optional.of(new UserIdentity(user.getId(), user.getEmail(), user.getUsername(),
+                user.getGoogleId(), user.getGithubId()));
+        }
+        return getIdentity("id", id);
+    }
+
+    /**
+     * Get the identity columns of a user by email
+     */
+    public Optional<UserIdentity> getIdentityByEmail(String email) {
+        return getIdentity("email", email);
+    }
+
+    /**
+     * Get the identity columns of a user by GitHub ID
+     */
+    public Optional<UserIdentity> getIdentityByGithubId(String githubId) {
+        return getIdentity("github_id", githubId);
+    }
+
+    /**
+     * Get the identity columns of every user
+     */
+    public List<UserIdentity> getAllIdentities() {
+        try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findAllIdentities();
+            }
+            return selectView(null, UserIdentity.COLUMNS, UserIdentity[].class);
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching user identities: " + e.getMessage(), e);
+        }
+    }
+
+    private Optional<UserIdentity> getIdentity(String column, Object value) {
+        try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.findIdentity(column, value);
+            }
+            return selectView(column + "=eq." + value, UserIdentity.COLUMNS, UserIdentity[].class).stream().findFirst();
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching user identity by " + column + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * GET user_profiles with an optional filter, asking PostgREST for only the given columns
+     */
+    private <T> List<T> selectView(String filter, String columns, Class<T[]> type) {
+        return selectView(filter, columns, type, supabaseConfig.createSupabaseHeaders());
+    }
+
+    private <T> List<T> selectView(String filter, String columns, Class<T[]> type, HttpHeaders headers) {
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?select=" + columns
+            + (filter != null ? "&" + filter : "");
+        ResponseEntity<T[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, type);
+        T[] rows = response.getBody();
+        return rows != null ? Arrays.asList(rows) : List.of();
+    }
+
     /**
      * Create a new user profile
      */
@@ -167,24 +426,12 @@ public class UserProfileService {
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             
             // Convert UserProfile to Map for JSON serialization
-            Map<String, Object> userData = new HashMap<>();
-            if (userProfile.getEmail() != null) userData.put("email", userProfile.getEmail());
-            if (userProfile.getGoogleId() != null) userData.put("google_id", userProfile.getGoogleId());
-            if (userProfile.getGithubId() != null) userData.put("github_id", userProfile.getGithubId());
-            if (userProfile.getName() != null) userData.put("name", userProfile.getName());
-            if (userProfile.getFirstName() != null) userData.put("first_name", userProfile.getFirstName());
-            if (userProfile.getLastName() != null) userData.put("last_name", userProfile.getLastName());
-            if (userProfile.getProfilePictureUrl() != null) userData.put("profile_picture_url", userProfile.getProfilePictureUrl());
-            if (userProfile.getUsername() != null) userData.put("username", userProfile.getUsername());
-            if (userProfile.getBio() != null) userData.put("bio", userProfile.getBio());
-            userData.put("obrobucks", userProfile.getObrobucks() != null ? userProfile.getObrobucks() : 0);
-            if (userProfile.getAccessToken() != null) userData.put("access_token", userProfile.getAccessToken());
-            if (userProfile.getRefreshToken() != null) userData.put("refresh_token", userProfile.getRefreshToken());
-            // Only set token_expires_at if it's provided, otherwise let database handle it
-            if (userProfile.getTokenExpiresAt() != null) userData.put("token_expires_at", userProfile.getTokenExpiresAt().toString());
-            // Only set last_login if it's provided, otherwise let database handle it
-            if (userProfile.getLastLogin() != null) {
-                userData.put("last_login", userProfile.getLastLogin().toString());
+            Map<String, Object> userData = insertPayload(userProfile);
+
+            if (backend.userProfilesViaJdbc()) {
+                UserProfile created = userRepository.insert(userData);
+                cache.put(created);
+                return created;
             }
             
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(userData, headers);
@@ -199,6 +446,7 @@ public class UserProfileService {
             
             UserProfile[] createdUsers = response.getBody();
             if (createdUsers != null && createdUsers.length > 0) {
+                cache.put(createdUsers[0]);
                 return createdUsers[0];
             }
             throw new RuntimeException("Failed to create user profile");
@@ -217,20 +465,17 @@ public class UserProfileService {
             System.out.println("UserProfileService.updateUser called for ID: " + id);
             
             // Build update payload with ONLY updatable fields
-            // Explicitly exclude read-only fields: id, email, google_id, github_id, created_at, updated_at, last_login
-            Map<String, Object> userData = new HashMap<>();
-            if (userProfile.getName() != null) userData.put("name", userProfile.getName());
-            if (userProfile.getFirstName() != null) userData.put("first_name", userProfile.getFirstName());
-            if (userProfile.getLastName() != null) userData.put("last_name", userProfile.getLastName());
-            if (userProfile.getProfilePictureUrl() != null) userData.put("profile_picture_url", userProfile.getProfilePictureUrl());
-            if (userProfile.getUsername() != null) userData.put("username", userProfile.getUsername());
-            if (userProfile.getBio() != null) userData.put("bio", userProfile.getBio());
-            if (userProfile.getObrobucks() != null) userData.put("obrobucks", userProfile.getObrobucks());
-            if (userProfile.getAccessToken() != null) userData.put("access_token", userProfile.getAccessToken());
-            if (userProfile.getRefreshToken() != null) userData.put("refresh_token", userProfile.getRefreshToken());
-            if (userProfile.getTokenExpiresAt() != null) userData.put("token_expires_at", userProfile.getTokenExpiresAt().toString());
+            Map<String, Object> userData = updatePayload(userProfile);
             
             System.out.println("Update payload (updatable fields only): " + userData);
+
+            if (backend.userProfilesViaJdbc()) {
+                UserProfile updated = userRepository.update(id, userData)
+                    .orElseThrow(() -> new RuntimeException("Failed to update user profile - no user returned from database"));
+                cache.put(updated);
+                versions.bump(EntityVersions.balance(id));
+                return updated;
+            }
             
             // Use special headers for PATCH operations
             HttpHeaders patchHeaders = supabaseConfig.createSupabaseHeadersForUpdate();
@@ -250,6 +495,8 @@ public class UserProfileService {
             UserProfile[] updatedUsers = response.getBody();
             if (updatedUsers != null && updatedUsers.length > 0) {
                 System.out.println("User updated successfully");
+                cache.put(updatedUsers[0]);
+                versions.bump(EntityVersions.balance(id));
                 return updatedUsers[0];
             }
             throw new RuntimeException("Failed to update user profile - no user returned from database");
@@ -275,6 +522,10 @@ public class UserProfileService {
      */
     public boolean deleteUser(UUID id) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.deleteById(id) > 0;
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -289,6 +540,10 @@ public class UserProfileService {
             return response.getStatusCode().is2xxSuccessful();
         } catch (Exception e) {
             throw new RuntimeException("Error deleting user profile: " + e.getMessage(), e);
+        } finally {
+            // Dropped whatever the outcome; if the row survived, the next read reloads it
+            cache.invalidate(id);
+            versions.bump(EntityVersions.balance(id));
         }
     }
 
@@ -297,6 +552,10 @@ public class UserProfileService {
      */
     public List<UserProfile> searchUsersByUsername(String username) {
         try {
+            if (backend.userProfilesViaJdbc()) {
+                return userRepository.searchByUsername(username);
+            }
+
             HttpHeaders headers = supabaseConfig.createSupabaseHeaders();
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
@@ -327,18 +586,18 @@ public class UserProfileService {
             String accessToken
     ) {
         try {
-            Optional<UserProfile> existing = Optional.empty();
+            Optional<UserIdentity> existing = Optional.empty();
 
             if (githubId != null) {
-                existing = getUserByGithubId(githubId);
+                existing = getIdentityByGithubId(githubId);
             }
 
             if (existing.isEmpty() && email != null) {
-                existing = getUserByEmail(email);
+                existing = getIdentityByEmail(email);
             }
 
             if (existing.isPresent()) {
-    UserProfile current = existing.get();
+    UserIdentity current = existing.get();
     UserProfile updates = new UserProfile();
 
     if (name != null) updates.setName(name);
@@ -347,7 +606,7 @@ public class UserProfileService {
     if (bio != null) updates.setBio(bio);
     if (accessToken != null) updates.setAccessToken(accessToken);
 
-    UserProfile updated = updateUser(current.getId(), updates);
+    UserProfile updated = updateUser(current.id(), updates);
     // updateLastLogin(current.getId());  // TEMPORARILY DISABLED
     return updated;
             }
@@ -370,4 +629,49 @@ public class UserProfileService {
             throw new RuntimeException("Error creating/updating GitHub user: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Build the insert payload for a new user profile row
+     */
+    static Map<String, Object> insertPayload(UserProfile userProfile) {
+        Map<String, Object> userData = new HashMap<>();
+        if (userProfile.getEmail() != null) userData.put("email", userProfile.getEmail());
+        if (userProfile.getGoogleId() != null) userData.put("google_id", userProfile.getGoogleId());
+        if (userProfile.getGithubId() != null) userData.put("github_id", userProfile.getGithubId());
+        if (userProfile.getName() != null) userData.put("name", userProfile.getName());
+        if (userProfile.getFirstName() != null) userData.put("first_name", userProfile.getFirstName());
+        if (userProfile.getLastName() != null) userData.put("last_name", userProfile.getLastName());
+        if (userProfile.getProfilePictureUrl() != null) userData.put("profile_picture_url", userProfile.getProfilePictureUrl());
+        if (userProfile.getUsername() != null) userData.put("username", userProfile.getUsername());
+        if (userProfile.getBio() != null) userData.put("bio", userProfile.getBio());
+        userData.put("obrobucks", userProfile.getObrobucks() != null ? userProfile.getObrobucks() : 0);
+        if (userProfile.getAccessToken() != null) userData.put("access_token", userProfile.getAccessToken());
+        if (userProfile.getRefreshToken() != null) userData.put("refresh_token", userProfile.getRefreshToken());
+        // Only set token_expires_at if it's provided, otherwise let database handle it
+        if (userProfile.getTokenExpiresAt() != null) userData.put("token_expires_at", userProfile.getTokenExpiresAt().toString());
+        // Only set last_login if it's provided, otherwise let database handle it
+        if (userProfile.getLastLogin() != null) {
+            userData.put("last_login", userProfile.getLastLogin().toString());
+        }
+        return userData;
+    }
+
+    /**
+     * Build the PATCH payload with ONLY updatable fields
+     * Explicitly excludes read-only fields: id, email, google_id, github_id, created_at, updated_at, last_login
+     */
+    static Map<String, Object> updatePayload(UserProfile userProfile) {
+        Map<String, Object> userData = new HashMap<>();
+        if (userProfile.getName() != null) userData.put("name", userProfile.getName());
+        if (userProfile.getFirstName() != null) userData.put("first_name", userProfile.getFirstName());
+        if (userProfile.getLastName() != null) userData.put("last_name", userProfile.getLastName());
+        if (userProfile.getProfilePictureUrl() != null) userData.put("profile_picture_url", userProfile.getProfilePictureUrl());
+        if (userProfile.getUsername() != null) userData.put("username", userProfile.getUsername());
+        if (userProfile.getBio() != null) userData.put("bio", userProfile.getBio());
+        if (userProfile.getObrobucks() != null) userData.put("obrobucks", userProfile.getObrobucks());
+        if (userProfile.getAccessToken() != null) userData.put("access_token", userProfile.getAccessToken());
+        if (userProfile.getRefreshToken() != null) userData.put("refresh_token", userProfile.getRefreshToken());
+        if (userProfile.getTokenExpiresAt() != null) userData.put("token_expires_at", userProfile.getTokenExpiresAt().toString());
+        return userData;
+    }
 }
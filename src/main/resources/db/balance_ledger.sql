@@ -0,0 +1,39 @@
+-- Append-only obrobucks ledger for ledger.enabled=true.
+--
+-- Every balance change (a game, a bet stake, a poll payout, a refunded stake) is one
+-- balance_events row holding the delta; nothing is overwritten. Every ledger.snapshot-every events
+-- the app writes the user's balance and the last event it covers to balance_snapshots, so a
+-- balance is always that snapshot plus a short tail of later events. user_profiles.obrobucks
+-- seeds the first snapshot for users who had a balance before the ledger and is refreshed with
+-- each later one, so while the ledger is on it is stale between snapshots: read balances from the
+-- ledger, not from that column. Install once with the SQL editor or psql before switching the
+-- ledger on.
+
+CREATE TABLE IF NOT EXISTS public.balance_events (
+    id         bigserial PRIMARY KEY,
+    user_id    uuid        NOT NULL REFERENCES public.user_profiles (id) ON DELETE CASCADE,
+    delta      integer     NOT NULL,
+    kind       text        NOT NULL,
+    ref        text,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+
+-- Kept separate so re-running the script widens the check on an existing install
+ALTER TABLE public.balance_events DROP CONSTRAINT IF EXISTS balance_events_kind_check;
+ALTER TABLE public.balance_events ADD CONSTRAINT balance_events_kind_check
+    CHECK (kind IN ('game', 'bet', 'payout', 'refund'));
+
+-- Tail reads: one user's events after their snapshot
+CREATE INDEX IF NOT EXISTS balance_events_user_id_id_idx ON public.balance_events (user_id, id);
+
+-- A user is paid once per poll: a retried resolution skips users already paid, and this catches
+-- two attempts racing each other
+CREATE UNIQUE INDEX IF NOT EXISTS balance_events_payout_once_idx
+    ON public.balance_events (user_id, ref) WHERE kind = 'payout';
+
+CREATE TABLE IF NOT EXISTS public.balance_snapshots (
+    user_id       uuid PRIMARY KEY REFERENCES public.user_profiles (id) ON DELETE CASCADE,
+    balance       integer     NOT NULL,
+    last_event_id bigint      NOT NULL DEFAULT 0,
+    taken_at      timestamptz NOT NULL DEFAULT now()
+);
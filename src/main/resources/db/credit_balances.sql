@@ -0,0 +1,50 @@
+-- Bulk balance credit used by poll resolution.
+--
+-- Adds each amount to its user's obrobucks in one statement, at most once per user and ref (e.g.
+-- 'poll:42'): the credit is recorded in balance_credits and users already recorded for the ref are
+-- skipped, so a resolution retried after failing part-way never pays anyone twice. Returns the
+-- balances of every user credited under the ref, earlier calls included. The increment happens in
+-- the database, so there is no read-modify-write from the app. Called as
+-- POST /rest/v1/rpc/credit_balances with {"p_credits": [{"user_id": "...", "amount": 47}, ...],
+-- "p_ref": "poll:42"}. Install once with the SQL editor or psql. The JDBC backend needs no function:
+-- it runs the same statement directly.
+
+CREATE TABLE IF NOT EXISTS public.balance_credits (
+    user_id    uuid        NOT NULL REFERENCES public.user_profiles (id) ON DELETE CASCADE,
+    ref        text        NOT NULL,
+    amount     integer     NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now(),
+    PRIMARY KEY (user_id, ref)
+);
+
+CREATE INDEX IF NOT EXISTS balance_credits_ref_idx ON public.balance_credits (ref);
+
+-- The earlier version took no ref
+DROP FUNCTION IF EXISTS public.credit_balances(jsonb);
+
+CREATE OR REPLACE FUNCTION public.credit_balances(p_credits jsonb, p_ref text)
+RETURNS TABLE (id uuid, obrobucks integer)
+LANGUAGE sql
+AS $$
+    WITH fresh AS (
+        INSERT INTO balance_credits (user_id, ref, amount)
+        SELECT c.user_id, p_ref, c.amount
+          FROM jsonb_to_recordset(p_credits) AS c(user_id uuid, amount integer)
+          JOIN user_profiles u ON u.id = c.user_id
+        ON CONFLICT (user_id, ref) DO NOTHING
+        RETURNING user_id, amount
+    ), paid AS (
+        UPDATE user_profiles u
+           SET obrobucks = coalesce(u.obrobucks, 0) + f.amount
+          FROM fresh f
+         WHERE u.id = f.user_id
+        RETURNING u.id, u.obrobucks
+    )
+    SELECT paid.id, paid.obrobucks FROM paid
+    UNION ALL
+    -- Credited by earlier calls: the statement's snapshot does not include this call's inserts
+    SELECT u.id, u.obrobucks
+      FROM balance_credits b
+      JOIN user_profiles u ON u.id = b.user_id
+     WHERE b.ref = p_ref;
+$$;
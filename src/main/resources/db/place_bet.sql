@@ -0,0 +1,90 @@
+-- Atomic bet placement for betting.placement.mode=rpc.
+--
+-- Validates the poll and option, debits the stake only if the balance covers it, bumps the poll's
+-- total_bets and inserts the bet in one transaction, then returns the new balance and the odds the
+-- bet was placed at. Called as POST /rest/v1/rpc/place_bet (PostgREST) or SELECT * FROM place_bet(...)
+-- (JDBC backend). Install once with the SQL editor or psql before switching the mode on.
+--
+-- Locks: the user's row (serializes that user's bets) and the poll's row for the short rest of the
+-- transaction, replacing the app's unlocked read-modify-write of obrobucks and total_bets.
+
+CREATE OR REPLACE FUNCTION public.place_bet(
+    p_user_id     uuid,
+    p_poll_id     bigint,
+    p_option_text text,
+    p_amount      integer,
+    p_house_take  numeric DEFAULT 0.05
+)
+RETURNS TABLE (
+    status           text,
+    bet_id           bigint,
+    new_balance      integer,
+    option_total     bigint,
+    pool_total       bigint,
+    potential_payout integer,
+    odds             numeric
+)
+LANGUAGE plpgsql
+AS $$
+#variable_conflict use_column
+DECLARE
+    v_status  text;
+    v_balance integer;
+    v_pool    bigint;
+    v_option  bigint;
+    v_net     numeric;
+    v_payout  integer;
+    v_bet_id  bigint;
+BEGIN
+    IF p_amount IS NULL OR p_amount <= 0 THEN
+        RETURN QUERY SELECT 'invalid_amount', NULL::bigint, NULL::integer, NULL::bigint, NULL::bigint, NULL::integer, NULL::numeric;
+        RETURN;
+    END IF;
+
+    SELECT p.status INTO v_status FROM polls p WHERE p.id = p_poll_id;
+    IF NOT FOUND THEN
+        RETURN QUERY SELECT 'poll_not_found', NULL::bigint, NULL::integer, NULL::bigint, NULL::bigint, NULL::integer, NULL::numeric;
+        RETURN;
+    END IF;
+    IF v_status = 'CLOSED' THEN
+        RETURN QUERY SELECT 'poll_closed', NULL::bigint, NULL::integer, NULL::bigint, NULL::bigint, NULL::integer, NULL::numeric;
+        RETURN;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM poll_options o WHERE o.poll_id = p_poll_id AND o.option_text = p_option_text) THEN
+        RETURN QUERY SELECT 'invalid_option', NULL::bigint, NULL::integer, NULL::bigint, NULL::bigint, NULL::integer, NULL::numeric;
+        RETURN;
+    END IF;
+
+    -- Conditional debit: no row means the user is missing or cannot cover the stake
+    UPDATE user_profiles u
+       SET obrobucks = u.obrobucks - p_amount
+     WHERE u.id = p_user_id AND u.obrobucks >= p_amount
+    RETURNING u.obrobucks INTO v_balance;
+    IF NOT FOUND THEN
+        SELECT u.obrobucks INTO v_balance FROM user_profiles u WHERE u.id = p_user_id;
+        RETURN QUERY SELECT CASE WHEN FOUND THEN 'insufficient_funds' ELSE 'user_not_found' END,
+                            NULL::bigint, v_balance, NULL::bigint, NULL::bigint, NULL::integer, NULL::numeric;
+        RETURN;
+    END IF;
+
+    UPDATE polls p
+       SET total_bets = coalesce(p.total_bets, 0) + p_amount
+     WHERE p.id = p_poll_id
+    RETURNING p.total_bets INTO v_pool;
+
+    SELECT coalesce(sum(b.amount), 0) + p_amount INTO v_option
+      FROM bets b
+     WHERE b.poll_id = p_poll_id AND b.option_text = p_option_text;
+
+    -- Pari-mutuel quote with this bet in the pools, as PariMutuelOdds computes it: the payout divides
+    -- last so an even share is exact
+    v_net := v_pool * (1 - p_house_take) / v_option;
+    v_payout := floor(p_amount * v_pool * (1 - p_house_take) / v_option)::integer;
+
+    INSERT INTO bets (poll_id, user_id, option_text, amount, potential_payout, created_at, is_winner)
+    VALUES (p_poll_id, p_user_id, p_option_text, p_amount, v_payout, now(), NULL)
+    RETURNING id INTO v_bet_id;
+
+    RETURN QUERY SELECT 'ok', v_bet_id, v_balance, v_option, v_pool, v_payout, round(v_net, 2);
+END;
+$$;
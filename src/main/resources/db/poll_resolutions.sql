@@ -0,0 +1,17 @@
+-- One row per resolved poll. A resolution job claims the poll by inserting its row in the
+-- 'resolving' state (a second claim finds the row instead) and sets it 'resolved', with the
+-- totals, once the winners are paid. GET /api/polls/{id}/winner reads resolved rows (through an
+-- in-memory map) instead of scanning bets. Install once with the SQL editor or psql.
+
+CREATE TABLE IF NOT EXISTS public.poll_resolutions (
+    poll_id        bigint PRIMARY KEY REFERENCES public.polls (id) ON DELETE CASCADE,
+    winning_option text        NOT NULL,
+    winners_count  integer     NOT NULL DEFAULT 0,
+    total_pool     bigint      NOT NULL DEFAULT 0,
+    total_paid_out bigint      NOT NULL DEFAULT 0,
+    resolved_at    timestamptz NOT NULL DEFAULT now()
+);
+
+-- Rows from before claims existed are all finished resolutions
+ALTER TABLE public.poll_resolutions ADD COLUMN IF NOT EXISTS state text NOT NULL DEFAULT 'resolved'
+    CHECK (state IN ('resolving', 'resolved'));
@@ -0,0 +1,132 @@
+package com.example.rest_service;
+
+import com.example.rest_service.sim.PostgrestSimulator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Boots the native executable (-Dnative.binary, set by gradle -Pnative nativeSmokeTest) against the
+ * PostgREST simulator and checks the endpoints mobile clients poll most. Reports startup time and RSS.
+ */
+@Tag("native")
+class NativeSmokeTests {
+
+    private static final Pattern PORT = Pattern.compile("Tomcat started on port (\\d+)");
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([\\d.]+) seconds");
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper json = new ObjectMapper();
+
+    private PostgrestSimulator sim;
+    private Process app;
+
+    @BeforeEach
+    void start() throws IOException {
+        String binary = System.getProperty("native.binary");
+        assumeTrue(binary != null && Files.isExecutable(Path.of(binary)), "native.binary not built");
+
+        sim = PostgrestSimulator.start(0);
+        sim.seed(5, 3, 4, 7);
+
+        ProcessBuilder pb = new ProcessBuilder(binary, "--server.port=0", "--supabase.url=" + sim.url())
+            .redirectErrorStream(true);
+        pb.environment().putAll(Map.of(
+            "SUPABASE_ANON_KEY", "native-smoke",
+            "SUPABASE_SERVICE_ROLE_KEY", "native-smoke",
+            "GITHUB_CLIENT_ID", "native-smoke",
+            "GITHUB_CLIENT_SECRET", "native-smoke"));
+        app = pb.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (app != null) app.destroy();
+        if (sim != null) sim.close();
+    }
+
+    @Test
+    void servesPollsAndBalances() throws Exception {
+        int port = awaitStartup();
+        String base = "http://127.0.0.1:" + port;
+
+        HttpResponse<String> polls = get(base + "/api/polls");
+        assertEquals(200, polls.statusCode());
+        List<Map<String, Object>> pollList = json.readValue(polls.body(), new TypeReference<>() {});
+        assertEquals(3, pollList.size());
+        assertTrue(!((List<?>) pollList.get(0).get("options")).isEmpty(), "options joined");
+
+        String userId = (String) sim.rows("user_profiles", "limit=1").get(0).get("id");
+        HttpResponse<String> balance = get(base + "/api/gambling/balance/" + userId);
+        assertEquals(200, balance.statusCode());
+        Map<String, Object> body = json.readValue(balance.body(), new TypeReference<>() {});
+        assertTrue(body.get("balance") instanceof Number, "balance in " + balance.body());
+
+        System.out.println("Native RSS: " + rssKb(app.pid()) + " kB");
+    }
+
+    /**
+     * Echo the app's log until Tomcat reports its port and Spring reports startup time
+     */
+    private int awaitStartup() throws Exception {
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(app.getInputStream()))) {
+                String line;
+                Integer found = null;
+                while ((line = out.readLine()) != null) {
+                    System.out.println(line);
+                    Matcher m = PORT.matcher(line);
+                    if (m.find()) found = Integer.parseInt(m.group(1));
+                    Matcher s = STARTED.matcher(line);
+                    if (s.find()) {
+                        System.out.println("Native startup: " + s.group(1) + " s");
+                        port.complete(found);
+                    }
+                }
+                port.completeExceptionally(new IllegalStateException("App exited before startup"));
+            } catch (IOException e) {
+                port.completeExceptionally(e);
+            }
+        });
+        return port.get(60, TimeUnit.SECONDS);
+    }
+
+    private HttpResponse<String> get(String url) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String rssKb(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc/" + pid + "/status")).stream()
+                .filter(l -> l.startsWith("VmRSS:"))
+                .map(l -> l.replaceAll("\\D", ""))
+                .findFirst().orElse("?");
+        } catch (IOException e) {
+            return "?";
+        }
+    }
+}
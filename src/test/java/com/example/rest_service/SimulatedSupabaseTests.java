@@ -0,0 +1,248 @@
+package com.example.rest_service;
+
+import com.example.rest_service.sim.PostgrestSimulator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end betting flow against the in-process PostgREST simulator, no Supabase account needed.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "SUPABASE_ANON_KEY=simulated",
+        "SUPABASE_SERVICE_ROLE_KEY=simulated",
+        "GITHUB_CLIENT_ID=simulated",
+        "GITHUB_CLIENT_SECRET=simulated"
+    })
+class SimulatedSupabaseTests {
+
+    private static final PostgrestSimulator SIM = startSimulator();
+
+    private static final ParameterizedTypeReference<Map<String, Object>> OBJECT = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LIST = new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    private TestRestTemplate http;
+
+    private static PostgrestSimulator startSimulator() {
+        try {
+            return PostgrestSimulator.start(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void supabase(DynamicPropertyRegistry registry) {
+        registry.add("supabase.url", SIM::url);
+    }
+
+    @AfterAll
+    static void stop() {
+        SIM.close();
+    }
+
+    @BeforeEach
+    void reset() {
+        SIM.clear();
+    }
+
+    @Test
+    void placeBetAndResolvePoll() throws InterruptedException {
+        String alice = (String) SIM.insert("user_profiles", Map.of("username", "alice", "email", "a@x.test", "obrobucks", 100)).get("id");
+        String bob = (String) SIM.insert("user_profiles", Map.of("username", "bob", "email", "b@x.test", "obrobucks", 100)).get("id");
+
+        long pollId = createPoll(alice);
+
+        assertEquals(200, placeBet(alice, pollId, "Yes", 30).getStatusCode().value());
+        assertEquals(200, placeBet(bob, pollId, "No", 20).getStatusCode().value());
+        assertEquals(400, placeBet(bob, pollId, "No", 500).getStatusCode().value());
+
+        Map<String, Object> stats = http.exchange("/api/betting/stats/" + pollId, HttpMethod.GET, null, OBJECT).getBody();
+        assertEquals(50, stats.get("grandTotal"));
+
+        ResponseEntity<Map<String, Object>> accepted = http.exchange("/api/polls/" + pollId + "/resolve", HttpMethod.POST,
+            new HttpEntity<>(Map.of("winningOption", "Yes")), OBJECT);
+        assertEquals(202, accepted.getStatusCode().value());
+        Map<String, Object> resolved = awaitResolution(accepted.getHeaders().getLocation().getPath());
+        assertEquals("SUCCEEDED", resolved.get("state"));
+        assertEquals(1, resolved.get("winnersCount"));
+
+        // 100 - 30 + pari-mutuel share: 30 * 50 * 0.95 / 30 = 47.5, rounded down
+        assertEquals(117, balance(alice));
+        assertEquals(80, balance(bob));
+
+        Map<String, Object> winner = http.exchange("/api/polls/" + pollId + "/winner", HttpMethod.GET, null, OBJECT).getBody();
+        assertEquals("Yes", winner.get("winningOption"));
+    }
+
+    @Test
+    void interruptedResolutionFinishesWithoutPayingTwice() throws InterruptedException {
+        String alice = (String) SIM.insert("user_profiles", Map.of("username", "alice", "obrobucks", 100)).get("id");
+        String bob = (String) SIM.insert("user_profiles", Map.of("username", "bob", "obrobucks", 100)).get("id");
+        String carol = (String) SIM.insert("user_profiles", Map.of("username", "carol", "obrobucks", 100)).get("id");
+        long pollId = ((Number) http.exchange("/api/polls", HttpMethod.POST,
+            new HttpEntity<>(Map.of("question", "Sun tomorrow?", "options", List.of("Yes", "No"), "status", "APPROVED",
+                "createdBy", alice)),
+            OBJECT).getBody().get("id")).longValue();
+
+        placeBet(alice, pollId, "Yes", 30);
+        placeBet(carol, pollId, "Yes", 20);
+        placeBet(bob, pollId, "No", 50);
+
+        // An earlier attempt claimed the poll and recorded alice's payout, then failed
+        SIM.insert("poll_resolutions", Map.of("poll_id", pollId, "winning_option", "Yes", "state", "resolving"));
+        SIM.insert("balance_credits", Map.of("user_id", alice, "ref", "poll:" + pollId, "amount", 57));
+
+        ResponseEntity<Map<String, Object>> accepted = http.exchange("/api/polls/" + pollId + "/resolve", HttpMethod.POST,
+            new HttpEntity<>(Map.of("winningOption", "Yes")), OBJECT);
+        Map<String, Object> resolved = awaitResolution(accepted.getHeaders().getLocation().getPath());
+        assertEquals("SUCCEEDED", resolved.get("state"));
+        assertEquals(2, resolved.get("usersCredited"));
+
+        // Only carol is paid now: 20 * 100 * 0.95 / 50 = 38
+        assertEquals(70, balance(alice));
+        assertEquals(118, balance(carol));
+
+        assertEquals(400, http.exchange("/api/polls/" + pollId + "/resolve", HttpMethod.POST,
+            new HttpEntity<>(Map.of("winningOption", "Yes")), OBJECT).getStatusCode().value());
+        assertEquals(118, balance(carol));
+    }
+
+    @Test
+    void debitStartsFromTheStoredBalanceNotTheCachedProfile() throws Exception {
+        String alice = (String) SIM.insert("user_profiles", Map.of("username", "alice", "obrobucks", 100)).get("id");
+        long pollId = createPoll(alice);
+        assertEquals(200, http.exchange("/api/users/" + alice, HttpMethod.GET, null, OBJECT).getStatusCode().value());
+
+        // Another instance changes the row after the profile was cached here
+        patchBehindTheService("user_profiles?id=eq." + alice, "{\"obrobucks\":50}");
+
+        ResponseEntity<Map<String, Object>> placed = placeBet(alice, pollId, "Yes", 30);
+        assertEquals(200, placed.getStatusCode().value());
+        assertEquals(20, placed.getBody().get("newBalance"));
+        assertEquals(20, SIM.rows("user_profiles", "id=eq." + alice).get(0).get("obrobucks"));
+    }
+
+    @Test
+    void betsOnAClosedPollOrForNothingAreRefusedBeforeTheDebit() throws Exception {
+        String alice = (String) SIM.insert("user_profiles", Map.of("username", "alice", "obrobucks", 100)).get("id");
+        long pollId = createPoll(alice);
+        assertEquals(200, placeBet(alice, pollId, "Yes", 10).getStatusCode().value());
+
+        assertEquals(400, placeBet(alice, pollId, "Yes", 0).getStatusCode().value());
+        assertEquals(400, placeBet(alice, pollId, "Yes", -5).getStatusCode().value());
+
+        // Closed by another instance while this one still has the poll in its catalog
+        patchBehindTheService("polls?id=eq." + pollId, "{\"status\":\"CLOSED\"}");
+        ResponseEntity<Map<String, Object>> refused = placeBet(alice, pollId, "Yes", 10);
+        assertEquals(400, refused.getStatusCode().value());
+        assertEquals("Poll already closed", refused.getBody().get("error"));
+
+        assertEquals(90, SIM.rows("user_profiles", "id=eq." + alice).get(0).get("obrobucks"));
+        assertEquals(1, SIM.rows("bets", "poll_id=eq." + pollId).size());
+    }
+
+    @Test
+    void keysetPagesWalkTheWholeList() {
+        SIM.seed(5, 7, 0, 1);
+
+        int seen = 0;
+        String cursor = null;
+        do {
+            ResponseEntity<List<Map<String, Object>>> page = http.exchange(
+                "/api/polls?limit=3" + (cursor != null ? "&cursor=" + cursor : ""), HttpMethod.GET, null, LIST);
+            assertTrue(page.getBody().size() <= 3);
+            seen += page.getBody().size();
+            cursor = page.getHeaders().getFirst("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertEquals(7, seen);
+
+        // A cursor whose id is not a poll id never reaches the query
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("2024-01-01T00:00Z|1\"),id.gt.(0".getBytes(StandardCharsets.UTF_8));
+        assertEquals(400, http.exchange("/api/polls?cursor=" + tampered, HttpMethod.GET, null, LIST).getStatusCode().value());
+    }
+
+    @Test
+    void upstreamFailureSurfacesAsServerError() {
+        String carol = (String) SIM.insert("user_profiles", Map.of("username", "carol", "obrobucks", 10)).get("id");
+        // 503 would be retried once by the HTTP client, so fail with a non-retriable status
+        SIM.errorStatus(500).failNext(1);
+
+        ResponseEntity<Map<String, Object>> resp = http.exchange("/api/gambling/balance/" + carol, HttpMethod.GET, null, OBJECT);
+        assertEquals(500, resp.getStatusCode().value());
+        assertEquals(10, balance(carol));
+    }
+
+    private ResponseEntity<Map<String, Object>> placeBet(String userId, long pollId, String option, int amount) {
+        return http.exchange("/api/betting/place", HttpMethod.POST,
+            new HttpEntity<>(Map.of(
+                "userId", userId, "pollId", pollId, "optionText", option, "amount", amount)),
+            OBJECT);
+    }
+
+    private Map<String, Object> awaitResolution(String jobPath) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> job = http.exchange(jobPath, HttpMethod.GET, null, OBJECT).getBody();
+            if (job.get("finishedAt") != null) return job;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Resolution did not finish: " + jobPath);
+    }
+
+    private long createPoll(String createdBy) {
+        ResponseEntity<Map<String, Object>> created = http.exchange("/api/polls", HttpMethod.POST,
+            new HttpEntity<>(Map.of(
+                "question", "Will it rain?",
+                "options", List.of("Yes", "No"),
+                "status", "APPROVED",
+                "createdBy", createdBy)),
+            OBJECT);
+        assertEquals(201, created.getStatusCode().value());
+        return ((Number) created.getBody().get("id")).longValue();
+    }
+
+    /**
+     * A PATCH straight to the simulator, as another instance of the service would write
+     */
+    private static void patchBehindTheService(String path, String json) throws Exception {
+        HttpRequest patch = HttpRequest.newBuilder(URI.create(SIM.url() + "/rest/v1/" + path))
+            .header("apikey", "simulated")
+            .header("Content-Type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(json))
+            .build();
+        assertTrue(HttpClient.newHttpClient().send(patch, HttpResponse.BodyHandlers.discarding()).statusCode() < 300);
+    }
+
+    private int balance(String userId) {
+        Map<String, Object> body = http.exchange("/api/gambling/balance/" + userId, HttpMethod.GET, null, OBJECT).getBody();
+        return ((Number) body.get("balance")).intValue();
+    }
+}
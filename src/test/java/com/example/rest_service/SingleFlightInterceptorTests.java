@@ -0,0 +1,202 @@
+package com.example.rest_service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-flight coalescing against a stub upstream that holds every call until released.
+ */
+class SingleFlightInterceptorTests {
+
+    private static final String POLL = "http://upstream/rest/v1/polls?id=eq.1";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlightInterceptor interceptor = new SingleFlightInterceptor(registry);
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneCall() throws Exception {
+        ClientHttpRequestExecution upstream = held(() -> ok("[{\"id\":1}]"));
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(callers.submit(() -> body(interceptor.intercept(get(POLL, null), new byte[0], upstream))));
+        }
+        await(() -> hits() == 9);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("[{\"id\":1}]", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1.0, registry.get("supabase.http.coalesce.misses").counter().count());
+    }
+
+    @Test
+    void differentUrisAndHeadersGoUpstreamSeparately() throws Exception {
+        ClientHttpRequestExecution upstream = held(() -> ok("[]"));
+
+        List<Future<String>> results = new ArrayList<>();
+        results.add(callers.submit(() -> body(interceptor.intercept(get(POLL, null), new byte[0], upstream))));
+        results.add(callers.submit(() -> body(interceptor.intercept(get(POLL + "&select=id", null), new byte[0], upstream))));
+        results.add(callers.submit(() -> body(interceptor.intercept(get(POLL, "count=exact"), new byte[0], upstream))));
+
+        // All three are held upstream at once, which they could not be if any had been coalesced
+        await(() -> upstreamCalls.get() == 3);
+        release.countDown();
+        for (Future<String> result : results) result.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0.0, hits());
+    }
+
+    @Test
+    void readsThatFeedAWriteAreNeverShared() throws Exception {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        ClientHttpRequestExecution held = held(() -> ok("[{\"obrobucks\":100}]"));
+        ClientHttpRequestExecution upstream = (request, body) -> {
+            sent.add(String.valueOf(request.getHeaders().getFirst(SingleFlightInterceptor.NO_COALESCE)));
+            return held.execute(request, body);
+        };
+
+        Future<String> plain = callers.submit(() -> body(interceptor.intercept(get(POLL, null), new byte[0], upstream)));
+        await(() -> upstreamCalls.get() == 1);
+        List<Future<String>> fresh = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            fresh.add(callers.submit(() -> body(interceptor.intercept(freshGet(POLL), new byte[0], upstream))));
+        }
+
+        // Neither joins the read already in flight nor each other, and the marker is not sent
+        await(() -> upstreamCalls.get() == 3);
+        release.countDown();
+        plain.get(5, TimeUnit.SECONDS);
+        for (Future<String> result : fresh) result.get(5, TimeUnit.SECONDS);
+
+        assertEquals(0.0, hits());
+        assertEquals(2.0, registry.get("supabase.http.coalesce.bypassed").counter().count());
+        assertEquals(List.of("null", "null", "null"), sent);
+    }
+
+    @Test
+    void leaderFailureReachesEveryFollower() throws Exception {
+        ClientHttpRequestExecution upstream = held(() -> {
+            throw new IOException("connection reset");
+        });
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(() -> body(interceptor.intercept(get(POLL, null), new byte[0], upstream))));
+        }
+        await(() -> hits() == 3);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+            assertEquals("connection reset", e.getCause().getMessage());
+        }
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void finishedRequestsLeaveNothingBehind() throws Exception {
+        release.countDown();
+        ClientHttpRequestExecution upstream = held(() -> ok("[]"));
+
+        body(interceptor.intercept(get(POLL, null), new byte[0], upstream));
+        assertEquals(0.0, registry.get("supabase.http.coalesce.in_flight").gauge().value());
+
+        // The next identical GET is a fresh upstream call, not a replay of the last response
+        body(interceptor.intercept(get(POLL, null), new byte[0], upstream));
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0.0, hits());
+    }
+
+    private interface Upstream {
+        ClientHttpResponse respond() throws IOException;
+    }
+
+    /**
+     * An execution that counts calls and holds each one until release
+     */
+    private ClientHttpRequestExecution held(Upstream upstream) {
+        return (request, body) -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return upstream.respond();
+        };
+    }
+
+    private static MockClientHttpRequest get(String uri, String prefer) {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create(uri));
+        request.getHeaders().set("apikey", "key");
+        if (prefer != null) request.getHeaders().set("Prefer", prefer);
+        return request;
+    }
+
+    private static MockClientHttpRequest freshGet(String uri) {
+        MockClientHttpRequest request = get(uri, null);
+        request.getHeaders().set(SingleFlightInterceptor.NO_COALESCE, "true");
+        return request;
+    }
+
+    private static ClientHttpResponse ok(String body) {
+        return new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        return new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private double hits() {
+        return registry.get("supabase.http.coalesce.hits").counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for callers");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.rest_service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many requests the app can keep in flight against a slow upstream,
+ * once on the platform Tomcat pool and once with spring.threads.virtual.enabled=true.
+ * Run with: gradle virtualThreadBenchmark
+ */
+@Tag("benchmark")
+class VirtualThreadConcurrencyBenchmark {
+
+    private static final int CLIENTS = 400;
+    private static final int TOMCAT_MAX_THREADS = 50;
+    private static final int UPSTREAM_LATENCY_MS = 300;
+    private static final int ROUNDS = 3;
+    private static final Pattern USER_ID_FILTER = Pattern.compile("id=eq\\.([0-9a-f-]{36})");
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private HttpServer upstream;
+
+    @BeforeEach
+    void startUpstream() throws Exception {
+        // The JDK server closes idle keep-alive connections above 200 by default, which the pooled client would then reuse
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(CLIENTS * 2));
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.createContext("/rest/v1/user_profiles", exchange -> {
+            int now = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(UPSTREAM_LATENCY_MS);
+                // Every user exists: answer with whichever id was asked for
+                Matcher id = USER_ID_FILTER.matcher(exchange.getRequestURI().getRawQuery());
+                String userId = id.find() ? id.group(1) : UUID.randomUUID().toString();
+                byte[] body = ("[{\"id\":\"" + userId + "\",\"obrobucks\":100}]").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        upstream.start();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void virtualThreadsRaiseTheConcurrencyCeiling() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.println();
+        System.out.println("=== Concurrency ceiling: " + CLIENTS + " clients, " + UPSTREAM_LATENCY_MS
+            + "ms upstream, tomcat threads.max=" + TOMCAT_MAX_THREADS + " ===");
+        System.out.println(platform.describe("platform threads"));
+        System.out.println(virtual.describe("virtual threads "));
+
+        assertTrue(virtual.peakInFlight > platform.peakInFlight,
+            "virtual threads should keep more upstream calls in flight than the platform pool");
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        peakInFlight.set(0);
+        String upstreamUrl = "http://127.0.0.1:" + upstream.getAddress().getPort();
+
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(RestServiceApplication.class)
+            .properties(
+                "SUPABASE_ANON_KEY=benchmark",
+                "SUPABASE_SERVICE_ROLE_KEY=benchmark",
+                "GITHUB_CLIENT_ID=benchmark",
+                "GITHUB_CLIENT_SECRET=benchmark")
+            .run(
+                "--server.port=0",
+                "--supabase.url=" + upstreamUrl,
+                "--supabase.key=benchmark",
+                "--supabase.http.max-total=" + (CLIENTS * 2),
+                "--supabase.http.max-per-route=" + (CLIENTS * 2),
+                "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                "--server.tomcat.accept-count=" + (CLIENTS * 2),
+                "--supabase.http.coalesce.enabled=false",
+                "--cache.users.enabled=false",
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+
+        try {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+            String balances = "http://127.0.0.1:" + port + "/api/gambling/balance/";
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder().executor(clients).build();
+
+                // Warm up connections and JIT before measuring
+                http.send(balance(balances), HttpResponse.BodyHandlers.discarding());
+                peakInFlight.set(0);
+
+                // Best of a few rounds so connection setup in the first burst does not dominate
+                Result best = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                    peakInFlight.set(0);
+                    long start = System.nanoTime();
+                    List<CompletableFuture<HttpResponse<Void>>> calls = new ArrayList<>();
+                    // A different user per request, so no cache or coalescing can answer one from another
+                    for (int i = 0; i < CLIENTS; i++) {
+                        calls.add(http.sendAsync(balance(balances), HttpResponse.BodyHandlers.discarding()));
+                    }
+                    CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+                    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+                    long ok = calls.stream().filter(c -> c.join().statusCode() == 200).count();
+                    Result result = new Result(peakInFlight.get(), elapsedMs, ok);
+                    System.out.println(result.describe((virtualThreads ? "virtual" : "platform") + " round " + round));
+                    if (best == null || result.elapsedMs < best.elapsedMs) {
+                        best = result;
+                    }
+                }
+                return best;
+            }
+        } finally {
+            app.close();
+        }
+    }
+
+    private static HttpRequest balance(String balances) {
+        return HttpRequest.newBuilder(URI.create(balances + UUID.randomUUID())).GET().build();
+    }
+
+    private record Result(int peakInFlight, long elapsedMs, long ok) {
+        String describe(String label) {
+            double throughput = elapsedMs == 0 ? 0 : ok * 1000.0 / elapsedMs;
+            return String.format("%s: peak in-flight upstream calls=%d, wall=%dms, ok=%d, throughput=%.1f req/s",
+                label, peakInFlight, elapsedMs, ok, throughput);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.rest_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-user lanes: ordering, parallelism across users, forAll() gates, the per-user limit and metrics.
+ */
+class BalanceExecutorTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+    private final UUID carol = UUID.randomUUID();
+    private BalanceExecutor executor;
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (executor != null) executor.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void oneUsersOperationsRunInOrderOneAtATime() throws Exception {
+        executor = new BalanceExecutor(registry, true, 100);
+        Future<?> holding = hold(alice);
+
+        // Queued one by one behind the held operation, so the queue order is known
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlap = new AtomicInteger();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            results.add(callers.submit(() -> executor.submit(alice, () -> {
+                if (running.incrementAndGet() > 1) overlap.incrementAndGet();
+                order.add(n);
+                Thread.yield();
+                running.decrementAndGet();
+                return n;
+            })));
+            await(() -> queueDepth() == n + 2);
+        }
+
+        release.countDown();
+        holding.get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, overlap.get());
+        for (int i = 0; i < order.size(); i++) assertEquals(i, order.get(i));
+    }
+
+    @Test
+    void differentUsersRunAtTheSameTime() throws Exception {
+        executor = new BalanceExecutor(registry, true, 100);
+
+        // Each operation waits for the other, so neither finishes unless both are running
+        CountDownLatch both = new CountDownLatch(2);
+        Future<Boolean> first = callers.submit(() -> executor.submit(alice, () -> meet(both)));
+        Future<Boolean> second = callers.submit(() -> executor.submit(bob, () -> meet(both)));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void forAllHoldsTheLanesItCoversUntilItFinishes() throws Exception {
+        executor = new BalanceExecutor(registry, true, 100);
+
+        CountDownLatch inside = new CountDownLatch(1);
+        Future<String> payout = callers.submit(() -> executor.forAll(List.of(alice, bob), () -> {
+            inside.countDown();
+            awaitRelease();
+            return "paid";
+        }));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger aliceRan = new AtomicInteger();
+        Future<?> blocked = callers.submit(() -> executor.submit(alice, aliceRan::incrementAndGet));
+        await(() -> queueDepth() == 3);
+        assertEquals(1, executor.submit(carol, () -> 1));
+        assertEquals(0, aliceRan.get());
+
+        release.countDown();
+        assertEquals("paid", payout.get(5, TimeUnit.SECONDS));
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals(1, aliceRan.get());
+    }
+
+    @Test
+    void forAllReleasesItsLanesWhenTheOperationFails() throws Exception {
+        executor = new BalanceExecutor(registry, true, 100);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> executor.forAll(Set.of(alice, bob), () -> {
+                throw new IllegalStateException("credit failed");
+            }));
+        assertEquals("credit failed", e.getMessage());
+
+        assertEquals(1, callers.submit(() -> executor.submit(alice, () -> 1)).get(5, TimeUnit.SECONDS));
+        assertEquals(2, callers.submit(() -> executor.submit(bob, () -> 2)).get(5, TimeUnit.SECONDS));
+        await(() -> queueDepth() == 0 && lanes() == 0);
+    }
+
+    @Test
+    void forAllReleasesTheLanesItGotWhenAnotherIsFull() throws Exception {
+        executor = new BalanceExecutor(registry, true, 1);
+        Future<?> holding = hold(alice);
+
+        AtomicInteger ran = new AtomicInteger();
+        assertThrows(RejectedExecutionException.class,
+            () -> executor.forAll(List.of(bob, alice), ran::incrementAndGet));
+        assertEquals(0, ran.get());
+
+        // bob's gate was queued before alice's lane refused, and has been opened
+        assertEquals(2, callers.submit(() -> executor.submit(bob, () -> 2)).get(5, TimeUnit.SECONDS));
+        release.countDown();
+        holding.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void fullLaneRejectsTheNextOperation() throws Exception {
+        executor = new BalanceExecutor(registry, true, 2);
+        Future<?> holding = hold(alice);
+        Future<Integer> queued = callers.submit(() -> executor.submit(alice, () -> 1));
+        await(() -> queueDepth() == 2);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(alice, () -> 2));
+        assertEquals(1.0, registry.get("balance.executor.rejected").counter().count());
+        assertEquals(3, executor.submit(bob, () -> 3));
+
+        release.countDown();
+        holding.get(5, TimeUnit.SECONDS);
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void metricsFollowTheQueues() throws Exception {
+        executor = new BalanceExecutor(registry, true, 100);
+        Future<?> aliceHeld = hold(alice);
+        Future<?> bobHeld = hold(bob);
+        Future<Integer> queued = callers.submit(() -> executor.submit(alice, () -> 1));
+        await(() -> queueDepth() == 3);
+
+        assertEquals(2, lanes());
+        // Recorded on enqueue: alice's and bob's first operations found empty lanes, the third one
+        assertEquals(3, registry.get("balance.executor.lane.depth").summary().count());
+        assertEquals(1.0, registry.get("balance.executor.lane.depth").summary().max());
+
+        release.countDown();
+        aliceHeld.get(5, TimeUnit.SECONDS);
+        bobHeld.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        await(() -> queueDepth() == 0 && lanes() == 0);
+        assertEquals(3, registry.get("balance.executor.wait").timer().count());
+    }
+
+    @Test
+    void disabledExecutorRunsOnTheCallersThread() {
+        executor = new BalanceExecutor(registry, false, 1);
+        Thread caller = Thread.currentThread();
+
+        assertTrue(executor.submit(alice, () -> Thread.currentThread() == caller));
+        assertTrue(executor.forAll(List.of(alice, bob), () -> Thread.currentThread() == caller));
+        assertFalse(registry.get("balance.executor.wait").timer().count() > 0);
+    }
+
+    /**
+     * An operation in the user's lane that runs until the test releases it
+     */
+    private Future<?> hold(UUID userId) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> holding = callers.submit(() -> executor.submit(userId, () -> {
+            started.countDown();
+            awaitRelease();
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return holding;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean meet(CountDownLatch both) {
+        both.countDown();
+        try {
+            return both.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private double queueDepth() {
+        return registry.get("balance.executor.queue.depth").gauge().value();
+    }
+
+    private double lanes() {
+        return registry.get("balance.executor.lanes").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the executor");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.SupabaseConfig;
+import com.example.rest_service.model.BalanceChange;
+import com.example.rest_service.model.BalanceEvent;
+import com.example.rest_service.model.BalanceSnapshot;
+import com.example.rest_service.model.UserBalance;
+import com.example.rest_service.repository.BalanceLedgerJdbcRepository;
+import com.example.rest_service.repository.DataBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Snapshots and tail replay against in-memory balance_events and balance_snapshots on the JDBC path.
+ */
+class BalanceLedgerTests {
+
+    /**
+     * Numbers events in the order they arrive; saving a snapshot can be made to fail, and something
+     * can be run once after a tail has been read
+     */
+    private static final class StubLedger extends BalanceLedgerJdbcRepository {
+        final List<BalanceEvent> events = new CopyOnWriteArrayList<>();
+        final Map<UUID, BalanceSnapshot> snapshots = new ConcurrentHashMap<>();
+        volatile RuntimeException snapshotFailure;
+        volatile Runnable afterTailRead;
+
+        StubLedger() {
+            super(null);
+        }
+
+        @Override
+        public Optional<BalanceSnapshot> findSnapshot(UUID userId) {
+            return Optional.ofNullable(snapshots.get(userId));
+        }
+
+        @Override
+        public List<BalanceEvent> findTail(UUID userId, long afterEventId) {
+            List<BalanceEvent> tail = events.stream().filter(e -> e.userId().equals(userId) && e.id() > afterEventId).toList();
+            Runnable after = afterTailRead;
+            afterTailRead = null;
+            if (after != null) after.run();
+            return tail;
+        }
+
+        @Override
+        public List<BalanceEvent> findByRef(String kind, String ref) {
+            return events.stream().filter(e -> e.kind().equals(kind) && ref.equals(e.ref())).toList();
+        }
+
+        @Override
+        public synchronized List<BalanceEvent> appendAll(List<BalanceEvent> appended) {
+            List<BalanceEvent> rows = new ArrayList<>();
+            for (BalanceEvent e : appended) {
+                rows.add(new BalanceEvent((long) events.size() + 1, e.userId(), e.delta(), e.kind(), e.ref()));
+                events.add(rows.get(rows.size() - 1));
+            }
+            return rows;
+        }
+
+        @Override
+        public void saveSnapshot(BalanceSnapshot s) {
+            if (snapshotFailure != null) throw snapshotFailure;
+            snapshots.put(s.userId(), s);
+        }
+    }
+
+    /**
+     * user_profiles.obrobucks as a map; writing it can be made to fail
+     */
+    private static final class StubProfiles extends UserProfileService {
+        final Map<UUID, Integer> obrobucks = new ConcurrentHashMap<>();
+        volatile RuntimeException setFailure;
+
+        StubProfiles() {
+            super(null, new SupabaseConfig(), null, null, null, null);
+        }
+
+        @Override
+        public Optional<UserBalance> readBalance(UUID id) {
+            return Optional.ofNullable(obrobucks.get(id)).map(balance -> new UserBalance(id, balance));
+        }
+
+        @Override
+        public UserBalance setBalance(UUID id, int balance) {
+            if (setFailure != null) throw setFailure;
+            obrobucks.put(id, balance);
+            return new UserBalance(id, balance);
+        }
+
+        @Override
+        public void balanceChanged(UUID id, int balance) {
+        }
+    }
+
+    private final StubLedger store = new StubLedger();
+    private final StubProfiles profiles = new StubProfiles();
+    private final UUID user = UUID.randomUUID();
+
+    @Test
+    void reloadedBalanceIsTheLastSnapshotPlusTheTail() {
+        profiles.obrobucks.put(user, 100);
+        BalanceLedger ledger = ledger(5);
+        int expected = 100;
+        for (int i = 1; i <= 12; i++) {
+            int delta = i % 3 == 0 ? -i : i;
+            assertEquals(BalanceChange.OK, ledger.apply(user, 0, delta, BalanceEvent.GAME, "test").status());
+            expected += delta;
+        }
+
+        // Snapshots after events 5 and 10 leave two events in the tail
+        BalanceSnapshot snapshot = store.snapshots.get(user);
+        assertEquals(10L, snapshot.lastEventId());
+        List<BalanceEvent> tail = store.findTail(user, snapshot.lastEventId());
+        assertEquals(2, tail.size());
+        int replayed = snapshot.balance();
+        for (BalanceEvent e : tail) replayed += e.delta();
+
+        assertEquals(expected, replayed);
+        assertEquals(Optional.of(expected), ledger(5).balance(user));
+        assertEquals(snapshot.balance(), profiles.obrobucks.get(user));
+    }
+
+    @Test
+    void failedSnapshotKeepsTheAppendedChange() {
+        profiles.obrobucks.put(user, 100);
+        BalanceLedger ledger = ledger(2);
+        store.snapshotFailure = new IllegalStateException("snapshot failed");
+
+        assertEquals(new BalanceChange(BalanceChange.OK, 110), ledger.apply(user, 0, 10, BalanceEvent.GAME, "test"));
+        assertEquals(new BalanceChange(BalanceChange.OK, 105), ledger.apply(user, 5, -5, BalanceEvent.GAME, "test"));
+        assertEquals(2, store.events.size());
+        assertEquals(0, store.snapshots.size());
+
+        // The next change past the threshold writes the snapshot the failed one missed
+        store.snapshotFailure = null;
+        assertEquals(new BalanceChange(BalanceChange.OK, 106), ledger.apply(user, 0, 1, BalanceEvent.GAME, "test"));
+        assertEquals(new BalanceSnapshot(user, 106, 3L), store.snapshots.get(user));
+        assertEquals(Optional.of(106), ledger(2).balance(user));
+    }
+
+    @Test
+    void failedProfileRefreshKeepsTheAppendedChange() {
+        profiles.obrobucks.put(user, 100);
+        BalanceLedger ledger = ledger(1);
+        profiles.setFailure = new IllegalStateException("update failed");
+
+        assertEquals(new BalanceChange(BalanceChange.OK, 90), ledger.apply(user, 10, -10, BalanceEvent.BET, "poll:1"));
+        assertEquals(1, store.events.size());
+        assertEquals(100, profiles.obrobucks.get(user));
+        assertEquals(Optional.of(90), ledger(1).balance(user));
+    }
+
+    @Test
+    void loadThatMissedAPayoutIsReadAgain() {
+        store.snapshots.put(user, new BalanceSnapshot(user, 100, 0L));
+        BalanceLedger ledger = ledger(100);
+
+        // The payout lands between this load's tail read and its store
+        store.afterTailRead = () -> ledger.creditAll(Map.of(user, 50), BalanceEvent.PAYOUT, "poll:1");
+        assertEquals(Optional.of(150), ledger.balance(user));
+        assertEquals(new BalanceChange(BalanceChange.OK, 140), ledger.apply(user, 10, -10, BalanceEvent.BET, "poll:2"));
+    }
+
+    private BalanceLedger ledger(int snapshotEvery) {
+        DataBackend backend = new DataBackend();
+        ReflectionTestUtils.setField(backend, "userProfiles", "jdbc");
+        return new BalanceLedger(null, null, backend, store, profiles,
+            new EntityVersions(100, Duration.ofMinutes(5)), new SimpleMeterRegistry(), true, snapshotEvery, 100, Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.Bet;
+import com.example.rest_service.repository.BetJdbcRepository;
+import com.example.rest_service.repository.DataBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Group commit against a stub bets table on the JDBC path that records every bulk insert.
+ */
+class BetInsertBatcherTests {
+
+    /**
+     * Hands out ids in the order rows arrive; can be held shut or made to fail
+     */
+    private static final class StubBets extends BetJdbcRepository {
+        final List<Integer> batches = new CopyOnWriteArrayList<>();
+        final AtomicLong ids = new AtomicLong();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        volatile RuntimeException failure;
+
+        StubBets() {
+            super(null);
+        }
+
+        @Override
+        public List<Bet> insertAll(List<Map<String, Object>> payloads) {
+            batches.add(payloads.size());
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) throw failure;
+            List<Bet> rows = new ArrayList<>();
+            for (Map<String, Object> payload : payloads) {
+                Bet bet = new Bet();
+                bet.setId(ids.incrementAndGet());
+                bet.setOptionText((String) payload.get("option_text"));
+                rows.add(bet);
+            }
+            return rows;
+        }
+    }
+
+    private final StubBets bets = new StubBets();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private BetInsertBatcher batcher;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        bets.gate.countDown();
+        if (batcher != null) batcher.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void fullBatchIsWrittenWithoutWaitingOutTheLinger() throws Exception {
+        batcher = batcher(4, Duration.ofSeconds(30), 100);
+
+        List<Future<Bet>> results = place(4);
+        for (Future<Bet> result : results) result.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(4), bets.batches);
+    }
+
+    @Test
+    void partialBatchIsWrittenOnceTheLingerRunsOut() throws Exception {
+        batcher = batcher(64, Duration.ofMillis(50), 100);
+
+        long start = System.nanoTime();
+        batcher.insert(row("Yes"));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(List.of(1), bets.batches);
+    }
+
+    @Test
+    void everyCallerGetsItsOwnRow() throws Exception {
+        batcher = batcher(8, Duration.ofMillis(20), 100);
+
+        List<Future<Bet>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String option = "option-" + i;
+            results.add(callers.submit(() -> batcher.insert(row(option))));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            Bet bet = results.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("option-" + i, bet.getOptionText());
+            ids.add(bet.getId());
+        }
+        assertEquals(20, ids.stream().distinct().count());
+        assertEquals(20, bets.batches.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void failedBatchFailsEveryCallerInIt() throws Exception {
+        batcher = batcher(3, Duration.ofSeconds(30), 100);
+        bets.failure = new IllegalStateException("insert failed");
+
+        for (Future<Bet> result : place(3)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("insert failed", e.getCause().getMessage());
+        }
+        assertEquals(List.of(3), bets.batches);
+    }
+
+    @Test
+    void fullQueueRejectsTheNextBet() throws Exception {
+        batcher = batcher(1, Duration.ZERO, 1);
+        bets.gate = new CountDownLatch(1);
+
+        // One bet held in the writer, one filling the queue
+        Future<Bet> writing = callers.submit(() -> batcher.insert(row("Yes")));
+        await(() -> bets.batches.size() == 1);
+        Future<Bet> queued = callers.submit(() -> batcher.insert(row("No")));
+        await(() -> registry.get("betting.batch.queue.depth").gauge().value() == 1);
+
+        assertThrows(RejectedExecutionException.class, () -> batcher.insert(row("Yes")));
+        assertEquals(1.0, registry.get("betting.batch.rejected").counter().count());
+
+        bets.gate.countDown();
+        writing.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shutdownWritesWhatIsQueuedAndRefusesTheRest() throws Exception {
+        batcher = batcher(1, Duration.ZERO, 100);
+        bets.gate = new CountDownLatch(1);
+
+        Future<Bet> writing = callers.submit(() -> batcher.insert(row("Yes")));
+        await(() -> bets.batches.size() == 1);
+        List<Future<Bet>> queued = place(3);
+        await(() -> registry.get("betting.batch.queue.depth").gauge().value() == 3);
+
+        Future<?> stopping = callers.submit(() -> {
+            batcher.shutdown();
+            return null;
+        });
+        await(() -> !(Boolean) ReflectionTestUtils.getField(batcher, "running"));
+        assertThrows(RejectedExecutionException.class, () -> batcher.insert(row("No")));
+        bets.gate.countDown();
+        stopping.get(5, TimeUnit.SECONDS);
+
+        writing.get(5, TimeUnit.SECONDS);
+        for (Future<Bet> result : queued) result.get(5, TimeUnit.SECONDS);
+        assertEquals(4, bets.batches.size());
+    }
+
+    private BetInsertBatcher batcher(int maxSize, Duration linger, int queueCapacity) {
+        DataBackend backend = new DataBackend();
+        ReflectionTestUtils.setField(backend, "bets", "jdbc");
+        return new BetInsertBatcher(null, null, backend, bets, registry, true, maxSize, linger, queueCapacity, 1);
+    }
+
+    private List<Future<Bet>> place(int count) {
+        List<Future<Bet>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(callers.submit(() -> batcher.insert(row("Yes"))));
+        }
+        return results;
+    }
+
+    private static Map<String, Object> row(String option) {
+        return Map.of("poll_id", 1L, "option_text", option, "amount", 10);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the batcher");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.rest_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Seeding and advancing pools from stub (id, option_text, amount) rows.
+ */
+class BettingPoolsTests {
+
+    private final BettingPools pools = new BettingPools(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    private final AtomicInteger seeds = new AtomicInteger();
+
+    @Test
+    void seededPoolIsKeptAndAdvancedByLaterBets() {
+        BettingPools.Pool pool = pools.get(1, id -> seed(row(1, "Yes", 30), row(2, "No", 20)));
+        assertSame(pool, pools.get(1, id -> seed()));
+        assertEquals(1, seeds.get());
+
+        // Bet 2 was in the seed; bet 3 was not
+        pools.placed(1, 2L, "No", 20);
+        pools.placed(1, 3L, "Yes", 5);
+        assertEquals(Map.of("Yes", 35L, "No", 20L), pool.totals());
+        assertEquals(3, pool.betCount());
+    }
+
+    @Test
+    void poolDroppedDuringItsSeedIsNotKept() {
+        BettingPools.Pool first = pools.get(1, id -> {
+            // A bet stored without its id while the rows are in flight
+            pools.placed(1, null, "Yes", 10);
+            return seed(row(1, "Yes", 30));
+        });
+        assertEquals(Map.of("Yes", 30L), first.totals());
+
+        BettingPools.Pool second = pools.get(1, id -> seed(row(1, "Yes", 30), row(2, "Yes", 10)));
+        assertEquals(Map.of("Yes", 40L), second.totals());
+        assertSame(second, pools.get(1, id -> seed()));
+        assertEquals(2, seeds.get());
+    }
+
+    @SafeVarargs
+    private List<Map<String, Object>> seed(Map<String, Object>... rows) {
+        seeds.incrementAndGet();
+        return List.of(rows);
+    }
+
+    private static Map<String, Object> row(long id, String option, long amount) {
+        return Map.of("id", id, "option_text", option, "amount", amount);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.rest_service.service;
+
+import com.example.rest_service.model.Bet;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PariMutuelOddsTests {
+
+    private final PariMutuelOdds odds = new PariMutuelOdds(0.05);
+
+    @Test
+    void houseTakeComesOutOfThePool() {
+        // 100 staked, 95 shared; 40 on the winner gets 95/40 = 2.375 per unit
+        PariMutuelOdds.Settlement settlement = odds.settle(List.of(bet("Yes", 40), bet("No", 60)), "Yes");
+        assertEquals(new PariMutuelOdds.Settlement(100, 40), settlement);
+        assertEquals(2.375, PariMutuelOdds.odds(40, 100, 0.05));
+        assertEquals(95, odds.payout(40, settlement));
+
+        PariMutuelOdds free = new PariMutuelOdds(0);
+        assertEquals(100, free.payout(40, settlement));
+
+        assertThrows(IllegalArgumentException.class, () -> new PariMutuelOdds(1));
+        assertThrows(IllegalArgumentException.class, () -> new PariMutuelOdds(-0.01));
+    }
+
+    @Test
+    void payoutsAndQuotesRoundDown() {
+        // 30 of a 50 pool: 30 * 47.5 / 30 = 47.5, paid as 47
+        PariMutuelOdds.Settlement settlement = odds.settle(List.of(bet("Yes", 30), bet("No", 20)), "Yes");
+        assertEquals(47, odds.payout(30, settlement));
+
+        // Two winners of 10 and 20 over a 33 pool: 31.35 net, 1.045 per unit
+        settlement = odds.settle(List.of(bet("A", 10), bet("A", 20), bet("B", 3)), "A");
+        assertEquals(10, odds.payout(10, settlement));
+        assertEquals(20, odds.payout(20, settlement));
+
+        // A 7 stake on B joins 20 on A and 3 on B: 30 * 0.95 / 10 = 2.85, 7 * 2.85 = 19.95
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("A", 20L);
+        totals.put("B", 3L);
+        PariMutuelOdds.Quote quote = odds.quote(totals, "B", 7);
+        assertEquals(2.85, quote.odds());
+        assertEquals(19, quote.potentialPayout());
+
+        // Odds are shown to two decimals: 95/30 = 3.1666...
+        assertEquals(3.17, odds.quote(Map.of("A", 70L), "B", 30).odds());
+    }
+
+    @Test
+    void aShareThatDividesEvenlyIsPaidInFull() {
+        // 20 * 24 * 0.95 / 24 is exactly 19; 20 * (24 * 0.95 / 24) in doubles is 18.999...
+        PariMutuelOdds.Settlement settlement = odds.settle(List.of(bet("Yes", 20), bet("Yes", 4)), "Yes");
+        assertEquals(19, odds.payout(20, settlement));
+        assertEquals(19, PariMutuelOdds.share(20, 24, 24, 0.05));
+
+        // 10 joining 9 on Yes and 3 on No: 10 * 22 * 0.95 / 19 is exactly 11
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("Yes", 9L);
+        totals.put("No", 3L);
+        assertEquals(11, odds.quote(totals, "Yes", 10).potentialPayout());
+    }
+
+    @Test
+    void nothingOnTheWinnerPaysNothing() {
+        PariMutuelOdds.Settlement settlement = odds.settle(List.of(bet("Yes", 40), bet("No", 60)), "Maybe");
+        assertEquals(new PariMutuelOdds.Settlement(100, 0), settlement);
+        assertEquals(0, odds.payout(40, settlement));
+        assertEquals(0, PariMutuelOdds.odds(0, 100, 0.05));
+
+        // Bets with no amount count for nothing
+        Bet unknown = bet("Yes", 0);
+        unknown.setAmount(null);
+        assertEquals(new PariMutuelOdds.Settlement(0, 0), odds.settle(List.of(unknown), "Yes"));
+    }
+
+    @Test
+    void aSingleOptionPoolReturnsTheStakeLessTheTake() {
+        PariMutuelOdds.Settlement settlement = odds.settle(List.of(bet("Yes", 50), bet("Yes", 50)), "Yes");
+        assertEquals(new PariMutuelOdds.Settlement(100, 100), settlement);
+        assertEquals(47, odds.payout(50, settlement));
+
+        // The first bet on an empty poll is quoted the same way
+        PariMutuelOdds.Quote quote = odds.quote(Map.of(), "Yes", 20);
+        assertEquals(0.95, quote.odds());
+        assertEquals(19, quote.potentialPayout());
+    }
+
+    private static Bet bet(String option, int amount) {
+        Bet bet = new Bet();
+        bet.setOptionText(option);
+        bet.setAmount(amount);
+        return bet;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.rest_service.sim;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed PostgREST query string: horizontal filters, select, order, limit and offset.
+ * Covers the operators the service uses: eq, neq, gt, gte, lt, lte, like, ilike, in, is,
+ * not.&lt;op&gt; and nested or=(...)/and=(...) groups.
+ */
+final class PostgrestQuery {
+
+    private static final List<String> RESERVED = List.of("select", "order", "limit", "offset", "columns", "on_conflict");
+
+    final List<Predicate<Map<String, Object>>> filters = new ArrayList<>();
+    List<String> select;
+    Comparator<Map<String, Object>> order;
+    Integer limit;
+    int offset;
+    String onConflict;
+
+    static PostgrestQuery parse(String rawQuery) {
+        PostgrestQuery q = new PostgrestQuery();
+        if (rawQuery == null || rawQuery.isEmpty()) return q;
+
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = decode(eq < 0 ? pair : pair.substring(0, eq));
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+
+            switch (key) {
+                case "select" -> q.select = value.equals("*") ? null : splitTopLevel(value);
+                case "order" -> q.order = parseOrder(value);
+                case "limit" -> q.limit = Integer.parseInt(value);
+                case "offset" -> q.offset = Integer.parseInt(value);
+                case "on_conflict" -> q.onConflict = value;
+                case "or", "and" -> q.filters.add(group(key, unwrap(value)));
+                default -> {
+                    if (key.startsWith("not.") && (key.equals("not.or") || key.equals("not.and"))) {
+                        q.filters.add(group(key.substring(4), unwrap(value)).negate());
+                    } else if (!RESERVED.contains(key)) {
+                        q.filters.add(condition(key, value));
+                    }
+                }
+            }
+        }
+        return q;
+    }
+
+    boolean matches(Map<String, Object> row) {
+        for (Predicate<Map<String, Object>> f : filters) {
+            if (!f.test(row)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Apply order, offset, limit and select to rows that already passed the filters
+     */
+    List<Map<String, Object>> shape(List<Map<String, Object>> rows) {
+        List<Map<String, Object>> sorted = new ArrayList<>(rows);
+        if (order != null) sorted.sort(order);
+        int from = Math.min(offset, sorted.size());
+        int to = limit != null ? Math.min(sorted.size(), from + limit) : sorted.size();
+        List<Map<String, Object>> out = new ArrayList<>(to - from);
+        for (Map<String, Object> row : sorted.subList(from, to)) {
+            out.add(project(row));
+        }
+        return out;
+    }
+
+    Map<String, Object> project(Map<String, Object> row) {
+        if (select == null) return new LinkedHashMap<>(row);
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (String column : select) {
+            // alias:column
+            int colon = column.indexOf(':');
+            String name = colon < 0 ? column : column.substring(0, colon);
+            String source = colon < 0 ? column : column.substring(colon + 1);
+            out.put(name.trim(), row.get(source.trim()));
+        }
+        return out;
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    // ---- filters ----
+
+    private static Predicate<Map<String, Object>> group(String kind, String body) {
+        List<Predicate<Map<String, Object>>> parts = new ArrayList<>();
+        for (String term : splitTopLevel(body)) {
+            parts.add(term(term));
+        }
+        return row -> {
+            if (kind.equals("or")) {
+                for (Predicate<Map<String, Object>> p : parts) if (p.test(row)) return true;
+                return false;
+            }
+            for (Predicate<Map<String, Object>> p : parts) if (!p.test(row)) return false;
+            return true;
+        };
+    }
+
+    /**
+     * One element inside an or/and group: column.op.value, or a nested and(...)/or(...)
+     */
+    private static Predicate<Map<String, Object>> term(String term) {
+        boolean negated = term.startsWith("not.");
+        String t = negated ? term.substring(4) : term;
+        Predicate<Map<String, Object>> p;
+        if (t.startsWith("and(") || t.startsWith("or(")) {
+            int paren = t.indexOf('(');
+            p = group(t.substring(0, paren), t.substring(paren + 1, t.length() - 1));
+        } else {
+            int dot = t.indexOf('.');
+            p = condition(t.substring(0, dot), t.substring(dot + 1));
+        }
+        return negated ? p.negate() : p;
+    }
+
+    private static Predicate<Map<String, Object>> condition(String column, String expr) {
+        boolean negated = expr.startsWith("not.");
+        String e = negated ? expr.substring(4) : expr;
+        int dot = e.indexOf('.');
+        if (dot < 0) throw new IllegalArgumentException("Malformed filter: " + column + "=" + expr);
+        String op = e.substring(0, dot);
+        String operand = e.substring(dot + 1);
+
+        Predicate<Map<String, Object>> p = switch (op) {
+            case "eq" -> row -> compare(row.get(column), unquote(operand)) == 0;
+            case "neq" -> row -> compare(row.get(column), unquote(operand)) != 0 && row.get(column) != null;
+            case "gt" -> row -> row.get(column) != null && compare(row.get(column), unquote(operand)) > 0;
+            case "gte" -> row -> row.get(column) != null && compare(row.get(column), unquote(operand)) >= 0;
+            case "lt" -> row -> row.get(column) != null && compare(row.get(column), unquote(operand)) < 0;
+            case "lte" -> row -> row.get(column) != null && compare(row.get(column), unquote(operand)) <= 0;
+            case "like" -> like(column, unquote(operand), false);
+            case "ilike" -> like(column, unquote(operand), true);
+            case "in" -> {
+                List<String> values = splitTopLevel(unwrap(operand)).stream().map(PostgrestQuery::unquote).toList();
+                yield row -> {
+                    for (String v : values) if (compare(row.get(column), v) == 0) return true;
+                    return false;
+                };
+            }
+            case "is" -> switch (operand) {
+                case "null" -> row -> row.get(column) == null;
+                case "true" -> row -> Boolean.TRUE.equals(row.get(column));
+                case "false" -> row -> Boolean.FALSE.equals(row.get(column));
+                default -> throw new IllegalArgumentException("Unsupported is." + operand);
+            };
+            default -> throw new IllegalArgumentException("Unsupported operator: " + op);
+        };
+        return negated ? p.negate() : p;
+    }
+
+    private static Predicate<Map<String, Object>> like(String column, String pattern, boolean ignoreCase) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '%') regex.append(".*");
+            else if (c == '_') regex.append('.');
+            else regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        Pattern compiled = Pattern.compile(regex.toString(), ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        return row -> row.get(column) != null && compiled.matcher(String.valueOf(row.get(column))).matches();
+    }
+
+    /**
+     * SQL-ish comparison of a stored JSON value with a query literal; null sorts as unequal
+     */
+    static int compare(Object value, String literal) {
+        if (value == null) return literal == null || literal.equals("null") ? 0 : -2;
+        if (value instanceof Number n) {
+            try {
+                return new BigDecimal(n.toString()).compareTo(new BigDecimal(literal));
+            } catch (NumberFormatException e) {
+                return -2;
+            }
+        }
+        if (value instanceof Boolean b) {
+            return b.toString().equalsIgnoreCase(literal) ? 0 : -2;
+        }
+        return compareText(value.toString(), literal);
+    }
+
+    static int compareValues(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+        }
+        if (a instanceof Boolean x && b instanceof Boolean y) {
+            return Boolean.compare(x, y);
+        }
+        return compareText(String.valueOf(a), String.valueOf(b));
+    }
+
+    private static int compareText(String a, String b) {
+        // Timestamps compare as instants, whatever offset they were written with
+        if (looksLikeTimestamp(a) && looksLikeTimestamp(b)) {
+            try {
+                return OffsetDateTime.parse(a).toInstant().compareTo(OffsetDateTime.parse(b).toInstant());
+            } catch (DateTimeParseException ignored) {
+                // fall through to text comparison
+            }
+        }
+        return Integer.signum(a.compareTo(b));
+    }
+
+    private static boolean looksLikeTimestamp(String s) {
+        return s.length() >= 20 && s.charAt(4) == '-' && s.charAt(10) == 'T';
+    }
+
+    // ---- order ----
+
+    private static Comparator<Map<String, Object>> parseOrder(String value) {
+        Comparator<Map<String, Object>> combined = null;
+        for (String term : value.split(",")) {
+            String[] parts = term.split("\\.");
+            String column = parts[0];
+            boolean desc = false;
+            Boolean nullsFirst = null;
+            for (int i = 1; i < parts.length; i++) {
+                switch (parts[i]) {
+                    case "desc" -> desc = true;
+                    case "asc" -> desc = false;
+                    case "nullsfirst" -> nullsFirst = true;
+                    case "nullslast" -> nullsFirst = false;
+                    default -> throw new IllegalArgumentException("Unsupported order modifier: " + parts[i]);
+                }
+            }
+            // Postgres default: NULLS LAST for ASC, NULLS FIRST for DESC
+            boolean nullsFirstFinal = nullsFirst != null ? nullsFirst : desc;
+            boolean descFinal = desc;
+            Comparator<Map<String, Object>> c = (r1, r2) -> {
+                Object a = r1.get(column);
+                Object b = r2.get(column);
+                if (a == null || b == null) {
+                    if (a == b) return 0;
+                    return (a == null) == nullsFirstFinal ? -1 : 1;
+                }
+                int cmp = compareValues(a, b);
+                return descFinal ? -cmp : cmp;
+            };
+            combined = combined == null ? c : combined.thenComparing(c);
+        }
+        return combined;
+    }
+
+    // ---- lexing ----
+
+    private static String unwrap(String value) {
+        String v = value.trim();
+        if (v.startsWith("(") && v.endsWith(")")) return v.substring(1, v.length() - 1);
+        return v;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1).replace("\\\"", "\"");
+        }
+        return value;
+    }
+
+    /**
+     * Split on commas that are not inside parentheses or double quotes
+     */
+    static List<String> splitTopLevel(String s) {
+        List<String> out = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' && (i == 0 || s.charAt(i - 1) != '\\')) quoted = !quoted;
+            if (!quoted) {
+                if (c == '(') depth++;
+                if (c == ')') depth--;
+                if (c == ',' && depth == 0) {
+                    out.add(current.toString());
+                    current.setLength(0);
+                    continue;
+                }
+            }
+            current.append(c);
+        }
+        if (!current.isEmpty()) out.add(current.toString());
+        return out;
+    }
+}
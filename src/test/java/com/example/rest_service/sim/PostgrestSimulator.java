@@ -0,0 +1,574 @@
+package com.example.rest_service.sim;
+
+import com.example.rest_service.service.PariMutuelOdds;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-process stand-in for Supabase's PostgREST API serving polls, poll_options, bets,
+ * user_profiles, poll_resolutions, balance_credits and the balance ledger tables from memory, with
+ * configurable latency, jitter and error injection. POSTs with on_conflict and
+ * resolution=merge-duplicates upsert; with resolution=ignore-duplicates they skip rows already there.
+ * The place_bet and credit_balances functions (src/main/resources/db) are served on rpc/place_bet and rpc/credit_balances.
+ *
+ * <pre>
+ * try (PostgrestSimulator sim = PostgrestSimulator.start(0)) {
+ *     sim.latency(Duration.ofMillis(20), Duration.ofMillis(5));
+ *     // point supabase.url at sim.url()
+ * }
+ * </pre>
+ *
+ * Standalone: gradle runPostgrestSimulator -PsimArgs="--port=54321 --latency-ms=20 --users=500"
+ */
+public final class PostgrestSimulator implements AutoCloseable {
+
+    private static final String PREFIX = "/rest/v1/";
+    private static final String RPC = "rpc/";
+    private static final TypeReference<List<Map<String, Object>>> ROWS = new TypeReference<>() {};
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<String, SimTable> tables = new LinkedHashMap<>();
+    private final Map<String, Function<Map<String, Object>, List<Map<String, Object>>>> functions = new LinkedHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final Map<String, Latency> tableLatency = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger failNext = new AtomicInteger();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile Latency latency = new Latency(Duration.ZERO, Duration.ZERO);
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile boolean requireApiKey = true;
+
+    private PostgrestSimulator(int port) throws IOException {
+        addTable("polls", SimTable.IdType.BIGSERIAL, Map.of("total_bets", 0, "status", "PENDING"));
+        addTable("poll_options", SimTable.IdType.BIGSERIAL, Map.of());
+        addTable("bets", SimTable.IdType.BIGSERIAL, nullable("is_winner"));
+        addTable("user_profiles", SimTable.IdType.UUID, withUpdatedAt(Map.of("obrobucks", 0)));
+        addTable("poll_resolutions", SimTable.IdType.BIGSERIAL, Map.of("state", "resolved"));
+        addTable("balance_events", SimTable.IdType.BIGSERIAL, Map.of());
+        addTable("balance_snapshots", SimTable.IdType.BIGSERIAL, Map.of());
+        addTable("balance_credits", SimTable.IdType.BIGSERIAL, Map.of());
+        functions.put("place_bet", this::placeBet);
+        functions.put("credit_balances", this::creditBalances);
+
+        // The JDK server closes idle keep-alive connections above 200 by default
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "2000");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+    }
+
+    /**
+     * Start on the given port (0 picks a free one)
+     */
+    public static PostgrestSimulator start(int port) throws IOException {
+        return new PostgrestSimulator(port);
+    }
+
+    /**
+     * Base URL to use as supabase.url
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // ---- behaviour knobs ----
+
+    /**
+     * Delay every call by base plus a uniform random amount up to jitter
+     */
+    public PostgrestSimulator latency(Duration base, Duration jitter) {
+        this.latency = new Latency(base, jitter);
+        return this;
+    }
+
+    /**
+     * Latency override for one table
+     */
+    public PostgrestSimulator latency(String table, Duration base, Duration jitter) {
+        tableLatency.put(table, new Latency(base, jitter));
+        return this;
+    }
+
+    /**
+     * Fraction of calls (0..1) answered with the error status instead of being served
+     */
+    public PostgrestSimulator errorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    public PostgrestSimulator errorStatus(int status) {
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Fail exactly the next n calls, for deterministic error-path tests
+     */
+    public PostgrestSimulator failNext(int n) {
+        failNext.set(n);
+        return this;
+    }
+
+    public PostgrestSimulator requireApiKey(boolean require) {
+        this.requireApiKey = require;
+        return this;
+    }
+
+    // ---- data and observation ----
+
+    /**
+     * Insert rows directly, bypassing HTTP, latency and errors; returns the stored rows
+     */
+    public List<Map<String, Object>> insert(String table, List<Map<String, Object>> rows) {
+        return table(table).insert(rows);
+    }
+
+    public Map<String, Object> insert(String table, Map<String, Object> row) {
+        return insert(table, List.of(row)).get(0);
+    }
+
+    /**
+     * Rows of a table matching a PostgREST query string, e.g. "poll_id=eq.3&order=id"
+     */
+    public List<Map<String, Object>> rows(String table, String query) {
+        return table(table).select(PostgrestQuery.parse(query));
+    }
+
+    public int count(String table) {
+        return table(table).size();
+    }
+
+    /**
+     * Number of calls served for a method and table, e.g. calls("GET", "polls")
+     */
+    public long calls(String method, String table) {
+        LongAdder n = calls.get(method + " " + table);
+        return n != null ? n.sum() : 0;
+    }
+
+    public long totalCalls() {
+        return calls.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Highest number of calls that were being served at once
+     */
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public void resetCounters() {
+        calls.clear();
+        peakInFlight.set(0);
+    }
+
+    /**
+     * Drop all rows and counters and restore the default latency and error behaviour
+     */
+    public void clear() {
+        tables.values().forEach(SimTable::clear);
+        resetCounters();
+        tableLatency.clear();
+        latency = new Latency(Duration.ZERO, Duration.ZERO);
+        errorRate = 0;
+        errorStatus = 503;
+        failNext.set(0);
+        requireApiKey = true;
+    }
+
+    /**
+     * Deterministic demo data set: users with balances, polls with options and bets
+     */
+    public void seed(int users, int polls, int betsPerPoll, long randomSeed) {
+        Random random = new Random(randomSeed);
+        OffsetDateTime start = OffsetDateTime.now(ZoneOffset.UTC).minusDays(30);
+
+        List<Map<String, Object>> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            Map<String, Object> u = new LinkedHashMap<>();
+            u.put("email", "user" + i + "@example.test");
+            u.put("username", "user" + i);
+            u.put("name", "User " + i);
+            u.put("obrobucks", 1000);
+            u.put("created_at", start.plusMinutes(i).toString());
+            userRows.add(u);
+        }
+        List<Map<String, Object>> createdUsers = insert("user_profiles", userRows);
+        if (createdUsers.isEmpty()) return;
+
+        String[][] optionSets = {{"Yes", "No"}, {"Red", "Blue", "Green"}, {"Home", "Draw", "Away"}};
+        for (int p = 0; p < polls; p++) {
+            String[] options = optionSets[p % optionSets.length];
+            Map<String, Object> poll = new LinkedHashMap<>();
+            poll.put("question", "Simulated poll " + p + "?");
+            poll.put("status", "APPROVED");
+            poll.put("category", "simulated");
+            poll.put("created_at", start.plusHours(p).toString());
+            poll.put("ends_at", start.plusDays(60).toString());
+            poll.put("created_by", createdUsers.get(p % createdUsers.size()).get("id"));
+            Object pollId = insert("polls", poll).get("id");
+
+            List<Map<String, Object>> optionRows = new ArrayList<>();
+            for (String option : options) {
+                optionRows.add(new LinkedHashMap<>(Map.of("poll_id", pollId, "option_text", option)));
+            }
+            insert("poll_options", optionRows);
+
+            int total = 0;
+            List<Map<String, Object>> betRows = new ArrayList<>();
+            for (int b = 0; b < betsPerPoll; b++) {
+                int amount = 1 + random.nextInt(50);
+                total += amount;
+                Map<String, Object> bet = new LinkedHashMap<>();
+                bet.put("poll_id", pollId);
+                bet.put("user_id", createdUsers.get(random.nextInt(createdUsers.size())).get("id"));
+                bet.put("option_text", options[random.nextInt(options.length)]);
+                bet.put("amount", amount);
+                bet.put("potential_payout", amount * 2);
+                bet.put("created_at", start.plusHours(p).plusMinutes(b + 1).toString());
+                bet.put("is_winner", null);
+                betRows.add(bet);
+            }
+            insert("bets", betRows);
+            table("polls").update(PostgrestQuery.parse("id=eq." + pollId), Map.of("total_bets", total));
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ---- HTTP ----
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(now, Math::max);
+        try {
+            String method = exchange.getRequestMethod();
+            String tableName = exchange.getRequestURI().getPath().substring(PREFIX.length());
+            calls.computeIfAbsent(method + " " + tableName, k -> new LongAdder()).increment();
+
+            sleep(tableLatency.getOrDefault(tableName, latency));
+
+            if (requireApiKey && exchange.getRequestHeaders().getFirst("apikey") == null) {
+                error(exchange, 401, "PGRST301", "No API key found in request");
+                return;
+            }
+            if (shouldFail()) {
+                error(exchange, errorStatus, "SIM503", "Injected failure");
+                return;
+            }
+
+            if (tableName.startsWith(RPC)) {
+                rpc(exchange, tableName.substring(RPC.length()));
+                return;
+            }
+
+            SimTable table = tables.get(tableName);
+            if (table == null) {
+                error(exchange, 404, "42P01", "relation \"public." + tableName + "\" does not exist");
+                return;
+            }
+
+            PostgrestQuery query;
+            try {
+                query = PostgrestQuery.parse(exchange.getRequestURI().getRawQuery());
+            } catch (RuntimeException e) {
+                error(exchange, 400, "PGRST100", e.getMessage());
+                return;
+            }
+
+            String prefer = String.valueOf(exchange.getRequestHeaders().getFirst("Prefer"));
+            boolean representation = prefer.contains("return=representation");
+
+            switch (method) {
+                case "GET", "HEAD" -> {
+                    List<Map<String, Object>> rows = table.select(query);
+                    exchange.getResponseHeaders().set("Content-Range",
+                        rows.isEmpty() ? "*/*" : query.offset + "-" + (query.offset + rows.size() - 1) + "/*");
+                    respond(exchange, 200, rows);
+                }
+                case "POST" -> {
+                    boolean merge = prefer.contains("resolution=merge-duplicates");
+                    boolean ignore = prefer.contains("resolution=ignore-duplicates");
+                    List<Map<String, Object>> created = (merge || ignore) && query.onConflict != null
+                        ? table.upsert(readRows(exchange), query.onConflict, ignore)
+                        : table.insert(readRows(exchange));
+                    respond(exchange, 201, representation ? project(query, created) : null);
+                }
+                case "PATCH" -> {
+                    Map<String, Object> changes = json.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+                    List<Map<String, Object>> updated = table.update(query, changes);
+                    respond(exchange, representation ? 200 : 204, representation ? project(query, updated) : null);
+                }
+                case "DELETE" -> {
+                    List<Map<String, Object>> removed = table.delete(query);
+                    respond(exchange, representation ? 200 : 204, representation ? project(query, removed) : null);
+                }
+                default -> error(exchange, 405, "PGRST117", "Unsupported HTTP method: " + method);
+            }
+        } catch (RuntimeException e) {
+            error(exchange, 500, "SIM500", String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void rpc(HttpExchange exchange, String name) throws IOException {
+        Function<Map<String, Object>, List<Map<String, Object>>> function = functions.get(name);
+        if (function == null) {
+            error(exchange, 404, "PGRST202", "Could not find the function public." + name);
+            return;
+        }
+        if (!exchange.getRequestMethod().equals("POST")) {
+            error(exchange, 405, "PGRST117", "Unsupported HTTP method: " + exchange.getRequestMethod());
+            return;
+        }
+        Map<String, Object> args = json.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+        respond(exchange, 200, function.apply(args));
+    }
+
+    /**
+     * Same checks, writes and result row as the SQL function, atomic with respect to other place_bet calls
+     */
+    private synchronized List<Map<String, Object>> placeBet(Map<String, Object> args) {
+        String userId = String.valueOf(args.get("p_user_id"));
+        long pollId = ((Number) args.get("p_poll_id")).longValue();
+        String option = (String) args.get("p_option_text");
+        int amount = ((Number) args.get("p_amount")).intValue();
+        double houseTake = args.get("p_house_take") instanceof Number n ? n.doubleValue() : 0.05;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String column : List.of("status", "bet_id", "new_balance", "option_total", "pool_total",
+                "potential_payout", "odds")) {
+            result.put(column, null);
+        }
+
+        List<Map<String, Object>> polls = rows("polls", "id=eq." + pollId);
+        if (amount <= 0) {
+            result.put("status", "invalid_amount");
+        } else if (polls.isEmpty()) {
+            result.put("status", "poll_not_found");
+        } else if ("CLOSED".equals(polls.get(0).get("status"))) {
+            result.put("status", "poll_closed");
+        } else if (rows("poll_options", "poll_id=eq." + pollId).stream().noneMatch(o -> option.equals(o.get("option_text")))) {
+            result.put("status", "invalid_option");
+        } else {
+            List<Map<String, Object>> users = rows("user_profiles", "id=eq." + userId);
+            int balance = users.isEmpty() ? 0 : ((Number) users.get(0).getOrDefault("obrobucks", 0)).intValue();
+            if (users.isEmpty()) {
+                result.put("status", "user_not_found");
+            } else if (balance < amount) {
+                result.put("status", "insufficient_funds");
+                result.put("new_balance", balance);
+            } else {
+                table("user_profiles").update(PostgrestQuery.parse("id=eq." + userId), Map.of("obrobucks", balance - amount));
+                long pool = ((Number) polls.get(0).getOrDefault("total_bets", 0)).longValue() + amount;
+                table("polls").update(PostgrestQuery.parse("id=eq." + pollId), Map.of("total_bets", pool));
+
+                long optionTotal = amount;
+                for (Map<String, Object> bet : rows("bets", "poll_id=eq." + pollId)) {
+                    if (option.equals(bet.get("option_text"))) optionTotal += ((Number) bet.get("amount")).longValue();
+                }
+                double net = pool * (1 - houseTake) / optionTotal;
+                int payout = PariMutuelOdds.share(amount, pool, optionTotal, houseTake);
+
+                Map<String, Object> bet = new LinkedHashMap<>();
+                bet.put("poll_id", pollId);
+                bet.put("user_id", userId);
+                bet.put("option_text", option);
+                bet.put("amount", amount);
+                bet.put("potential_payout", payout);
+                bet.put("is_winner", null);
+
+                result.put("status", "ok");
+                result.put("bet_id", insert("bets", bet).get("id"));
+                result.put("new_balance", balance - amount);
+                result.put("option_total", optionTotal);
+                result.put("pool_total", pool);
+                result.put("potential_payout", payout);
+                result.put("odds", Math.round(net * 100) / 100.0);
+            }
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Credits once per user and ref, recorded in balance_credits; returns every user credited under the ref
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized List<Map<String, Object>> creditBalances(Map<String, Object> args) {
+        String ref = String.valueOf(args.get("p_ref"));
+        for (Map<String, Object> credit : (List<Map<String, Object>>) args.get("p_credits")) {
+            String userId = String.valueOf(credit.get("user_id"));
+            List<Map<String, Object>> users = rows("user_profiles", "id=eq." + userId);
+            if (users.isEmpty()) continue;
+            boolean paid = rows("balance_credits", "ref=eq." + ref).stream().anyMatch(c -> userId.equals(c.get("user_id")));
+            if (paid) continue;
+
+            int amount = ((Number) credit.get("amount")).intValue();
+            insert("balance_credits", Map.of("user_id", userId, "ref", ref, "amount", amount));
+            Object current = users.get(0).get("obrobucks");
+            int balance = (current instanceof Number n ? n.intValue() : 0) + amount;
+            table("user_profiles").update(PostgrestQuery.parse("id=eq." + userId), Map.of("obrobucks", balance));
+        }
+
+        List<Map<String, Object>> balances = new ArrayList<>();
+        for (Map<String, Object> credit : rows("balance_credits", "ref=eq." + ref)) {
+            String userId = String.valueOf(credit.get("user_id"));
+            for (Map<String, Object> user : rows("user_profiles", "id=eq." + userId)) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", userId);
+                row.put("obrobucks", user.get("obrobucks"));
+                balances.add(row);
+            }
+        }
+        return balances;
+    }
+
+    private List<Map<String, Object>> readRows(HttpExchange exchange) throws IOException {
+        JsonNode body = json.readTree(exchange.getRequestBody());
+        if (body.isArray()) {
+            return json.convertValue(body, ROWS);
+        }
+        return List.of(json.convertValue(body, new TypeReference<Map<String, Object>>() {}));
+    }
+
+    private static List<Map<String, Object>> project(PostgrestQuery query, List<Map<String, Object>> rows) {
+        return rows.stream().map(query::project).toList();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        if (body == null || exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void error(HttpExchange exchange, int status, String code, String message) {
+        try {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("code", code);
+            body.put("message", message);
+            body.put("details", null);
+            body.put("hint", null);
+            respond(exchange, status, body);
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    private boolean shouldFail() {
+        if (failNext.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) return true;
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static void sleep(Latency l) {
+        long millis = l.base.toMillis();
+        if (!l.jitter.isZero()) {
+            millis += ThreadLocalRandom.current().nextLong(l.jitter.toMillis() + 1);
+        }
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SimTable table(String name) {
+        SimTable t = tables.get(name);
+        if (t == null) throw new IllegalArgumentException("Unknown table: " + name);
+        return t;
+    }
+
+    private void addTable(String name, SimTable.IdType idType, Map<String, Object> defaults) {
+        tables.put(name, new SimTable(name, idType, defaults));
+    }
+
+    private static Map<String, Object> nullable(String column) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put(column, null);
+        return m;
+    }
+
+    private static Map<String, Object> withUpdatedAt(Map<String, Object> defaults) {
+        Map<String, Object> m = new LinkedHashMap<>(defaults);
+        m.put("updated_at", null);
+        return m;
+    }
+
+    private record Latency(Duration base, Duration jitter) {}
+
+    /**
+     * Run standalone until killed.
+     * Flags: --port --latency-ms --jitter-ms --error-rate --users --polls --bets-per-poll --seed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        PostgrestSimulator sim = start(Integer.parseInt(opts.getOrDefault("port", "54321")));
+        sim.latency(Duration.ofMillis(Long.parseLong(opts.getOrDefault("latency-ms", "0"))),
+                Duration.ofMillis(Long.parseLong(opts.getOrDefault("jitter-ms", "0"))))
+            .errorRate(Double.parseDouble(opts.getOrDefault("error-rate", "0")));
+        sim.seed(Integer.parseInt(opts.getOrDefault("users", "100")),
+            Integer.parseInt(opts.getOrDefault("polls", "20")),
+            Integer.parseInt(opts.getOrDefault("bets-per-poll", "25")),
+            Long.parseLong(opts.getOrDefault("seed", "42")));
+
+        Runtime.getRuntime().addShutdownHook(new Thread(sim::close));
+        System.out.println("PostgREST simulator listening on " + sim.url() + PREFIX
+            + " (users=" + sim.count("user_profiles") + ", polls=" + sim.count("polls")
+            + ", bets=" + sim.count("bets") + ")");
+        Thread.currentThread().join();
+    }
+}
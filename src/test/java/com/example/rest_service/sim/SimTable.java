@@ -0,0 +1,124 @@
+package com.example.rest_service.sim;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One in-memory table of JSON rows with the column defaults Supabase would apply on insert.
+ */
+final class SimTable {
+
+    enum IdType { BIGSERIAL, UUID }
+
+    final String name;
+    private final IdType idType;
+    private final Map<String, Object> defaults;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    SimTable(String name, IdType idType, Map<String, Object> defaults) {
+        this.name = name;
+        this.idType = idType;
+        this.defaults = defaults;
+    }
+
+    synchronized List<Map<String, Object>> select(PostgrestQuery q) {
+        List<Map<String, Object>> matched = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            if (q.matches(row)) matched.add(row);
+        }
+        return q.shape(matched);
+    }
+
+    synchronized List<Map<String, Object>> insert(List<Map<String, Object>> payload) {
+        List<Map<String, Object>> created = new ArrayList<>(payload.size());
+        String now = now();
+        for (Map<String, Object> values : payload) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", idType == IdType.UUID ? UUID.randomUUID().toString() : sequence.incrementAndGet());
+            row.putAll(defaults);
+            row.put("created_at", now);
+            if (defaults.containsKey("updated_at")) row.put("updated_at", now);
+            row.putAll(values);
+            if (idType == IdType.BIGSERIAL && row.get("id") instanceof Number n) {
+                sequence.accumulateAndGet(n.longValue(), Math::max);
+            }
+            rows.add(row);
+            created.add(new LinkedHashMap<>(row));
+        }
+        return created;
+    }
+
+    /**
+     * Insert, merging a payload into the row that already has its value in the conflict column, or
+     * with ignoreDuplicates leaving that row alone and out of the result
+     */
+    synchronized List<Map<String, Object>> upsert(List<Map<String, Object>> payload, String conflictColumn,
+                                                  boolean ignoreDuplicates) {
+        List<Map<String, Object>> written = new ArrayList<>(payload.size());
+        for (Map<String, Object> values : payload) {
+            Map<String, Object> existing = null;
+            for (Map<String, Object> row : rows) {
+                if (String.valueOf(row.get(conflictColumn)).equals(String.valueOf(values.get(conflictColumn)))) {
+                    existing = row;
+                    break;
+                }
+            }
+            if (existing == null) {
+                written.addAll(insert(List.of(values)));
+            } else if (!ignoreDuplicates) {
+                existing.putAll(values);
+                written.add(new LinkedHashMap<>(existing));
+            }
+        }
+        return written;
+    }
+
+    synchronized List<Map<String, Object>> update(PostgrestQuery q, Map<String, Object> changes) {
+        List<Map<String, Object>> updated = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            if (q.matches(row)) {
+                row.putAll(changes);
+                if (defaults.containsKey("updated_at") && !changes.containsKey("updated_at")) {
+                    row.put("updated_at", now());
+                }
+                updated.add(new LinkedHashMap<>(row));
+            }
+        }
+        return updated;
+    }
+
+    synchronized List<Map<String, Object>> delete(PostgrestQuery q) {
+        List<Map<String, Object>> removed = new ArrayList<>();
+        rows.removeIf(row -> {
+            if (q.matches(row)) {
+                removed.add(row);
+                return true;
+            }
+            return false;
+        });
+        return removed;
+    }
+
+    synchronized int size() {
+        return rows.size();
+    }
+
+    /**
+     * Drop every row; like DELETE on a real table the id sequence keeps counting, so ids are never
+     * reused by rows an application may still hold cached
+     */
+    synchronized void clear() {
+        rows.clear();
+    }
+
+    private static String now() {
+        return OffsetDateTime.now(ZoneOffset.UTC).toString();
+    }
+}